@@ -43,6 +43,7 @@ import fr.free.nrw.commons.logging.FileLoggingTree;
 import fr.free.nrw.commons.logging.LogUtils;
 import fr.free.nrw.commons.modifications.ModifierSequenceDao;
 import fr.free.nrw.commons.upload.FileUtils;
+import fr.free.nrw.commons.upload.UploadedHashIndex;
 import fr.free.nrw.commons.utils.ConfigUtils;
 import io.reactivex.android.schedulers.AndroidSchedulers;
 import io.reactivex.internal.functions.Functions;
@@ -79,6 +80,7 @@ import static org.acra.ReportField.USER_COMMENT;
 public class CommonsApplication extends Application {
     @Inject SessionManager sessionManager;
     @Inject DBOpenHelper dbOpenHelper;
+    @Inject UploadedHashIndex uploadedHashIndex;
 
     @Inject @Named("default_preferences") JsonKvStore defaultPrefs;
 
@@ -253,6 +255,7 @@ public class CommonsApplication extends Application {
                     //TODO: fix preference manager
                     defaultPrefs.clearAll();
                     defaultPrefs.putBoolean("firstrun", false);
+                    uploadedHashIndex.clear();
                     updateAllDatabases();
                     logoutListener.onLogoutComplete();
                 });
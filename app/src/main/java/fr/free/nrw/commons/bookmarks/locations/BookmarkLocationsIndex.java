@@ -0,0 +1,90 @@
+package fr.free.nrw.commons.bookmarks.locations;
+
+import android.content.Context;
+import android.database.ContentObserver;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+import fr.free.nrw.commons.nearby.NearbyMarkerReconciler;
+import fr.free.nrw.commons.nearby.Place;
+import timber.log.Timber;
+
+/**
+ * Bookmarked locations kept in memory and indexed by Wikidata id, so that nearby markers and rows
+ * can be checked without querying the content provider each time. The bookmarks are loaded again
+ * on next use after the content provider notifies a change.
+ */
+@Singleton
+public class BookmarkLocationsIndex {
+    private final BookmarkLocationsDao bookmarkLocationsDao;
+    private List<Place> bookmarks;
+    private Set<String> bookmarkedIds;
+
+    @Inject
+    public BookmarkLocationsIndex(Context context, BookmarkLocationsDao bookmarkLocationsDao) {
+        this.bookmarkLocationsDao = bookmarkLocationsDao;
+        context.getContentResolver().registerContentObserver(
+                BookmarkLocationsContentProvider.BASE_URI, true, new ContentObserver(null) {
+                    @Override
+                    public void onChange(boolean selfChange) {
+                        invalidate();
+                    }
+                });
+    }
+
+    /**
+     * Returns every bookmarked location
+     * @return unmodifiable list of places
+     */
+    public synchronized List<Place> getBookmarks() {
+        load();
+        return bookmarks;
+    }
+
+    /**
+     * Checks whether a place is bookmarked
+     * @param place place to look for
+     * @return true if a bookmark has the same Wikidata id
+     */
+    public synchronized boolean isBookmarked(Place place) {
+        load();
+        return bookmarkedIds.contains(NearbyMarkerReconciler.getMarkerId(place));
+    }
+
+    /**
+     * Adds or removes the bookmark of a place. The index is updated right away rather than when
+     * the change notification arrives, so the place can be checked again immediately.
+     * @param place place to bookmark or un-bookmark
+     * @return true if the place is now bookmarked
+     */
+    public synchronized boolean updateBookmarkLocation(Place place) {
+        boolean isBookmarked = bookmarkLocationsDao.updateBookmarkLocation(place);
+        invalidate();
+        return isBookmarked;
+    }
+
+    private synchronized void invalidate() {
+        bookmarks = null;
+        bookmarkedIds = null;
+    }
+
+    private void load() {
+        if (bookmarks != null) {
+            return;
+        }
+        List<Place> places = bookmarkLocationsDao.getAllBookmarksLocations();
+        Set<String> ids = new HashSet<>();
+        for (Place place : places) {
+            ids.add(NearbyMarkerReconciler.getMarkerId(place));
+        }
+        bookmarks = Collections.unmodifiableList(places);
+        bookmarkedIds = ids;
+        Timber.d("Loaded %d bookmarked locations", places.size());
+    }
+}
@@ -1,95 +1,187 @@
 package fr.free.nrw.commons.caching;
 
-import com.github.varunpant.quadtree.Point;
-import com.github.varunpant.quadtree.QuadTree;
-
+import android.content.Context;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
-import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 import javax.inject.Inject;
 import javax.inject.Singleton;
 
-import fr.free.nrw.commons.upload.GpsCategoryModel;
 import timber.log.Timber;
 
+import static fr.free.nrw.commons.utils.LengthUtils.computeDistanceBetween;
+
+/**
+ * Disk backed cache of the categories suggested for the locations of uploaded images, so that
+ * repeated uploads from the same place skip the category query, even after the app restarts.
+ * The cache holds a bounded number of points, which expire after a while. Points are few enough
+ * to be scanned linearly.
+ */
 @Singleton
 public class CacheController {
+    private static final String CACHE_FILE_NAME = "gpsCategories.json";
+    private static final long POINT_TTL = TimeUnit.DAYS.toMillis(30);
+    private static final int MAX_POINTS = 500;
+    private static final double SEARCH_RADIUS = 100; // in meters
+    private static final double SAME_POINT_RADIUS = 10; // in meters
 
-    private final GpsCategoryModel gpsCategoryModel;
-    private final QuadTree<List<String>> quadTree;
-    private double x, y;
-    private double xMinus, xPlus, yMinus, yPlus;
-
-    private static final int EARTH_RADIUS = 6378137;
+    private final Gson gson;
+    private final File cacheFile;
+    private List<CachedPoint> points;
 
     @Inject
-    CacheController(GpsCategoryModel gpsCategoryModel) {
-        this.gpsCategoryModel = gpsCategoryModel;
-        quadTree = new QuadTree<>(-180, -90, +180, +90);
+    CacheController(Context context, Gson gson) {
+        this.gson = gson;
+        this.cacheFile = new File(context.getCacheDir(), CACHE_FILE_NAME);
     }
 
-    public void setQtPoint(double decLongitude, double decLatitude) {
-        x = decLongitude;
-        y = decLatitude;
-        Timber.d("New QuadTree created");
-        Timber.d("X (longitude) value: %f, Y (latitude) value: %f", x, y);
+    /**
+     * Caches the categories found around a location, replacing those of a point at the same place
+     * @param latitude latitude of the image
+     * @param longitude longitude of the image
+     * @param categories categories suggested for the location
+     */
+    public synchronized void cacheCategory(double latitude, double longitude, List<String> categories) {
+        if (categories == null || categories.isEmpty()) {
+            Timber.d("No categories found, so no categories cached");
+            return;
+        }
+        List<CachedPoint> points = getPoints();
+        long now = System.currentTimeMillis();
+        Iterator<CachedPoint> iterator = points.iterator();
+        while (iterator.hasNext()) {
+            CachedPoint point = iterator.next();
+            if (now - point.time > POINT_TTL || computeDistanceBetween(latitude, longitude,
+                    point.latitude, point.longitude) <= SAME_POINT_RADIUS) {
+                iterator.remove();
+            }
+        }
+        // Points are kept in insertion order, so the oldest are evicted first
+        while (points.size() >= MAX_POINTS) {
+            points.remove(0);
+        }
+        points.add(new CachedPoint(latitude, longitude, now, new ArrayList<>(categories)));
+        Timber.d("Categories being cached: %s", categories);
+        write();
     }
 
-    public void cacheCategory() {
-        List<String> pointCatList = new ArrayList<>();
-        if (gpsCategoryModel.getGpsCatExists()) {
-            pointCatList.addAll(gpsCategoryModel.getCategoryList());
-            Timber.d("Categories being cached: %s", pointCatList);
+    /**
+     * Returns the categories cached around a location, merged from every point nearby. Categories
+     * found at more points come first, then those of the closest points.
+     * @param latitude latitude of the image
+     * @param longitude longitude of the image
+     * @return categories found in cache, empty if there are none
+     */
+    public synchronized List<String> findCategory(double latitude, double longitude) {
+        Map<String, Integer> counts = new HashMap<>();
+        Map<String, Double> distances = new HashMap<>();
+        long now = System.currentTimeMillis();
+        for (CachedPoint point : getPoints()) {
+            if (now - point.time > POINT_TTL) {
+                continue;
+            }
+            double distance = computeDistanceBetween(latitude, longitude,
+                    point.latitude, point.longitude);
+            if (distance > SEARCH_RADIUS) {
+                continue;
+            }
+            for (String category : point.categories) {
+                Integer count = counts.get(category);
+                counts.put(category, count == null ? 1 : count + 1);
+                Double closest = distances.get(category);
+                if (closest == null || distance < closest) {
+                    distances.put(category, distance);
+                }
+            }
+        }
+
+        List<String> categories = new ArrayList<>(counts.keySet());
+        Collections.sort(categories, (first, second) -> {
+            int byCount = Integer.compare(counts.get(second), counts.get(first));
+            return byCount != 0 ? byCount : Double.compare(distances.get(first), distances.get(second));
+        });
+        if (categories.isEmpty()) {
+            Timber.d("No categories found in cache");
         } else {
-            Timber.d("No categories found, so no categories cached");
+            Timber.d("Categories found in cache: %s", categories);
+        }
+        return categories;
+    }
+
+    private List<CachedPoint> getPoints() {
+        if (points == null) {
+            points = read();
         }
-        quadTree.set(x, y, pointCatList);
+        return points;
     }
 
-    public List<String> findCategory() {
-        Point<List<String>>[] pointsFound;
-        //Convert decLatitude and decLongitude to a coordinate offset range
-        convertCoordRange();
-        pointsFound = quadTree.searchWithin(xMinus, yMinus, xPlus, yPlus);
-        List<String> displayCatList = new ArrayList<>();
-        Timber.d("Points found in quadtree: %s", Arrays.toString(pointsFound));
-
-        if (pointsFound.length != 0) {
-            Timber.d("Entering for loop");
-
-            for (Point<List<String>> point : pointsFound) {
-                Timber.d("Nearby point: %s", point);
-                displayCatList = point.getValue();
-                Timber.d("Nearby cat: %s", point.getValue());
+    private List<CachedPoint> read() {
+        List<CachedPoint> points = new ArrayList<>();
+        if (!cacheFile.exists()) {
+            return points;
+        }
+        try (Reader reader = new InputStreamReader(new FileInputStream(cacheFile), StandardCharsets.UTF_8)) {
+            CachedPoint[] cachedPoints = gson.fromJson(reader, CachedPoint[].class);
+            if (cachedPoints != null) {
+                for (CachedPoint point : cachedPoints) {
+                    if (point != null && point.categories != null) {
+                        points.add(point);
+                    }
+                }
             }
+        } catch (IOException | JsonParseException e) {
+            Timber.e(e, "Could not read category cache");
+            cacheFile.delete();
+        }
+        return points;
+    }
 
-            Timber.d("Categories found in cache: %s", displayCatList);
-        } else {
-            Timber.d("No categories found in cache");
+    private void write() {
+        File tempFile = new File(cacheFile.getPath() + ".tmp");
+        try (Writer writer = new OutputStreamWriter(new FileOutputStream(tempFile), StandardCharsets.UTF_8)) {
+            gson.toJson(points, writer);
+        } catch (IOException e) {
+            Timber.e(e, "Could not write category cache");
+            tempFile.delete();
+            return;
+        }
+        if (!tempFile.renameTo(cacheFile)) {
+            tempFile.delete();
         }
-        return displayCatList;
     }
 
-    //Based on algorithm at http://gis.stackexchange.com/questions/2951/algorithm-for-offsetting-a-latitude-longitude-by-some-amount-of-meters
-    private void convertCoordRange() {
-        //Position, decimal degrees
-        double lat = y;
-        double lon = x;
-
-        //offsets in meters
-        double offset = 100;
-
-        //Coordinate offsets in radians
-        double dLat = offset / EARTH_RADIUS;
-        double dLon = offset / (EARTH_RADIUS * Math.cos(Math.PI * lat / 180));
-
-        //OffsetPosition, decimal degrees
-        yPlus  = lat + dLat * 180 / Math.PI;
-        yMinus = lat - dLat * 180 / Math.PI;
-        xPlus  = lon + dLon * 180 / Math.PI;
-        xMinus = lon - dLon * 180 / Math.PI;
-        Timber.d("Search within: xMinus=%s, yMinus=%s, xPlus=%s, yPlus=%s",
-                xMinus, yMinus, xPlus, yPlus);
+    /**
+     * Categories suggested for a location at a given time
+     */
+    static class CachedPoint {
+        final double latitude;
+        final double longitude;
+        final long time;
+        final List<String> categories;
+
+        CachedPoint(double latitude, double longitude, long time, List<String> categories) {
+            this.latitude = latitude;
+            this.longitude = longitude;
+            this.time = time;
+            this.categories = categories;
+        }
     }
 }
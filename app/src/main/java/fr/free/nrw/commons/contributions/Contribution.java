@@ -67,6 +67,8 @@ public class  Contribution extends Media {
     private String wikiDataEntityId;
     private Uri contentProviderUri;
     private String dateCreatedSource;
+    private long chunkOffset;
+    private String filekey;
 
     public Contribution(Uri contentUri, String filename, Uri localUri, String imageUrl, Date dateCreated,
                         int state, long dataLength, Date dateUploaded, long transferred,
@@ -99,6 +101,8 @@ public class  Contribution extends Media {
         state = in.readInt();
         transferred = in.readLong();
         isMultiple = in.readInt() == 1;
+        chunkOffset = in.readLong();
+        filekey = in.readString();
     }
 
     @Override
@@ -109,6 +113,8 @@ public class  Contribution extends Media {
         parcel.writeInt(state);
         parcel.writeLong(transferred);
         parcel.writeInt(isMultiple ? 1 : 0);
+        parcel.writeLong(chunkOffset);
+        parcel.writeString(filekey);
     }
 
     public String getDateCreatedSource() {
@@ -135,6 +141,28 @@ public class  Contribution extends Media {
         this.transferred = transferred;
     }
 
+    /**
+     * Number of bytes of the file acknowledged by the server in a chunked upload
+     */
+    public long getChunkOffset() {
+        return chunkOffset;
+    }
+
+    public void setChunkOffset(long chunkOffset) {
+        this.chunkOffset = chunkOffset;
+    }
+
+    /**
+     * Key of the stashed file a chunked upload appends to, null until the first chunk is uploaded
+     */
+    public String getFilekey() {
+        return filekey;
+    }
+
+    public void setFilekey(String filekey) {
+        this.filekey = filekey;
+    }
+
     public String getEditSummary() {
         return editSummary != null ? editSummary : CommonsApplication.DEFAULT_EDIT_SUMMARY;
     }
@@ -112,6 +112,8 @@ public class ContributionDao {
         cv.put(Table.COLUMN_HEIGHT, contribution.getHeight());
         cv.put(Table.COLUMN_LICENSE, contribution.getLicense());
         cv.put(Table.COLUMN_WIKI_DATA_ENTITY_ID, contribution.getWikiDataEntityId());
+        cv.put(Table.COLUMN_CHUNK_OFFSET, contribution.getChunkOffset());
+        cv.put(Table.COLUMN_FILEKEY, contribution.getFilekey());
         return cv;
     }
 
@@ -149,6 +151,12 @@ public class ContributionDao {
                 contribution.setWikiDataEntityId(wikidataEntityId);
             }
 
+            int chunkOffsetIndex = cursor.getColumnIndex(Table.COLUMN_CHUNK_OFFSET);
+            if (chunkOffsetIndex != -1) {
+                contribution.setChunkOffset(cursor.getLong(chunkOffsetIndex));
+                contribution.setFilekey(cursor.getString(cursor.getColumnIndex(Table.COLUMN_FILEKEY)));
+            }
+
             return contribution;
         }
 
@@ -185,6 +193,8 @@ public class ContributionDao {
         public static final String COLUMN_HEIGHT = "height";
         public static final String COLUMN_LICENSE = "license";
         public static final String COLUMN_WIKI_DATA_ENTITY_ID = "wikidataEntityID";
+        public static final String COLUMN_CHUNK_OFFSET = "chunk_offset"; // Bytes acknowledged by the server
+        public static final String COLUMN_FILEKEY = "filekey";
 
         // NOTE! KEEP IN SAME ORDER AS THEY ARE DEFINED UP THERE. HELPS HARD CODE COLUMN INDICES.
         public static final String[] ALL_FIELDS = {
@@ -204,7 +214,9 @@ public class ContributionDao {
                 COLUMN_WIDTH,
                 COLUMN_HEIGHT,
                 COLUMN_LICENSE,
-                COLUMN_WIKI_DATA_ENTITY_ID
+                COLUMN_WIKI_DATA_ENTITY_ID,
+                COLUMN_CHUNK_OFFSET,
+                COLUMN_FILEKEY
         };
 
         public static final String DROP_TABLE_STATEMENT = "DROP TABLE IF EXISTS " + TABLE_NAME;
@@ -226,7 +238,9 @@ public class ContributionDao {
                 + "width INTEGER,"
                 + "height INTEGER,"
                 + "LICENSE STRING,"
-                + "wikidataEntityID STRING"
+                + "wikidataEntityID STRING,"
+                + "chunk_offset INTEGER,"
+                + "filekey STRING"
                 + ");";
 
         // Upgrade from version 1 ->
@@ -248,6 +262,10 @@ public class ContributionDao {
         // Upgrade from version 8 ->
         static final String ADD_WIKI_DATA_ENTITY_ID_FIELD = "ALTER TABLE " + TABLE_NAME + " ADD COLUMN wikidataEntityID STRING;";
 
+        // Upgrade from version 10 ->
+        static final String ADD_CHUNK_OFFSET_FIELD = "ALTER TABLE " + TABLE_NAME + " ADD COLUMN chunk_offset INTEGER;";
+        static final String ADD_FILEKEY_FIELD = "ALTER TABLE " + TABLE_NAME + " ADD COLUMN filekey STRING;";
+
 
         public static void onCreate(SQLiteDatabase db) {
             db.execSQL(CREATE_TABLE_STATEMENT);
@@ -304,8 +322,21 @@ public class ContributionDao {
                 onUpdate(db, from, to);
                 return;
             }
-            if (from > 5) {
+            if (from > 5 && from < 10) {
                 // Added place field
+                from = Math.min(to, 10);
+                onUpdate(db, from, to);
+                return;
+            }
+            if (from == 10) {
+                // Added chunked upload fields
+                runQuery(db, ADD_CHUNK_OFFSET_FIELD);
+                runQuery(db, ADD_FILEKEY_FIELD);
+                from++;
+                onUpdate(db, from, to);
+                return;
+            }
+            if (from > 10) {
                 from=to;
                 onUpdate(db, from, to);
                 return;
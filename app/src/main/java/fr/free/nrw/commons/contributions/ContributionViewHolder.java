@@ -12,6 +12,8 @@ import com.facebook.drawee.view.SimpleDraweeView;
 
 import org.apache.commons.lang3.StringUtils;
 
+import java.util.concurrent.TimeUnit;
+
 import javax.inject.Inject;
 import javax.inject.Named;
 
@@ -23,6 +25,7 @@ import fr.free.nrw.commons.R;
 import fr.free.nrw.commons.ViewHolder;
 import fr.free.nrw.commons.contributions.model.DisplayableContribution;
 import fr.free.nrw.commons.di.ApplicationlessInjection;
+import fr.free.nrw.commons.upload.UploadProgressAggregator;
 import io.reactivex.android.schedulers.AndroidSchedulers;
 import io.reactivex.disposables.CompositeDisposable;
 import io.reactivex.disposables.Disposable;
@@ -30,6 +33,8 @@ import io.reactivex.schedulers.Schedulers;
 import timber.log.Timber;
 
 public class ContributionViewHolder implements ViewHolder<DisplayableContribution> {
+    private static final long PROGRESS_UPDATE_INTERVAL = 100; // in milliseconds
+
     @BindView(R.id.contributionImage)
     SimpleDraweeView imageView;
     @BindView(R.id.contributionTitle) TextView titleView;
@@ -45,8 +50,12 @@ public class ContributionViewHolder implements ViewHolder<DisplayableContributio
     @Named("thumbnail-cache")
     LruCache<String, String> thumbnailCache;
 
+    @Inject
+    UploadProgressAggregator uploadProgressAggregator;
+
     private DisplayableContribution contribution;
     private CompositeDisposable compositeDisposable = new CompositeDisposable();
+    private Disposable progressDisposable;
 
     ContributionViewHolder(View parent) {
         ButterKnife.bind(this, parent);
@@ -63,6 +72,10 @@ public class ContributionViewHolder implements ViewHolder<DisplayableContributio
         seqNumView.setText(String.valueOf(contribution.getPosition() + 1));
         seqNumView.setVisibility(View.VISIBLE);
 
+        if (progressDisposable != null) {
+            compositeDisposable.remove(progressDisposable);
+            progressDisposable = null;
+        }
         switch (contribution.getState()) {
             case Contribution.STATE_COMPLETED:
                 stateView.setVisibility(View.GONE);
@@ -80,12 +93,14 @@ public class ContributionViewHolder implements ViewHolder<DisplayableContributio
                 stateView.setVisibility(View.GONE);
                 progressView.setVisibility(View.VISIBLE);
                 failedImageOptions.setVisibility(View.GONE);
-                long total = contribution.getDataLength();
-                long transferred = contribution.getTransferred();
-                if (transferred == 0 || transferred >= total) {
-                    progressView.setIndeterminate(true);
-                } else {
-                    progressView.setProgress((int)(((double)transferred / (double)total) * 100));
+                showProgress(contribution.getTransferred(), contribution.getDataLength());
+                // Saved progress is coalesced, the bar follows the upload itself
+                if (contribution.getContentUri() != null) {
+                    progressDisposable = uploadProgressAggregator.getProgress(contribution.getContentUri())
+                            .sample(PROGRESS_UPDATE_INTERVAL, TimeUnit.MILLISECONDS, true)
+                            .observeOn(AndroidSchedulers.mainThread())
+                            .subscribe(progress -> showProgress(progress.getTransferred(), progress.getTotal()));
+                    compositeDisposable.add(progressDisposable);
                 }
                 break;
             case Contribution.STATE_FAILED:
@@ -97,6 +112,15 @@ public class ContributionViewHolder implements ViewHolder<DisplayableContributio
         }
     }
 
+    private void showProgress(long transferred, long total) {
+        if (transferred == 0 || transferred >= total) {
+            progressView.setIndeterminate(true);
+        } else {
+            progressView.setIndeterminate(false);
+            progressView.setProgress((int)(((double)transferred / (double)total) * 100));
+        }
+    }
+
     /**
      * This method fetches the thumbnail url from file name
      * If the thumbnail url is present in cache, then it is used otherwise API call is made to fetch the thumbnail
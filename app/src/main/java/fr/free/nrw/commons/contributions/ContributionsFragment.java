@@ -48,7 +48,7 @@ import fr.free.nrw.commons.location.LocationUpdateListener;
 import fr.free.nrw.commons.media.MediaDetailPagerFragment;
 import fr.free.nrw.commons.mwapi.MediaWikiApi;
 import fr.free.nrw.commons.mwapi.OkHttpJsonApiClient;
-import fr.free.nrw.commons.nearby.NearbyController;
+import fr.free.nrw.commons.nearby.ClosestPlaceFinder;
 import fr.free.nrw.commons.nearby.NearbyNotificationCardView;
 import fr.free.nrw.commons.nearby.Place;
 import fr.free.nrw.commons.settings.Prefs;
@@ -57,7 +57,7 @@ import fr.free.nrw.commons.utils.ConfigUtils;
 import fr.free.nrw.commons.utils.DialogUtil;
 import fr.free.nrw.commons.utils.PermissionUtils;
 import fr.free.nrw.commons.utils.ViewUtil;
-import io.reactivex.Observable;
+import io.reactivex.Maybe;
 import io.reactivex.android.schedulers.AndroidSchedulers;
 import io.reactivex.disposables.CompositeDisposable;
 import io.reactivex.schedulers.Schedulers;
@@ -81,7 +81,7 @@ public class ContributionsFragment
     @Inject @Named("default_preferences") JsonKvStore store;
     @Inject ContributionDao contributionDao;
     @Inject MediaWikiApi mediaWikiApi;
-    @Inject NearbyController nearbyController;
+    @Inject ClosestPlaceFinder closestPlaceFinder;
     @Inject OkHttpJsonApiClient okHttpJsonApiClient;
     @Inject CampaignsPresenter presenter;
     @Inject LocationServiceManager locationManager;
@@ -521,21 +521,21 @@ public class ContributionsFragment
 
     private void updateClosestNearbyCardViewInfo() {
         curLatLng = locationManager.getLastLocation();
-        compositeDisposable.add(Observable.fromCallable(() -> nearbyController
-                .loadAttractionsFromLocation(curLatLng, curLatLng, true, false)) // thanks to boolean, it will only return closest result
+        LatLng location = curLatLng;
+        compositeDisposable.add(Maybe.fromCallable(() -> closestPlaceFinder.findClosestPlace(location))
                 .subscribeOn(Schedulers.io())
                 .observeOn(AndroidSchedulers.mainThread())
                 .subscribe(this::updateNearbyNotification,
                         throwable -> {
                             Timber.d(throwable);
                             updateNearbyNotification(null);
-                        }));
+                        },
+                        () -> updateNearbyNotification(null)));
     }
 
-    private void updateNearbyNotification(@Nullable NearbyController.NearbyPlacesInfo nearbyPlacesInfo) {
+    private void updateNearbyNotification(@Nullable Place closestNearbyPlace) {
 
-        if (nearbyPlacesInfo != null && nearbyPlacesInfo.placeList != null && nearbyPlacesInfo.placeList.size() > 0) {
-            Place closestNearbyPlace = nearbyPlacesInfo.placeList.get(0);
+        if (closestNearbyPlace != null) {
             String distance = formatDistanceBetween(curLatLng, closestNearbyPlace.location);
             closestNearbyPlace.setDistance(distance);
             nearbyNotificationCardView.updateContent(closestNearbyPlace);
@@ -26,6 +26,7 @@ import fr.free.nrw.commons.di.ApplicationlessInjection;
 import fr.free.nrw.commons.kvstore.JsonKvStore;
 import fr.free.nrw.commons.mwapi.LogEventResult;
 import fr.free.nrw.commons.mwapi.MediaWikiApi;
+import fr.free.nrw.commons.upload.UploadedHashIndex;
 import timber.log.Timber;
 
 import static fr.free.nrw.commons.contributions.Contribution.STATE_COMPLETED;
@@ -49,6 +50,7 @@ public class ContributionsSyncAdapter extends AbstractThreadedSyncAdapter {
     @Inject
     @Named("default_preferences")
     JsonKvStore defaultKvStore;
+    @Inject UploadedHashIndex uploadedHashIndex;
 
     public ContributionsSyncAdapter(Context context, boolean autoInitialize) {
         super(context, autoInitialize);
@@ -148,6 +150,20 @@ public class ContributionsSyncAdapter extends AbstractThreadedSyncAdapter {
                 done = true;
             }
         }
+
+        // Hashes of another account or of an old index are dropped, and those of this one fetched from the start
+        boolean fetchAllHashes = uploadedHashIndex.setUser(user);
+        try {
+            uploadedHashIndex.addAll(mwApi.getUploadedFileHashes(user, fetchAllHashes ? "" : lastModified));
+        } catch (IOException e) {
+            // The hashes are fetched again on next sync
+            if (fetchAllHashes) {
+                uploadedHashIndex.clear();
+            }
+            syncResult.stats.numIoExceptions += 1;
+            Timber.d("Syncing uploaded file hashes failed due to %s", e);
+            return;
+        }
         defaultKvStore.putString("lastSyncTimestamp", DateUtil.iso8601DateFormat(curTime));
         Timber.d("Oh hai, everyone! Look, a kitty!");
     }
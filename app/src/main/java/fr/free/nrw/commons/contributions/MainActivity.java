@@ -333,11 +333,13 @@ public class MainActivity extends AuthenticatedActivity implements FragmentManag
                 // Display notifications menu item
                 menu.findItem(R.id.notifications).setVisible(true);
                 menu.findItem(R.id.list_sheet).setVisible(false);
+                menu.findItem(R.id.save_offline_area).setVisible(false);
                 Timber.d("Contributions activity notifications menu item is visible");
             } else {
                 // Display bottom list menu item
                 menu.findItem(R.id.notifications).setVisible(false);
                 menu.findItem(R.id.list_sheet).setVisible(true);
+                menu.findItem(R.id.save_offline_area).setVisible(true);
                 Timber.d("Contributions activity list sheet menu item is visible");
             }
         }
@@ -355,6 +357,11 @@ public class MainActivity extends AuthenticatedActivity implements FragmentManag
                     ((NearbyFragment)contributionsActivityPagerAdapter.getItem(1)).listOptionMenuItemClicked();
                 }
                 return true;
+            case R.id.save_offline_area:
+                if (contributionsActivityPagerAdapter.getItem(1) != null) {
+                    ((NearbyFragment)contributionsActivityPagerAdapter.getItem(1)).saveOfflineAreaMenuItemClicked();
+                }
+                return true;
             default:
                 return super.onOptionsItemSelected(item);
         }
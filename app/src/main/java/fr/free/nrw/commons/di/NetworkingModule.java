@@ -66,8 +66,9 @@ public class NetworkingModule {
     @Singleton
     public MediaWikiApi provideMediaWikiApi(Context context,
                                             @Named("default_preferences") JsonKvStore defaultKvStore,
-                                            Gson gson) {
-        return new ApacheHttpClientMediaWikiApi(context, BuildConfig.WIKIMEDIA_API_HOST, BuildConfig.WIKIDATA_API_HOST, defaultKvStore, gson);
+                                            Gson gson,
+                                            OkHttpClient okHttpClient) {
+        return new ApacheHttpClientMediaWikiApi(context, BuildConfig.WIKIMEDIA_API_HOST, BuildConfig.WIKIDATA_API_HOST, defaultKvStore, gson, okHttpClient);
     }
 
     @Provides
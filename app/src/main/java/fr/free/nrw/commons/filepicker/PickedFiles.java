@@ -6,6 +6,7 @@ import android.media.MediaScannerConnection;
 import android.net.Uri;
 import android.os.Environment;
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 import androidx.core.content.FileProvider;
 import android.webkit.MimeTypeMap;
 
@@ -15,12 +16,14 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.security.MessageDigest;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.List;
 import java.util.UUID;
 
+import fr.free.nrw.commons.upload.FileUtils;
 import timber.log.Timber;
 
 
@@ -36,18 +39,27 @@ class PickedFiles implements Constants {
         return privateTempDir;
     }
 
-    private static void writeToFile(InputStream in, File file) {
+    /**
+     * Copies a stream to a file, hashing it on the way so that it is not read again to be hashed
+     * @return SHA1 of the content, or null if the copy failed
+     */
+    @Nullable
+    private static String writeToFile(InputStream in, File file) {
         try {
+            MessageDigest digest = MessageDigest.getInstance("SHA1");
             OutputStream out = new FileOutputStream(file);
-            byte[] buf = new byte[1024];
+            byte[] buf = new byte[8192];
             int len;
             while ((len = in.read(buf)) > 0) {
+                digest.update(buf, 0, len);
                 out.write(buf, 0, len);
             }
             out.close();
             in.close();
+            return FileUtils.formatSHA1(digest.digest());
         } catch (Exception e) {
             e.printStackTrace();
+            return null;
         }
     }
 
@@ -113,8 +125,8 @@ class PickedFiles implements Constants {
         File directory = tempImageDirectory(context);
         File photoFile = new File(directory, UUID.randomUUID().toString() + "." + getMimeType(context, photoUri));
         photoFile.createNewFile();
-        writeToFile(pictureInputStream, photoFile);
-        return new UploadableFile(photoUri, photoFile);
+        String sha1 = writeToFile(pictureInputStream, photoFile);
+        return new UploadableFile(photoUri, photoFile, sha1);
     }
 
     static File getCameraPicturesLocation(@NonNull Context context) throws IOException {
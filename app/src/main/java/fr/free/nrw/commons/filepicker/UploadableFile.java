@@ -8,16 +8,11 @@ import android.os.Parcelable;
 
 import androidx.annotation.Nullable;
 
-import com.drew.imaging.ImageMetadataReader;
-import com.drew.imaging.ImageProcessingException;
-import com.drew.metadata.Metadata;
-import com.drew.metadata.exif.ExifSubIFDDirectory;
-
 import java.io.File;
-import java.io.IOException;
 import java.util.Date;
 
 import fr.free.nrw.commons.upload.FileUtils;
+import fr.free.nrw.commons.upload.ImageFacts;
 
 public class UploadableFile implements Parcelable {
     public static final Creator<UploadableFile> CREATOR = new Creator<UploadableFile>() {
@@ -34,20 +29,32 @@ public class UploadableFile implements Parcelable {
 
     private final Uri contentUri;
     private final File file;
+    @Nullable
+    private final String sha1;
 
     public UploadableFile(Uri contentUri, File file) {
+        this(contentUri, file, null);
+    }
+
+    /**
+     * @param sha1 SHA1 of the file if it was computed while the file was copied, null otherwise
+     */
+    public UploadableFile(Uri contentUri, File file, @Nullable String sha1) {
         this.contentUri = contentUri;
         this.file = file;
+        this.sha1 = sha1;
     }
 
     public UploadableFile(File file) {
         this.file = file;
         this.contentUri = Uri.parse(file.getAbsolutePath());
+        this.sha1 = null;
     }
 
     public UploadableFile(Parcel in) {
         this.contentUri = in.readParcelable(Uri.class.getClassLoader());
         file = (File) in.readSerializable();
+        sha1 = in.readString();
     }
 
     public Uri getContentUri() {
@@ -58,6 +65,14 @@ public class UploadableFile implements Parcelable {
         return file;
     }
 
+    /**
+     * Returns the SHA1 of the file computed while it was copied, or null if it is unknown
+     */
+    @Nullable
+    public String getSha1() {
+        return sha1;
+    }
+
     public String getFilePath() {
         return file.getPath();
     }
@@ -79,15 +94,16 @@ public class UploadableFile implements Parcelable {
     /**
      * First try to get the file creation date from EXIF else fall back to CP
      * @param context
+     * @param imageFacts metadata already read for the file, or null if it is unknown
      * @return
      */
     @Nullable
-    public DateTimeWithSource getFileCreatedDate(Context context) {
-        DateTimeWithSource dateTimeFromExif = getDateTimeFromExif();
-        if (dateTimeFromExif == null) {
+    public DateTimeWithSource getFileCreatedDate(Context context, @Nullable ImageFacts imageFacts) {
+        Date captureDate = imageFacts == null ? null : imageFacts.getCaptureDate();
+        if (captureDate == null) {
             return getFileCreatedDateFromCP(context);
         } else {
-            return dateTimeFromExif;
+            return new DateTimeWithSource(captureDate, DateTimeWithSource.EXIF_SOURCE);
         }
     }
 
@@ -119,32 +135,11 @@ public class UploadableFile implements Parcelable {
         }
     }
 
-    /**
-     * Get filePath creation date from uri from EXIF
-     *
-     * @return
-     */
-    private DateTimeWithSource getDateTimeFromExif() {
-        Metadata metadata;
-        try {
-            metadata = ImageMetadataReader.readMetadata(file);
-            ExifSubIFDDirectory directory = metadata.getFirstDirectoryOfType(ExifSubIFDDirectory.class);
-            if (directory!=null && directory.containsTag(ExifSubIFDDirectory.TAG_DATETIME_ORIGINAL)) {
-                Date date = directory.getDate(ExifSubIFDDirectory.TAG_DATETIME_ORIGINAL);
-                return new DateTimeWithSource(date, DateTimeWithSource.EXIF_SOURCE);
-            }
-        } catch (ImageProcessingException e) {
-            e.printStackTrace();
-        } catch (IOException e) {
-            e.printStackTrace();
-        }
-        return null;
-    }
-
     @Override
     public void writeToParcel(Parcel parcel, int i) {
         parcel.writeParcelable(contentUri, 0);
         parcel.writeSerializable(file);
+        parcel.writeString(sha1);
     }
 
     /**
@@ -25,6 +25,8 @@ public class LocationServiceManager implements LocationListener {
     private Location lastLocation;
     //private Location lastLocationDuplicate; // Will be used for nearby card view on contributions activity
     private final List<LocationUpdateListener> locationListeners = new CopyOnWriteArrayList<>();
+    private final List<MovementListener> movementListeners = new CopyOnWriteArrayList<>();
+    private Location lastFix; // Previous fix of any quality, used to derive speed and heading
     private boolean isLocationManagerRegistered = false;
     private Set<Activity> locationExplanationDisplayed = new HashSet<>();
 
@@ -174,9 +176,50 @@ public class LocationServiceManager implements LocationListener {
         locationListeners.remove(listener);
     }
 
+    /**
+     * Adds a listener which gets the speed and heading of every location fix.
+     *
+     * @param listener the new listener
+     */
+    public void addMovementListener(MovementListener listener) {
+        if (!movementListeners.contains(listener)) {
+            movementListeners.add(listener);
+        }
+    }
+
+    /**
+     * Removes a listener from the list of movement listeners.
+     *
+     * @param listener the listener to be removed
+     */
+    public void removeMovementListener(MovementListener listener) {
+        movementListeners.remove(listener);
+    }
+
+    /**
+     * Passes a fix to the movement listeners. Speed and heading come from the fix when the
+     * provider reports them, otherwise they are derived from the previous fix.
+     */
+    private void notifyMovement(Location location) {
+        float speed = 0;
+        float bearing = 0;
+        if (location.hasSpeed() && location.hasBearing()) {
+            speed = location.getSpeed();
+            bearing = location.getBearing();
+        } else if (lastFix != null && location.getTime() > lastFix.getTime()) {
+            speed = lastFix.distanceTo(location) * 1000f / (location.getTime() - lastFix.getTime());
+            bearing = (lastFix.bearingTo(location) + 360) % 360;
+        }
+        lastFix = location;
+        for (MovementListener listener : movementListeners) {
+            listener.onMovement(LatLng.from(location), speed, bearing);
+        }
+    }
+
     @Override
     public void onLocationChanged(Location location) {
         Timber.d("on location changed");
+        notifyMovement(location);
             if (isBetterLocation(location, lastLocation)
                     .equals(LocationChangeType.LOCATION_SIGNIFICANTLY_CHANGED)) {
                 lastLocation = location;
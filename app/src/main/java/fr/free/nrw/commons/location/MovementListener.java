@@ -0,0 +1,11 @@
+package fr.free.nrw.commons.location;
+
+public interface MovementListener {
+    /**
+     * Called on every location fix, along with the speed and heading of the user
+     * @param latLng location of the fix
+     * @param speed speed in meters per second, 0 if it is unknown
+     * @param bearing heading in degrees east of true north, in [0, 360)
+     */
+    void onMovement(LatLng latLng, float speed, float bearing);
+}
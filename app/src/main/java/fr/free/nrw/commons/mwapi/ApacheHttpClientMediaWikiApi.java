@@ -8,6 +8,8 @@ import com.google.gson.Gson;
 
 import org.apache.commons.lang3.StringUtils;
 import org.apache.http.conn.ClientConnectionManager;
+import org.apache.http.conn.params.ConnManagerParams;
+import org.apache.http.conn.params.ConnPerRouteBean;
 import org.apache.http.conn.scheme.PlainSocketFactory;
 import org.apache.http.conn.scheme.Scheme;
 import org.apache.http.conn.scheme.SchemeRegistry;
@@ -22,14 +24,20 @@ import org.w3c.dom.Node;
 import org.w3c.dom.NodeList;
 import org.wikipedia.util.DateUtil;
 
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.text.ParseException;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.Callable;
 
 import androidx.annotation.NonNull;
@@ -46,6 +54,7 @@ import fr.free.nrw.commons.notification.NotificationUtils;
 import fr.free.nrw.commons.utils.ViewUtil;
 import io.reactivex.Observable;
 import io.reactivex.Single;
+import okhttp3.OkHttpClient;
 import timber.log.Timber;
 
 /**
@@ -55,23 +64,31 @@ public class ApacheHttpClientMediaWikiApi implements MediaWikiApi {
     private AbstractHttpClient httpClient;
     private CustomMwApi api;
     private CustomMwApi wikidataApi;
+    private OkHttpUploadClient uploadClient;
     private Context context;
     private JsonKvStore defaultKvStore;
     private Gson gson;
 
     private final String ERROR_CODE_BAD_TOKEN = "badtoken";
+    static final int CHUNK_SIZE = 1024 * 1024;
+    private static final int MAX_CONNECTIONS_PER_ROUTE = 8;
+    private static final int MAX_TITLES_PER_QUERY = 50;
 
     public ApacheHttpClientMediaWikiApi(Context context,
                                         String apiURL,
                                         String wikidatApiURL,
                                         JsonKvStore defaultKvStore,
-                                        Gson gson) {
+                                        Gson gson,
+                                        OkHttpClient okHttpClient) {
         this.context = context;
         BasicHttpParams params = new BasicHttpParams();
         SchemeRegistry schemeRegistry = new SchemeRegistry();
         schemeRegistry.register(new Scheme("http", PlainSocketFactory.getSocketFactory(), 80));
         final SSLSocketFactory sslSocketFactory = SSLSocketFactory.getSocketFactory();
         schemeRegistry.register(new Scheme("https", sslSocketFactory, 443));
+        // Parallel uploads would otherwise wait on the default of 2 connections per host
+        ConnManagerParams.setMaxConnectionsPerRoute(params, new ConnPerRouteBean(MAX_CONNECTIONS_PER_ROUTE));
+        ConnManagerParams.setMaxTotalConnections(params, MAX_CONNECTIONS_PER_ROUTE * 2);
         ClientConnectionManager cm = new ThreadSafeClientConnManager(params, schemeRegistry);
         params.setParameter(CoreProtocolPNames.USER_AGENT, CommonsApplication.getInstance().getUserAgent());
         httpClient = new DefaultHttpClient(cm, params);
@@ -80,6 +97,8 @@ public class ApacheHttpClientMediaWikiApi implements MediaWikiApi {
         }
         api = new CustomMwApi(apiURL, httpClient);
         wikidataApi = new CustomMwApi(wikidatApiURL, httpClient);
+        uploadClient = new OkHttpUploadClient(okHttpClient, apiURL,
+                CommonsApplication.getInstance().getUserAgent(), httpClient.getCookieStore());
         this.defaultKvStore = defaultKvStore;
         this.gson = gson;
     }
@@ -233,6 +252,53 @@ public class ApacheHttpClientMediaWikiApi implements MediaWikiApi {
                 .getNodes("/api/query/pages/page/imageinfo").size() > 0;
     }
 
+    /**
+     * Checks which of several file names are taken, querying up to 50 titles at a time
+     * @param fileNames names of the files, without the File: prefix
+     * @return the given names of the files which exist
+     */
+    @Override
+    @NonNull
+    public Set<String> getExistingFileNames(Collection<String> fileNames) throws IOException {
+        List<String> names = new ArrayList<>(fileNames);
+        Set<String> existing = new HashSet<>();
+        for (int start = 0; start < names.size(); start += MAX_TITLES_PER_QUERY) {
+            // Several names may be normalized to the same title
+            Map<String, List<String>> namesByTitle = new HashMap<>();
+            for (String name : names.subList(start, Math.min(start + MAX_TITLES_PER_QUERY, names.size()))) {
+                addNameForTitle(namesByTitle, "File:" + name, name);
+            }
+            CustomApiResult result = api.action("query")
+                    .param("prop", "imageinfo")
+                    .param("titles", TextUtils.join("|", namesByTitle.keySet()))
+                    .get();
+            for (CustomApiResult normalized : result.getNodes("/api/query/normalized/n")) {
+                List<String> requested = namesByTitle.remove(normalized.getString("@from"));
+                if (requested != null) {
+                    for (String name : requested) {
+                        addNameForTitle(namesByTitle, normalized.getString("@to"), name);
+                    }
+                }
+            }
+            for (CustomApiResult page : result.getNodes("/api/query/pages/page")) {
+                List<String> requested = namesByTitle.get(page.getString("@title"));
+                if (requested != null && page.getNodes("imageinfo").size() > 0) {
+                    existing.addAll(requested);
+                }
+            }
+        }
+        return existing;
+    }
+
+    private static void addNameForTitle(Map<String, List<String>> namesByTitle, String title, String name) {
+        List<String> names = namesByTitle.get(title);
+        if (names == null) {
+            names = new ArrayList<>();
+            namesByTitle.put(title, names);
+        }
+        names.add(name);
+    }
+
     @Override
     public Single<Boolean> pageExists(String pageName) {
         return Single.fromCallable(() -> Double.parseDouble(api.action("query")
@@ -759,6 +825,42 @@ public class ApacheHttpClientMediaWikiApi implements MediaWikiApi {
                 .getNodes("/api/query/allimages/img").size() > 0;
     }
 
+    /**
+     * Returns the SHA1 of the files uploaded by a user, 500 at a time
+     * @param user name of the user
+     * @param since timestamp of the oldest uploads to return, empty for every upload
+     * @return SHA1 of the uploaded files
+     */
+    @Override
+    @NonNull
+    public List<String> getUploadedFileHashes(String user, String since) throws IOException {
+        List<String> hashes = new ArrayList<>();
+        String queryContinue = null;
+        do {
+            CustomMwApi.RequestBuilder builder = api.action("query")
+                    .param("format", "xml")
+                    .param("list", "allimages")
+                    // Without it, paging is returned under "continue" rather than "query-continue"
+                    .param("rawcontinue", "1")
+                    .param("aisort", "timestamp")
+                    .param("aiuser", user)
+                    .param("aiprop", "sha1")
+                    .param("ailimit", "500");
+            if (!TextUtils.isEmpty(since)) {
+                builder.param("aistart", since);
+            }
+            if (!TextUtils.isEmpty(queryContinue)) {
+                builder.param("aicontinue", queryContinue);
+            }
+            CustomApiResult result = builder.get();
+            for (CustomApiResult image : result.getNodes("/api/query/allimages/img")) {
+                hashes.add(image.getString("@sha1"));
+            }
+            queryContinue = result.getString("/api/query-continue/allimages/@aicontinue");
+        } while (!TextUtils.isEmpty(queryContinue));
+        return hashes;
+    }
+
     @Override
     @NonNull
     public Single<UploadStash> uploadFile(
@@ -790,6 +892,57 @@ public class ApacheHttpClientMediaWikiApi implements MediaWikiApi {
     }
 
 
+    @Override
+    @NonNull
+    public Single<UploadStash> uploadFileInChunks(
+            String filename,
+            @NonNull File file,
+            long offset,
+            @Nullable String filekey,
+            ChunkListener chunkListener,
+            ProgressListener progressListener) {
+        return Single.fromCallable(() -> {
+            long fileSize = file.length();
+            long chunkOffset = offset;
+            String chunkFilekey = filekey;
+            if (chunkFilekey != null && chunkOffset >= fileSize) {
+                // Every chunk was acknowledged before the upload got interrupted
+                return new UploadStash("", "Success", filename, chunkFilekey);
+            }
+            String editToken = getEditToken();
+            while (true) {
+                if (chunkOffset > fileSize) {
+                    throw new IOException("Chunk offset " + chunkOffset + " is past the end of " + file);
+                }
+                long chunkLength = Math.min(CHUNK_SIZE, fileSize - chunkOffset);
+                long chunkStart = chunkOffset;
+                CustomApiResult result = uploadClient.uploadChunkToStash(filename, file, fileSize, chunkOffset,
+                        chunkLength, chunkFilekey, editToken,
+                        (transferred, total) -> progressListener.onProgress(chunkStart + transferred, fileSize));
+
+                String resultStatus = result.getString("/api/upload/@result");
+                if (resultStatus.equals("Continue")) {
+                    chunkOffset = Long.parseLong(result.getString("/api/upload/@offset"));
+                    chunkFilekey = result.getString("/api/upload/@filekey");
+                    Timber.d("Server acknowledged %d of %d bytes of %s", chunkOffset, fileSize, filename);
+                    chunkListener.onChunkUploaded(chunkOffset, chunkFilekey);
+                } else if (resultStatus.equals("Success")) {
+                    return new UploadStash("", resultStatus, filename,
+                            result.getString("/api/upload/@filekey"));
+                } else {
+                    String errorCode = result.getString("/api/error/@code");
+                    Timber.e(errorCode);
+
+                    if (errorCode.equals(ERROR_CODE_BAD_TOKEN)) {
+                        ViewUtil.showLongToast(context, R.string.bad_token_error_proposed_solution);
+                    }
+                    return new UploadStash(errorCode, resultStatus, filename, "");
+                }
+            }
+        });
+    }
+
+
     @Override
     @NonNull
     public Single<UploadResult> uploadFileFinalize(
@@ -819,7 +972,8 @@ public class ApacheHttpClientMediaWikiApi implements MediaWikiApi {
                         .replace("_", " ")
                         .trim(); // Title vs Filename
                 String imageUrl = result.getString("/api/upload/imageinfo/@url");
-                return new UploadResult(resultStatus, dateUploaded, canonicalFilename, imageUrl);
+                String sha1 = result.getString("/api/upload/imageinfo/@sha1");
+                return new UploadResult(resultStatus, dateUploaded, canonicalFilename, imageUrl, sha1);
             }
         });
     }
@@ -8,6 +8,7 @@ import org.xml.sax.SAXException;
 
 import java.io.IOError;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.StringWriter;
 import java.util.ArrayList;
 
@@ -38,14 +39,7 @@ public class CustomApiResult {
 
     static CustomApiResult fromRequestBuilder(String requestIdentifier, Http.HttpRequestBuilder builder, HttpClient client) throws IOException {
         try {
-            DocumentBuilder docBuilder = DocumentBuilderFactory.newInstance().newDocumentBuilder();
-            Document doc = docBuilder.parse(builder.use(client).charset("utf-8").data("format", "xml").asResponse().getEntity().getContent());
-            printStringFromDocument(requestIdentifier, doc);
-            return new CustomApiResult(doc);
-        } catch (ParserConfigurationException e) {
-            // I don't know wtf I can do about this on...
-            Timber.e(e, "Error occurred while parsing the response for method %s", requestIdentifier);
-            throw new RuntimeException(e);
+            return fromInputStream(requestIdentifier, builder.use(client).charset("utf-8").data("format", "xml").asResponse().getEntity().getContent());
         } catch (IllegalStateException e) {
             // So, this should never actually happen - since we assume MediaWiki always generates valid json
             // So the only thing causing this would be a network truncation
@@ -54,8 +48,21 @@ public class CustomApiResult {
             // I surely am writing Nuclear Submarine controller code
             Timber.e(e, "Error occurred while parsing the response for method %s", requestIdentifier);
             throw new IOError(e);
+        }
+    }
+
+    static CustomApiResult fromInputStream(String requestIdentifier, InputStream content) throws IOException {
+        try {
+            DocumentBuilder docBuilder = DocumentBuilderFactory.newInstance().newDocumentBuilder();
+            Document doc = docBuilder.parse(content);
+            printStringFromDocument(requestIdentifier, doc);
+            return new CustomApiResult(doc);
+        } catch (ParserConfigurationException e) {
+            // I don't know wtf I can do about this on...
+            Timber.e(e, "Error occurred while parsing the response for method %s", requestIdentifier);
+            throw new RuntimeException(e);
         } catch (SAXException e) {
-            // See Rant above
+            // See Rant in fromRequestBuilder
             Timber.e(e, "Error occurred while parsing the response for method %s", requestIdentifier);
             throw new IOError(e);
         }
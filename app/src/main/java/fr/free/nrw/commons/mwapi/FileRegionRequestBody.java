@@ -0,0 +1,68 @@
+package fr.free.nrw.commons.mwapi;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+
+import okhttp3.MediaType;
+import okhttp3.RequestBody;
+import okio.Buffer;
+import okio.BufferedSink;
+import okio.ForwardingSink;
+import okio.Okio;
+
+/**
+ * Request body streaming part of a file from disk, and reporting the bytes handed to the
+ * connection. It can be written again when a request is retried.
+ */
+class FileRegionRequestBody extends RequestBody {
+    private final File file;
+    private final long offset;
+    private final long length;
+    private final MediaType contentType;
+    private final MediaWikiApi.ProgressListener progressListener;
+
+    FileRegionRequestBody(File file, long offset, long length, MediaType contentType,
+                          MediaWikiApi.ProgressListener progressListener) {
+        this.file = file;
+        this.offset = offset;
+        this.length = length;
+        this.contentType = contentType;
+        this.progressListener = progressListener;
+    }
+
+    @Nullable
+    @Override
+    public MediaType contentType() {
+        return contentType;
+    }
+
+    @Override
+    public long contentLength() {
+        return length;
+    }
+
+    @Override
+    public void writeTo(@NonNull BufferedSink sink) throws IOException {
+        try (FileInputStream input = new FileInputStream(file)) {
+            input.getChannel().position(offset);
+            // The file is read straight into segments, which are then moved to the connection
+            // rather than copied
+            BufferedSink progressSink = Okio.buffer(new ForwardingSink(sink) {
+                private long written;
+
+                @Override
+                public void write(@NonNull Buffer source, long byteCount) throws IOException {
+                    super.write(source, byteCount);
+                    written += byteCount;
+                    progressListener.onProgress(written, length);
+                }
+            });
+            progressSink.write(Okio.source(input), length);
+            progressSink.emit();
+        }
+    }
+}
@@ -2,9 +2,12 @@ package fr.free.nrw.commons.mwapi;
 
 import android.net.Uri;
 
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.Collection;
 import java.util.List;
+import java.util.Set;
 
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
@@ -32,6 +35,9 @@ public interface MediaWikiApi {
 
     boolean fileExistsWithName(String fileName) throws IOException;
 
+    @NonNull
+    Set<String> getExistingFileNames(Collection<String> fileNames) throws IOException;
+
     Single<Boolean> pageExists(String pageName);
 
     List<String> getSubCategoryList(String categoryName);
@@ -46,6 +52,21 @@ public interface MediaWikiApi {
                                    long dataLength, Uri fileUri, Uri contentProviderUri,
                                    final ProgressListener progressListener);
 
+    /**
+     * Uploads a file to the stash in chunks, starting from a previously acknowledged offset
+     * @param filename name of the file in the stash
+     * @param file file to upload
+     * @param offset number of bytes already acknowledged by the server, 0 for a new upload
+     * @param filekey key of the stashed file the chunks are appended to, null for a new upload
+     * @param chunkListener notified after each acknowledged chunk, so that the upload can be resumed
+     * @param progressListener notified of the bytes transferred
+     */
+    @NonNull
+    Single<UploadStash> uploadFileInChunks(String filename, File file,
+                                           long offset, @Nullable String filekey,
+                                           ChunkListener chunkListener,
+                                           ProgressListener progressListener);
+
     @NonNull
     Single<UploadResult> uploadFileFinalize(String filename, String filekey,
                                             String pageContents, String editSummary) throws IOException;
@@ -89,6 +110,9 @@ public interface MediaWikiApi {
 
     boolean existingFile(String fileSha1) throws IOException;
 
+    @NonNull
+    List<String> getUploadedFileHashes(String user, String since) throws IOException;
+
     @NonNull
     LogEventResult logEvents(String user, String lastModified, String queryContinue, int limit) throws IOException;
 
@@ -103,4 +127,8 @@ public interface MediaWikiApi {
     interface ProgressListener {
         void onProgress(long transferred, long total);
     }
+
+    interface ChunkListener {
+        void onChunkUploaded(long offset, String filekey);
+    }
 }
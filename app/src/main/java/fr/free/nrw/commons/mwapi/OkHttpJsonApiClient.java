@@ -30,8 +30,7 @@ import fr.free.nrw.commons.campaigns.CampaignResponseDTO;
 import fr.free.nrw.commons.kvstore.JsonKvStore;
 import fr.free.nrw.commons.location.LatLng;
 import fr.free.nrw.commons.nearby.Place;
-import fr.free.nrw.commons.nearby.model.NearbyResponse;
-import fr.free.nrw.commons.nearby.model.NearbyResultItem;
+import fr.free.nrw.commons.nearby.model.NearbyResultReader;
 import fr.free.nrw.commons.upload.FileUtils;
 import fr.free.nrw.commons.utils.CommonsDateUtil;
 import fr.free.nrw.commons.utils.ConfigUtils;
@@ -178,7 +177,16 @@ public class OkHttpJsonApiClient {
         });
     }
 
-    public Observable<List<Place>> getNearbyPlaces(LatLng cur, String lang, double radius) throws IOException {
+    /**
+     * Runs the nearby SPARQL query and emits each place as soon as its binding has been read from
+     * the response body, without buffering the whole response
+     *
+     * @param cur    center of the search circle
+     * @param lang   user's language
+     * @param radius radius of the search circle in kilometers
+     * @return places in the order they appear in the response
+     */
+    public Observable<Place> getNearbyPlaces(LatLng cur, String lang, double radius) throws IOException {
         String wikidataQuery = FileUtils.readFromResource("/queries/nearby_query.rq");
         String query = wikidataQuery
                 .replace("${RAD}", String.format(Locale.ROOT, "%.2f", radius))
@@ -196,22 +204,19 @@ public class OkHttpJsonApiClient {
                 .url(urlBuilder.build())
                 .build();
 
-        return Observable.fromCallable(() -> {
+        return Observable.create(emitter -> {
             Response response = okHttpClient.newCall(request).execute();
-            if (response != null && response.body() != null && response.isSuccessful()) {
-                String json = response.body().string();
-                if (json == null) {
-                    return new ArrayList<>();
-                }
-                NearbyResponse nearbyResponse = gson.fromJson(json, NearbyResponse.class);
-                List<NearbyResultItem> bindings = nearbyResponse.getResults().getBindings();
-                List<Place> places = new ArrayList<>();
-                for (NearbyResultItem item : bindings) {
-                    places.add(Place.from(item));
+            if (response.body() != null && response.isSuccessful()) {
+                try (NearbyResultReader reader = new NearbyResultReader(response.body().charStream())) {
+                    Place place;
+                    while (!emitter.isDisposed() && (place = reader.nextPlace()) != null) {
+                        emitter.onNext(place);
+                    }
                 }
-                return places;
+            } else {
+                response.close();
             }
-            return new ArrayList<>();
+            emitter.onComplete();
         });
     }
 
@@ -0,0 +1,121 @@
+package fr.free.nrw.commons.mwapi;
+
+import androidx.annotation.Nullable;
+
+import org.apache.http.client.CookieStore;
+import org.apache.http.cookie.Cookie;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Date;
+import java.util.Iterator;
+
+import okhttp3.HttpUrl;
+import okhttp3.Interceptor;
+import okhttp3.MediaType;
+import okhttp3.MultipartBody;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import okhttp3.logging.HttpLoggingInterceptor;
+import timber.log.Timber;
+
+/**
+ * Sends uploads through the OkHttp client of the app, so that they reuse its pooled connections,
+ * with the session cookies of the Apache client the rest of the API calls go through.
+ */
+class OkHttpUploadClient {
+    private static final MediaType OCTET_STREAM = MediaType.parse("application/octet-stream");
+
+    private final OkHttpClient okHttpClient;
+    private final HttpUrl apiUrl;
+    private final String userAgent;
+    private final CookieStore cookieStore;
+
+    OkHttpUploadClient(OkHttpClient okHttpClient, String apiUrl, String userAgent, CookieStore cookieStore) {
+        // Shares the connection pool and dispatcher of the app client, without its cache, and
+        // without body logging which would read every file twice
+        OkHttpClient.Builder builder = okHttpClient.newBuilder().cache(null);
+        Iterator<Interceptor> interceptors = builder.interceptors().iterator();
+        while (interceptors.hasNext()) {
+            if (interceptors.next() instanceof HttpLoggingInterceptor) {
+                interceptors.remove();
+            }
+        }
+        this.okHttpClient = builder.build();
+        this.apiUrl = HttpUrl.get(apiUrl);
+        this.userAgent = userAgent;
+        this.cookieStore = cookieStore;
+    }
+
+    /**
+     * Uploads a chunk of a file to the stash
+     * @param filename name of the file in the stash
+     * @param file file the chunk is read from
+     * @param filesize size of the whole file
+     * @param offset position of the chunk in the file
+     * @param chunkLength size of the chunk
+     * @param filekey key of the stashed file the chunk is appended to, null for the first chunk
+     * @param token edit token
+     * @param progressListener notified of the bytes of the chunk transferred
+     */
+    CustomApiResult uploadChunkToStash(String filename, File file, long filesize, long offset, long chunkLength,
+                                       @Nullable String filekey, String token,
+                                       MediaWikiApi.ProgressListener progressListener) throws IOException {
+        Timber.d("Uploading chunk of file %s at offset %d", filename, offset);
+        MultipartBody.Builder body = new MultipartBody.Builder()
+                .setType(MultipartBody.FORM)
+                .addFormDataPart("format", "xml")
+                .addFormDataPart("action", "upload")
+                .addFormDataPart("stash", "1")
+                .addFormDataPart("token", token)
+                .addFormDataPart("ignorewarnings", "1")
+                .addFormDataPart("filename", filename)
+                .addFormDataPart("filesize", String.valueOf(filesize))
+                .addFormDataPart("offset", String.valueOf(offset));
+        // The first chunk creates the stashed file, the next ones are appended to it
+        if (filekey != null) {
+            body.addFormDataPart("filekey", filekey);
+        }
+        body.addFormDataPart("chunk", filename,
+                new FileRegionRequestBody(file, offset, chunkLength, OCTET_STREAM, progressListener));
+
+        Request.Builder request = new Request.Builder()
+                .url(apiUrl)
+                .header("User-Agent", userAgent)
+                .post(body.build());
+        String cookies = getCookieHeader();
+        if (!cookies.isEmpty()) {
+            request.header("Cookie", cookies);
+        }
+
+        try (Response response = okHttpClient.newCall(request.build()).execute()) {
+            ResponseBody responseBody = response.body();
+            if (!response.isSuccessful() || responseBody == null) {
+                throw new IOException("Upload failed with HTTP status " + response.code());
+            }
+            return CustomApiResult.fromInputStream("uploadChunkToStash", responseBody.byteStream());
+        }
+    }
+
+    /**
+     * Returns the cookies of the Apache client which apply to the API host, as a Cookie header
+     */
+    private String getCookieHeader() {
+        StringBuilder header = new StringBuilder();
+        Date now = new Date();
+        for (Cookie cookie : cookieStore.getCookies()) {
+            String domain = cookie.getDomain();
+            if (cookie.isExpired(now) || (domain != null && !apiUrl.host().endsWith(
+                    domain.startsWith(".") ? domain.substring(1) : domain))) {
+                continue;
+            }
+            if (header.length() > 0) {
+                header.append("; ");
+            }
+            header.append(cookie.getName()).append('=').append(cookie.getValue());
+        }
+        return header.toString();
+    }
+}
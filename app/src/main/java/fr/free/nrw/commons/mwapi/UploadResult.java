@@ -10,6 +10,7 @@ public class UploadResult {
     private Date dateUploaded;
     private String imageUrl;
     private String canonicalFilename;
+    private String sha1;
 
     /**
      * Minimal constructor
@@ -28,12 +29,14 @@ public class UploadResult {
      * @param dateUploaded Uploaded date
      * @param canonicalFilename Uploaded file name
      * @param imageUrl Uploaded image file name
+     * @param sha1 SHA1 of the uploaded file
      */
-    UploadResult(String resultStatus, Date dateUploaded, String canonicalFilename, String imageUrl) {
+    UploadResult(String resultStatus, Date dateUploaded, String canonicalFilename, String imageUrl, String sha1) {
         this.resultStatus = resultStatus;
         this.dateUploaded = dateUploaded;
         this.canonicalFilename = canonicalFilename;
         this.imageUrl = imageUrl;
+        this.sha1 = sha1;
     }
 
     @NotNull
@@ -72,6 +75,14 @@ public class UploadResult {
         return canonicalFilename;
     }
 
+    /**
+     * Gets SHA1 of the uploaded file
+     * @return SHA1 as 40 hex characters
+     */
+    public String getSha1() {
+        return sha1;
+    }
+
     /**
      * Gets upload error code
      * @return Error code
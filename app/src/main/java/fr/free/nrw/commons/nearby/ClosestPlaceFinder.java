@@ -0,0 +1,56 @@
+package fr.free.nrw.commons.nearby;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Locale;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+import androidx.annotation.Nullable;
+import fr.free.nrw.commons.location.LatLng;
+import timber.log.Timber;
+
+/**
+ * Finds the place needing pictures closest to the user, for the nearby card of the contributions
+ * screen. It is answered by a nearest neighbour query on the places fetched during the session,
+ * and only searches Wikidata once the user has left the areas already queried. Can be called from
+ * any thread, and leaves the state of the Nearby screen untouched.
+ */
+@Singleton
+public class ClosestPlaceFinder {
+    private static final double MAX_DISTANCE = 5.0; // in kilometers
+
+    private final NearbyPlaces nearbyPlaces;
+    private final NearbyPlaceIndex placeIndex;
+
+    @Inject
+    public ClosestPlaceFinder(NearbyPlaces nearbyPlaces, NearbyPlaceIndex placeIndex) {
+        this.nearbyPlaces = nearbyPlaces;
+        this.placeIndex = placeIndex;
+    }
+
+    /**
+     * Returns the place closest to a location
+     * @param latLng location of the user
+     * @return the closest place within 5 kilometers, or null if there is none
+     * @throws IOException if the location is outside the known areas and the query fails
+     */
+    @Nullable
+    public Place findClosestPlace(LatLng latLng) throws IOException {
+        String lang = Locale.getDefault().getLanguage();
+        double coveredRadius = Math.min(placeIndex.getCoveredRadius(latLng, lang), MAX_DISTANCE);
+        if (coveredRadius > 0) {
+            Place closestPlace = placeIndex.getClosestPlace(latLng, lang, coveredRadius);
+            // A place further than the covered radius could have an unknown place closer to the user
+            if (closestPlace != null || coveredRadius >= MAX_DISTANCE) {
+                return closestPlace;
+            }
+        }
+
+        Timber.d("Location is outside the known nearby areas, searching for the closest place");
+        NearbyPlaces.SearchResult searchResult = nearbyPlaces.radiusExpander(latLng, lang, true);
+        List<Place> closestPlaces = new NearbyResultSet(searchResult.places, latLng).getClosestPlaces(1);
+        return closestPlaces.isEmpty() ? null : closestPlaces.get(0);
+    }
+}
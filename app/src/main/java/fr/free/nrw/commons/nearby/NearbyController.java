@@ -1,39 +1,36 @@
 package fr.free.nrw.commons.nearby;
 
 import android.content.Context;
-import android.content.res.Resources;
-import android.graphics.Bitmap;
-import androidx.vectordrawable.graphics.drawable.VectorDrawableCompat;
 
-import com.mapbox.mapboxsdk.annotations.IconFactory;
+import com.mapbox.mapboxsdk.annotations.Icon;
 
 import java.io.IOException;
 import java.util.ArrayList;
-import java.util.Collections;
-import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Locale;
-import java.util.Map;
+import java.util.Set;
 
 import javax.inject.Inject;
 
-import fr.free.nrw.commons.R;
+import androidx.annotation.Nullable;
+
 import fr.free.nrw.commons.location.LatLng;
-import fr.free.nrw.commons.utils.UiUtils;
 import timber.log.Timber;
 
 import static fr.free.nrw.commons.utils.LengthUtils.computeDistanceBetween;
-import static fr.free.nrw.commons.utils.LengthUtils.formatDistanceBetween;
 
 public class NearbyController {
     private static final int MAX_RESULTS = 1000;
     private final NearbyPlaces nearbyPlaces;
+    private final NearbyPlaceIndex placeIndex;
     public static double searchedRadius = 10.0; //in kilometers
     public static LatLng currentLocation;
 
     @Inject
-    public NearbyController(NearbyPlaces nearbyPlaces) {
+    public NearbyController(NearbyPlaces nearbyPlaces, NearbyPlaceIndex placeIndex) {
         this.nearbyPlaces = nearbyPlaces;
+        this.placeIndex = placeIndex;
     }
 
 
@@ -47,6 +44,22 @@ public class NearbyController {
      * and boundary coordinates of current Place List
      */
     public NearbyPlacesInfo loadAttractionsFromLocation(LatLng curLatLng, LatLng latLangToSearchAround, boolean returnClosestResult, boolean checkingAroundCurrentLocation) throws IOException {
+        return loadAttractionsFromLocation(curLatLng, latLangToSearchAround, returnClosestResult, checkingAroundCurrentLocation, null);
+    }
+
+    /**
+     * Prepares Place list to make their distance information update later, handing places to a
+     * listener as soon as they have been read so that they can be shown before the search ends.
+     *
+     * @param curLatLng current location for user
+     * @param latLangToSearchAround the location user wants to search around
+     * @param returnClosestResult if this search is done to find closest result or all results
+     * @param placeListener notified once of each place read, from a background thread
+     * @return NearbyPlacesInfo a variable holds Place list without distance information
+     * and boundary coordinates of current Place List
+     */
+    public NearbyPlacesInfo loadAttractionsFromLocation(LatLng curLatLng, LatLng latLangToSearchAround, boolean returnClosestResult, boolean checkingAroundCurrentLocation,
+                                                        @Nullable NearbyPlaces.PlaceListener placeListener) throws IOException {
 
         Timber.d("Loading attractions near %s", latLangToSearchAround);
         NearbyPlacesInfo nearbyPlacesInfo = new NearbyPlacesInfo();
@@ -55,47 +68,34 @@ public class NearbyController {
             Timber.d("Loading attractions nearby, but curLatLng is null");
             return null;
         }
-        List<Place> places = nearbyPlaces.radiusExpander(latLangToSearchAround, Locale.getDefault().getLanguage(), returnClosestResult);
+        String lang = Locale.getDefault().getLanguage();
+        NearbyPlaces.SearchResult searchResult = nearbyPlaces.radiusExpander(latLangToSearchAround, lang, returnClosestResult, placeListener);
+        List<Place> places = searchResult.places;
 
         if (null != places && places.size() > 0) {
-            LatLng[] boundaryCoordinates = {places.get(0).location,   // south
-                    places.get(0).location, // north
-                    places.get(0).location, // west
-                    places.get(0).location};// east, init with a random location
-
-
+            // Distances are computed in one pass over primitive arrays
+            NearbyResultSet resultSet = new NearbyResultSet(places, curLatLng);
+            // The session index knows the boundary from the extremes of its branches
+            LatLng[] boundaryCoordinates = placeIndex.getBoundaryCoordinates(latLangToSearchAround,
+                    lang, searchResult.radius);
+            if (boundaryCoordinates == null) {
+                boundaryCoordinates = resultSet.getBoundaryCoordinates();
+            }
+            if (boundaryCoordinates == null) {
+                Timber.d("None of the nearby places has a location");
+                return null;
+            }
             if (curLatLng != null) {
                 Timber.d("Sorting places by distance...");
-                final Map<Place, Double> distances = new HashMap<>();
-                for (Place place : places) {
-                    distances.put(place, computeDistanceBetween(place.location, curLatLng));
-                    // Find boundaries with basic find max approach
-                    if (place.location.getLatitude() < boundaryCoordinates[0].getLatitude()) {
-                        boundaryCoordinates[0] = place.location;
-                    }
-                    if (place.location.getLatitude() > boundaryCoordinates[1].getLatitude()) {
-                        boundaryCoordinates[1] = place.location;
-                    }
-                    if (place.location.getLongitude() < boundaryCoordinates[2].getLongitude()) {
-                        boundaryCoordinates[2] = place.location;
-                    }
-                    if (place.location.getLongitude() > boundaryCoordinates[3].getLongitude()) {
-                        boundaryCoordinates[3] = place.location;
-                    }
-                }
-                Collections.sort(places,
-                        (lhs, rhs) -> {
-                            double lhsDistance = distances.get(lhs);
-                            double rhsDistance = distances.get(rhs);
-                            return (int) (lhsDistance - rhsDistance);
-                        }
-                );
+                places = resultSet.getClosestPlaces(returnClosestResult ? 1 : MAX_RESULTS);
+            } else {
+                places = resultSet.getPlaces(MAX_RESULTS);
             }
             nearbyPlacesInfo.placeList = places;
             nearbyPlacesInfo.boundaryCoordinates = boundaryCoordinates;
             if (!returnClosestResult && checkingAroundCurrentLocation) {
                 // Do not update searched radius, if controller is used for nearby card notification
-                searchedRadius = nearbyPlaces.radius;
+                searchedRadius = searchResult.radius;
                 currentLocation = curLatLng;
             }
             return nearbyPlacesInfo;
@@ -116,9 +116,11 @@ public class NearbyController {
             LatLng curLatLng,
             List<Place> placeList) {
         placeList = placeList.subList(0, Math.min(placeList.size(), MAX_RESULTS));
-        for (Place place : placeList) {
-            String distance = formatDistanceBetween(curLatLng, place.location);
-            place.setDistance(distance);
+        if (curLatLng != null) {
+            // Distance strings are formatted when the rows are bound
+            for (Place place : placeList) {
+                place.setDistanceInMeters(computeDistanceBetween(curLatLng, place.location));
+            }
         }
         return placeList;
     }
@@ -135,6 +137,24 @@ public class NearbyController {
             List<Place> placeList,
             Context context,
             List<Place> bookmarkplacelist) {
+        return loadAttractionsFromLocationToBaseMarkerOptions(curLatLng, placeList,
+                new NearbyMarkerIcons(context), bookmarkplacelist);
+    }
+
+    /**
+     * Loads attractions from location for map view, we need to return BaseMarkerOption data type.
+     * All markers of the same kind share one icon.
+     *
+     * @param curLatLng users current location
+     * @param placeList list of nearby places in Place data type
+     * @param markerIcons shared marker icons
+     * @return BaseMarkerOptions list that holds nearby places
+     */
+    public static List<NearbyBaseMarker> loadAttractionsFromLocationToBaseMarkerOptions(
+            LatLng curLatLng,
+            List<Place> placeList,
+            NearbyMarkerIcons markerIcons,
+            List<Place> bookmarkplacelist) {
         List<NearbyBaseMarker> baseMarkerOptions = new ArrayList<>();
 
         if (placeList == null) {
@@ -143,67 +163,66 @@ public class NearbyController {
 
         placeList = placeList.subList(0, Math.min(placeList.size(), MAX_RESULTS));
 
-        VectorDrawableCompat vectorDrawable = null;
-        try {
-            vectorDrawable = VectorDrawableCompat.create(
-                    context.getResources(), R.drawable.ic_custom_bookmark_marker, context.getTheme()
-            );
-        } catch (Resources.NotFoundException e) {
-            // ignore when running tests.
-        }
-        if (vectorDrawable != null) {
-            Bitmap icon = UiUtils.getBitmap(vectorDrawable);
-
+        // Icons are only created when there are markers to use them
+        Set<String> bookmarkedIds = new HashSet<>();
+        Icon bookmarkIcon = bookmarkplacelist.isEmpty() ? null : markerIcons.getPlaceIcon(true);
+        if (bookmarkIcon != null) {
             for (Place place : bookmarkplacelist) {
-
-                String distance = formatDistanceBetween(curLatLng, place.location);
-                place.setDistance(distance);
-
-                NearbyBaseMarker nearbyBaseMarker = new NearbyBaseMarker();
-                nearbyBaseMarker.title(place.name);
-                nearbyBaseMarker.position(
-                        new com.mapbox.mapboxsdk.geometry.LatLng(
-                                place.location.getLatitude(),
-                                place.location.getLongitude()));
-                nearbyBaseMarker.place(place);
-                nearbyBaseMarker.icon(IconFactory.getInstance(context)
-                        .fromBitmap(icon));
-                placeList.remove(place);
-
-                baseMarkerOptions.add(nearbyBaseMarker);
+                baseMarkerOptions.add(createBaseMarker(curLatLng, place, bookmarkIcon));
+                bookmarkedIds.add(NearbyMarkerReconciler.getMarkerId(place));
             }
         }
 
-        vectorDrawable = null;
-        try {
-            vectorDrawable = VectorDrawableCompat.create(
-                    context.getResources(), R.drawable.ic_custom_map_marker, context.getTheme()
-            );
-        } catch (Resources.NotFoundException e) {
-            // ignore when running tests.
+        Icon placeIcon = null;
+        for (Place place : placeList) {
+            if (bookmarkedIds.contains(NearbyMarkerReconciler.getMarkerId(place))) {
+                continue;
+            }
+            if (placeIcon == null) {
+                placeIcon = markerIcons.getPlaceIcon(false);
+            }
+            baseMarkerOptions.add(createBaseMarker(curLatLng, place, placeIcon));
         }
-        if (vectorDrawable != null) {
-            Bitmap icon = UiUtils.getBitmap(vectorDrawable);
 
-            for (Place place : placeList) {
-                String distance = formatDistanceBetween(curLatLng, place.location);
-                place.setDistance(distance);
-
-                NearbyBaseMarker nearbyBaseMarker = new NearbyBaseMarker();
-                nearbyBaseMarker.title(place.name);
-                nearbyBaseMarker.position(
-                        new com.mapbox.mapboxsdk.geometry.LatLng(
-                                place.location.getLatitude(),
-                                place.location.getLongitude()));
-                nearbyBaseMarker.place(place);
-                nearbyBaseMarker.icon(IconFactory.getInstance(context)
-                        .fromBitmap(icon));
-
-                baseMarkerOptions.add(nearbyBaseMarker);
+        return baseMarkerOptions;
+    }
+
+    /**
+     * Adds the markers of places which don't have one yet
+     * @param markers markers to add to
+     * @param markerIds ids of the markers, kept along with them
+     * @param newMarkers markers to add, skipped if a marker of their place is already there
+     */
+    public static void addDistinctMarkers(List<NearbyBaseMarker> markers, Set<String> markerIds,
+                                          List<NearbyBaseMarker> newMarkers) {
+        for (NearbyBaseMarker marker : newMarkers) {
+            if (markerIds.add(NearbyMarkerReconciler.getMarkerId(marker.getPlace()))) {
+                markers.add(marker);
             }
         }
+    }
+
+    /**
+     * Creates the marker options of a place
+     * @param curLatLng users current location
+     * @param place place of the marker
+     * @param icon shared icon of the marker
+     * @return marker options
+     */
+    static NearbyBaseMarker createBaseMarker(LatLng curLatLng, Place place, Icon icon) {
+        if (curLatLng != null) {
+            place.setDistanceInMeters(computeDistanceBetween(curLatLng, place.location));
+        }
 
-        return baseMarkerOptions;
+        NearbyBaseMarker nearbyBaseMarker = new NearbyBaseMarker();
+        nearbyBaseMarker.title(place.name);
+        nearbyBaseMarker.position(
+                new com.mapbox.mapboxsdk.geometry.LatLng(
+                        place.location.getLatitude(),
+                        place.location.getLongitude()));
+        nearbyBaseMarker.place(place);
+        nearbyBaseMarker.icon(icon);
+        return nearbyBaseMarker;
     }
 
     /**
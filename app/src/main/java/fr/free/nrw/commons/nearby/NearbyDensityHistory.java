@@ -0,0 +1,68 @@
+package fr.free.nrw.commons.nearby;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+import fr.free.nrw.commons.kvstore.JsonKvStore;
+import fr.free.nrw.commons.location.LatLng;
+import fr.free.nrw.commons.utils.GeohashUtils;
+
+/**
+ * Remembers how many places needing pictures were found per square kilometer in each region, so
+ * that the next nearby search in the same region can start with a well sized radius.
+ */
+@Singleton
+public class NearbyDensityHistory {
+    private static final String KEY_PREFIX = "nearby_density_";
+    private static final int REGION_PRECISION = 3; // regions of about 156km x 156km
+    private static final double SMOOTHING_FACTOR = 0.5;
+    private static final double RADIUS_SAFETY_FACTOR = 1.3;
+
+    private final JsonKvStore defaultKvStore;
+
+    @Inject
+    public NearbyDensityHistory(@Named("default_preferences") JsonKvStore defaultKvStore) {
+        this.defaultKvStore = defaultKvStore;
+    }
+
+    /**
+     * Guesses the radius needed to find the given number of places around a location
+     * @param latLng search location
+     * @param minResults number of places wanted
+     * @param minRadius smallest radius to return, in kilometers
+     * @param maxRadius largest radius to return, in kilometers
+     * @return radius in kilometers, or -1 if there is no history for this region
+     */
+    public double guessRadius(LatLng latLng, int minResults, double minRadius, double maxRadius) {
+        Double density = defaultKvStore.getJson(getKey(latLng), Double.class);
+        if (density == null) {
+            return -1;
+        }
+        if (density <= 0) {
+            return maxRadius;
+        }
+        double radius = Math.sqrt(minResults / (Math.PI * density)) * RADIUS_SAFETY_FACTOR;
+        return Math.max(minRadius, Math.min(maxRadius, radius));
+    }
+
+    /**
+     * Records the outcome of a search, blending it with the previous density of the region
+     * @param latLng search location
+     * @param resultCount number of places found
+     * @param radius radius of the search in kilometers
+     */
+    public void record(LatLng latLng, int resultCount, double radius) {
+        String key = getKey(latLng);
+        double density = resultCount / (Math.PI * radius * radius);
+        Double previousDensity = defaultKvStore.getJson(key, Double.class);
+        if (previousDensity != null) {
+            density = SMOOTHING_FACTOR * density + (1 - SMOOTHING_FACTOR) * previousDensity;
+        }
+        defaultKvStore.putJson(key, density);
+    }
+
+    private static String getKey(LatLng latLng) {
+        return KEY_PREFIX + GeohashUtils.encode(latLng, REGION_PRECISION);
+    }
+}
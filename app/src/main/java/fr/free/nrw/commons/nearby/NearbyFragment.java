@@ -15,9 +15,10 @@ import android.widget.ProgressBar;
 
 import com.google.android.material.bottomsheet.BottomSheetBehavior;
 import com.google.android.material.snackbar.Snackbar;
-import com.google.gson.Gson;
 
 import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
 
 import javax.inject.Inject;
 
@@ -41,7 +42,10 @@ import fr.free.nrw.commons.utils.ViewUtil;
 import fr.free.nrw.commons.wikidata.WikidataEditListener;
 import io.reactivex.Observable;
 import io.reactivex.android.schedulers.AndroidSchedulers;
+import io.reactivex.disposables.Disposable;
 import io.reactivex.schedulers.Schedulers;
+import io.reactivex.subjects.PublishSubject;
+import io.reactivex.subjects.Subject;
 import timber.log.Timber;
 
 import static fr.free.nrw.commons.contributions.MainActivity.CONTRIBUTIONS_TAB_POSITION;
@@ -74,13 +78,25 @@ public class NearbyFragment extends CommonsDaggerSupportFragment
     NearbyController nearbyController;
     @Inject
     WikidataEditListener wikidataEditListener;
-    @Inject Gson gson;
+    @Inject
+    NearbyTileCache nearbyTileCache;
+    @Inject
+    NearbyPlaceIndex nearbyPlaceIndex;
+    @Inject
+    NearbyRegionPacks nearbyRegionPacks;
+    @Inject
+    NearbyPrefetcher nearbyPrefetcher;
+    @Inject
+    NearbyStateStore nearbyStateStore;
+
+    private static final double OFFLINE_AREA_RADIUS = 20.0; // in kilometers
+    private static final long PLACE_PREVIEW_INTERVAL_MS = 250;
 
     public NearbyMapFragment nearbyMapFragment;
     private NearbyListFragment nearbyListFragment;
     private static final String TAG_RETAINED_MAP_FRAGMENT = NearbyMapFragment.class.getSimpleName();
     private static final String TAG_RETAINED_LIST_FRAGMENT = NearbyListFragment.class.getSimpleName();
-    private Bundle bundle;
+    private Bundle bundle; // Holds the id of the nearby state snapshot shown by map and list fragments
     private BottomSheetBehavior bottomSheetBehavior; // Behavior for list bottom sheet
     private BottomSheetBehavior bottomSheetBehaviorForDetails; // Behavior for details bottom sheet
 
@@ -139,6 +155,31 @@ public class NearbyFragment extends CommonsDaggerSupportFragment
         }
     }
 
+    /**
+     * Saves the places around the center of the map, or the current location, for offline use
+     */
+    public void saveOfflineAreaMenuItemClicked() {
+        LatLng center = nearbyMapFragment != null ? nearbyMapFragment.getCameraTarget() : null;
+        if (center == null) {
+            center = curLatLng;
+        }
+        if (center == null) {
+            ViewUtil.showShortToast(getActivity(), R.string.nearby_location_not_available);
+            return;
+        }
+        LatLng areaCenter = center;
+        compositeDisposable.add(Observable.fromCallable(() -> nearbyRegionPacks
+                .download(areaCenter, Locale.getDefault().getLanguage(), OFFLINE_AREA_RADIUS))
+                .subscribeOn(Schedulers.io())
+                .observeOn(AndroidSchedulers.mainThread())
+                .subscribe(count -> ViewUtil.showLongToast(getActivity(),
+                        getString(R.string.nearby_offline_area_saved, count)),
+                        throwable -> {
+                            Timber.e(throwable, "Could not save offline area");
+                            showErrorMessage(getString(R.string.nearby_offline_area_failed));
+                        }));
+    }
+
     /**
      * Resume fragments if they exists
      */
@@ -235,6 +276,9 @@ public class NearbyFragment extends CommonsDaggerSupportFragment
 
     @Override
     public void onWikidataEditSuccessful() {
+        // Edited item does not need a picture anymore, cached tiles would still list it
+        nearbyTileCache.invalidate();
+        nearbyPlaceIndex.clear();
         // Do not refresh nearby map if we are checking other areas with search this area button
         if (nearbyMapFragment != null && !nearbyMapFragment.searchThisAreaModeOn) {
             refreshView(MAP_UPDATED);
@@ -291,25 +335,34 @@ public class NearbyFragment extends CommonsDaggerSupportFragment
             progressBar.setVisibility(View.VISIBLE);
 
             //TODO: This hack inserts curLatLng before populatePlaces is called (see #1440). Ideally a proper fix should be found
-            String gsonCurLatLng = gson.toJson(curLatLng);
-            bundle.clear();
-            bundle.putString("CurLatLng", gsonCurLatLng);
+            putSnapshotId(nearbyStateStore.setCurLatLng(curLatLng));
 
+            // Places are drawn as soon as they are read, and replaced once the search is done
+            Subject<Place> placesRead = PublishSubject.<Place>create().toSerialized();
+            Disposable placePreview = placesRead
+                    .buffer(PLACE_PREVIEW_INTERVAL_MS, TimeUnit.MILLISECONDS)
+                    .filter(places -> !places.isEmpty())
+                    .observeOn(AndroidSchedulers.mainThread())
+                    .subscribe(this::previewPlaces, Timber::e);
+            compositeDisposable.add(placePreview);
             compositeDisposable.add(Observable.fromCallable(() -> nearbyController
-                    .loadAttractionsFromLocation(curLatLng, curLatLng, false, true))
+                    .loadAttractionsFromLocation(curLatLng, curLatLng, false, true, placesRead::onNext))
                     .subscribeOn(Schedulers.io())
                     .observeOn(AndroidSchedulers.mainThread())
+                    .doFinally(() -> compositeDisposable.remove(placePreview))
                     .subscribe(this::populatePlaces,
                             throwable -> {
                                 Timber.d(throwable);
+                                if (nearbyMapFragment != null) {
+                                    nearbyMapFragment.clearPreviewMarkers();
+                                }
                                 showErrorMessage(getString(R.string.error_fetching_nearby_places));
                                 progressBar.setVisibility(View.GONE);
                             }));
 
         } else if (locationChangeType
                 .equals(LOCATION_SLIGHTLY_CHANGED) && nearbyMapFragment != null) {
-            String gsonCurLatLng = gson.toJson(curLatLng);
-            bundle.putString("CurLatLng", gsonCurLatLng);
+            putSnapshotId(nearbyStateStore.setCurLatLng(curLatLng));
             updateMapFragment(false,true, null, null);
         }
 
@@ -368,24 +421,29 @@ public class NearbyFragment extends CommonsDaggerSupportFragment
     }
 
     /**
-     * Turns nearby place lists and boundary coordinates into gson and update map and list fragments
-     * accordingly
+     * Shows places read by a search which is still running
+     * @param places places read since the last preview
+     */
+    private void previewPlaces(List<Place> places) {
+        if (nearbyMapFragment != null) {
+            nearbyMapFragment.previewNearbyMarkers(places);
+        }
+    }
+
+    /**
+     * Stores nearby place lists and boundary coordinates in the nearby state store and update map
+     * and list fragments accordingly
      * @param nearbyPlacesInfo a variable holds both nearby place list and boundary coordinates
      */
     private void populatePlaces(NearbyController.NearbyPlacesInfo nearbyPlacesInfo) {
         Timber.d("Populating nearby places");
         List<Place> placeList = nearbyPlacesInfo.placeList;
-        LatLng[] boundaryCoordinates = nearbyPlacesInfo.boundaryCoordinates;
-        String gsonPlaceList = gson.toJson(placeList);
-        String gsonCurLatLng = gson.toJson(curLatLng);
-        String gsonBoundaryCoordinates = gson.toJson(boundaryCoordinates);
 
         if (placeList.size() == 0) {
             ViewUtil.showShortSnackbar(view.findViewById(R.id.container), R.string.no_nearby);
         }
 
-        bundle.putString("PlaceList", gsonPlaceList);
-        bundle.putString("BoundaryCoord", gsonBoundaryCoordinates);
+        putSnapshotId(nearbyStateStore.setPlaces(curLatLng, placeList, nearbyPlacesInfo.boundaryCoordinates));
 
         // First time to init fragments
         if (nearbyMapFragment == null) {
@@ -403,6 +461,15 @@ public class NearbyFragment extends CommonsDaggerSupportFragment
         }
     }
 
+    /**
+     * Passes the id of a nearby state snapshot to the map and list fragments. Only the id is kept
+     * in their arguments, the places themselves stay in the nearby state store.
+     * @param snapshot snapshot to show
+     */
+    private void putSnapshotId(NearbyStateStore.Snapshot snapshot) {
+        bundle.putLong(NearbyStateStore.ARG_SNAPSHOT_ID, snapshot.id);
+    }
+
     /**
      * Lock nearby view updates while updating map or list. Because we don't want new update calls
      * when we already updating for old location update.
@@ -656,6 +723,7 @@ public class NearbyFragment extends CommonsDaggerSupportFragment
      */
     private void performNearbyOperations() {
         locationManager.addLocationListener(this);
+        locationManager.addMovementListener(nearbyPrefetcher);
         registerLocationUpdates();
         lockNearbyView = false;
         addNetworkBroadcastReceiver();
@@ -672,6 +740,7 @@ public class NearbyFragment extends CommonsDaggerSupportFragment
     public void onDestroy() {
         super.onDestroy();
         wikidataEditListener.setAuthenticationStateListener(null);
+        nearbyStateStore.clear();
     }
 
     @Override
@@ -701,6 +770,7 @@ public class NearbyFragment extends CommonsDaggerSupportFragment
 
         if (locationManager != null) {
             locationManager.removeLocationListener(this);
+            locationManager.removeMovementListener(nearbyPrefetcher);
             locationManager.unregisterLocationManager();
         }
     }
@@ -6,11 +6,9 @@ import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
 
-import com.google.gson.Gson;
-import com.google.gson.reflect.TypeToken;
 import com.pedrogomez.renderers.RVRendererAdapter;
 
-import java.lang.reflect.Type;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 
@@ -21,22 +19,16 @@ import androidx.recyclerview.widget.RecyclerView;
 import fr.free.nrw.commons.R;
 import fr.free.nrw.commons.contributions.ContributionController;
 import fr.free.nrw.commons.di.CommonsDaggerSupportFragment;
-import fr.free.nrw.commons.location.LatLng;
 import timber.log.Timber;
 
 public class NearbyListFragment extends CommonsDaggerSupportFragment {
     private Bundle bundleForUpdates; // Carry information from activity about changed nearby places and current location
 
-    private static final Type LIST_TYPE = new TypeToken<List<Place>>() {
-    }.getType();
-    private static final Type CUR_LAT_LNG_TYPE = new TypeToken<LatLng>() {
-    }.getType();
-
     private NearbyAdapterFactory adapterFactory;
     private RecyclerView recyclerView;
 
     @Inject ContributionController controller;
-    @Inject Gson gson;
+    @Inject NearbyStateStore nearbyStateStore;
 
     @Override
     public void onCreate(Bundle savedInstanceState) {
@@ -95,25 +87,23 @@ public class NearbyListFragment extends CommonsDaggerSupportFragment {
 
     /**
      * When user moved too much, we need to update nearby list too. This operation is made by passing
-     * a bundle from NearbyFragment to NearbyListFragment and NearbyMapFragment. This method extracts
-     * place list from bundle to a list variable.
+     * a bundle from NearbyFragment to NearbyListFragment and NearbyMapFragment. This method looks up
+     * the nearby state snapshot whose id the bundle holds.
      * @param bundle Bundle passed from NearbyFragment on users significant moving
      * @return List of new nearby places
      */
     private List<Place> getPlaceListFromBundle(Bundle bundle) {
-        List<Place> placeList = Collections.emptyList();
-
-        if (bundle != null) {
-            String gsonPlaceList = bundle.getString("PlaceList", "[]");
-            placeList = gson.fromJson(gsonPlaceList, LIST_TYPE);
-
-            String gsonLatLng = bundle.getString("CurLatLng");
-            LatLng curLatLng = gson.fromJson(gsonLatLng, CUR_LAT_LNG_TYPE);
-
-            placeList = NearbyController.loadAttractionsFromLocationToPlaces(curLatLng, placeList);
+        if (bundle == null || !bundle.containsKey(NearbyStateStore.ARG_SNAPSHOT_ID)) {
+            return Collections.emptyList();
         }
-
-        return placeList;
+        NearbyStateStore.Snapshot snapshot = nearbyStateStore
+                .getSnapshot(bundle.getLong(NearbyStateStore.ARG_SNAPSHOT_ID));
+        if (snapshot == null) {
+            return Collections.emptyList();
+        }
+        // The adapter changes its list in place, so it gets its own copy
+        return new ArrayList<>(NearbyController
+                .loadAttractionsFromLocationToPlaces(snapshot.curLatLng, snapshot.placeList));
     }
 
     /**
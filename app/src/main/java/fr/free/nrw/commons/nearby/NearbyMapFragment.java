@@ -4,7 +4,6 @@ import android.animation.ObjectAnimator;
 import android.animation.TypeEvaluator;
 import android.animation.ValueAnimator;
 import android.content.Intent;
-import android.graphics.Bitmap;
 import android.graphics.Color;
 import android.net.Uri;
 import android.os.Bundle;
@@ -24,9 +23,8 @@ import android.widget.Toast;
 
 import com.google.android.material.bottomsheet.BottomSheetBehavior;
 import com.google.android.material.floatingactionbutton.FloatingActionButton;
-import com.google.gson.Gson;
-import com.google.gson.reflect.TypeToken;
 import com.mapbox.mapboxsdk.Mapbox;
+import com.mapbox.mapboxsdk.annotations.BaseMarkerOptions;
 import com.mapbox.mapboxsdk.annotations.Icon;
 import com.mapbox.mapboxsdk.annotations.IconFactory;
 import com.mapbox.mapboxsdk.annotations.Marker;
@@ -36,14 +34,19 @@ import com.mapbox.mapboxsdk.camera.CameraPosition;
 import com.mapbox.mapboxsdk.camera.CameraUpdateFactory;
 import com.mapbox.mapboxsdk.constants.Style;
 import com.mapbox.mapboxsdk.geometry.LatLng;
+import com.mapbox.mapboxsdk.geometry.LatLngBounds;
 import com.mapbox.mapboxsdk.maps.MapView;
 import com.mapbox.mapboxsdk.maps.MapboxMap;
 import com.mapbox.mapboxsdk.maps.MapboxMapOptions;
 import com.mapbox.mapboxsdk.plugins.localization.LocalizationPlugin;
 
-import java.lang.reflect.Type;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import javax.inject.Inject;
 import javax.inject.Named;
@@ -52,7 +55,6 @@ import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.appcompat.app.AlertDialog;
 import androidx.coordinatorlayout.widget.CoordinatorLayout;
-import androidx.vectordrawable.graphics.drawable.VectorDrawableCompat;
 import butterknife.BindView;
 import butterknife.ButterKnife;
 import dagger.android.support.DaggerFragment;
@@ -60,16 +62,14 @@ import fr.free.nrw.commons.CommonsApplication;
 import fr.free.nrw.commons.R;
 import fr.free.nrw.commons.Utils;
 import fr.free.nrw.commons.auth.LoginActivity;
-import fr.free.nrw.commons.bookmarks.locations.BookmarkLocationsDao;
+import fr.free.nrw.commons.bookmarks.locations.BookmarkLocationsIndex;
 import fr.free.nrw.commons.contributions.ContributionController;
 import fr.free.nrw.commons.kvstore.JsonKvStore;
 import fr.free.nrw.commons.utils.LocationUtils;
 import fr.free.nrw.commons.utils.NetworkUtils;
-import fr.free.nrw.commons.utils.UiUtils;
 import fr.free.nrw.commons.utils.ViewUtil;
 import timber.log.Timber;
 
-import static fr.free.nrw.commons.utils.LengthUtils.formatDistanceBetween;
 import static fr.free.nrw.commons.wikidata.WikidataConstants.PLACE_OBJECT;
 
 public class NearbyMapFragment extends DaggerFragment {
@@ -79,6 +79,15 @@ public class NearbyMapFragment extends DaggerFragment {
     private fr.free.nrw.commons.location.LatLng curLatLng;
     public fr.free.nrw.commons.location.LatLng[] boundaryCoordinates;
     private List<Place> bookmarkedplaces;
+    private NearbyMarkerIcons markerIcons;
+    private List<NearbyBaseMarker> displayedBaseMarkers = new ArrayList<>();
+    private final Map<String, NearbyBaseMarker> displayedBaseMarkersById = new HashMap<>();
+    // Markers of the places read so far by a search which is still running
+    private final List<NearbyBaseMarker> previewBaseMarkers = new ArrayList<>();
+    private final Set<String> previewMarkerIds = new HashSet<>();
+    private NearbyMarkerClusterer markerClusterer;
+    private NearbyMarkerReconciler markerReconciler;
+    private Icon currentLocationIcon;
 
     @BindView(R.id.bottom_sheet)
     View bottomSheetList;
@@ -176,11 +185,12 @@ public class NearbyMapFragment extends DaggerFragment {
     private boolean searchedAroundCurrentLocation = true;
 
     @Inject @Named("default_preferences") JsonKvStore applicationKvStore;
-    @Inject BookmarkLocationsDao bookmarkLocationDao;
+    @Inject BookmarkLocationsIndex bookmarkLocationsIndex;
     @Inject ContributionController controller;
-    @Inject Gson gson;
+    @Inject NearbyStateStore nearbyStateStore;
 
     private static final double ZOOM_LEVEL = 14f;
+    private static final double CLUSTER_CLICK_ZOOM_STEP = 2;
 
     public NearbyMapFragment() {
     }
@@ -190,24 +200,16 @@ public class NearbyMapFragment extends DaggerFragment {
         super.onCreate(savedInstanceState);
         Timber.d("Nearby map fragment created");
 
-        Bundle bundle = this.getArguments();
-        if (bundle != null) {
-            String gsonPlaceList = bundle.getString("PlaceList");
-            String gsonLatLng = bundle.getString("CurLatLng");
-            Type listType = new TypeToken<List<Place>>() {
-            }.getType();
-            String gsonBoundaryCoordinates = bundle.getString("BoundaryCoord");
-            List<Place> placeList = gson.fromJson(gsonPlaceList, listType);
-            Type curLatLngType = new TypeToken<fr.free.nrw.commons.location.LatLng>() {
-            }.getType();
-            Type gsonBoundaryCoordinatesType = new TypeToken<fr.free.nrw.commons.location.LatLng[]>() {}.getType();
-            curLatLng = gson.fromJson(gsonLatLng, curLatLngType);
+        markerIcons = new NearbyMarkerIcons(getActivity().getApplicationContext());
+        NearbyStateStore.Snapshot snapshot = getSnapshot(this.getArguments());
+        if (snapshot != null) {
+            curLatLng = snapshot.curLatLng;
             baseMarkerOptions = NearbyController
                     .loadAttractionsFromLocationToBaseMarkerOptions(curLatLng,
-                            placeList,
-                            getActivity(),
-                            bookmarkLocationDao.getAllBookmarksLocations());
-            boundaryCoordinates = gson.fromJson(gsonBoundaryCoordinates, gsonBoundaryCoordinatesType);
+                            snapshot.placeList,
+                            markerIcons,
+                            bookmarkLocationsIndex.getBookmarks());
+            boundaryCoordinates = snapshot.boundaryCoordinates;
         }
         if (curLatLng != null) {
             Mapbox.getInstance(getActivity(),
@@ -261,10 +263,9 @@ public class NearbyMapFragment extends DaggerFragment {
     public void updateMapSlightly() {
         Timber.d("updateMapSlightly called, bundle is:"+ bundleForUpdates);
         if (mapboxMap != null) {
-            if (bundleForUpdates != null) {
-                String gsonLatLng = bundleForUpdates.getString("CurLatLng");
-                Type curLatLngType = new TypeToken<fr.free.nrw.commons.location.LatLng>() {}.getType();
-                curLatLng = gson.fromJson(gsonLatLng, curLatLngType);
+            NearbyStateStore.Snapshot snapshot = getSnapshot(bundleForUpdates);
+            if (snapshot != null) {
+                curLatLng = snapshot.curLatLng;
             }
             updateMapToTrackPosition();
         }
@@ -279,23 +280,17 @@ public class NearbyMapFragment extends DaggerFragment {
     public void updateMapSignificantlyForCurrentLocation() {
         Timber.d("updateMapSignificantlyForCurrentLocation called, bundle is:"+ bundleForUpdates);
         if (mapboxMap != null) {
-            if (bundleForUpdates != null) {
-                String gsonPlaceList = bundleForUpdates.getString("PlaceList");
-                String gsonLatLng = bundleForUpdates.getString("CurLatLng");
-                String gsonBoundaryCoordinates = bundleForUpdates.getString("BoundaryCoord");
-                Type listType = new TypeToken<List<Place>>() {}.getType();
-                List<Place> placeList = gson.fromJson(gsonPlaceList, listType);
-                Type curLatLngType = new TypeToken<fr.free.nrw.commons.location.LatLng>() {}.getType();
-                Type gsonBoundaryCoordinatesType = new TypeToken<fr.free.nrw.commons.location.LatLng[]>() {}.getType();
-                curLatLng = gson.fromJson(gsonLatLng, curLatLngType);
+            NearbyStateStore.Snapshot snapshot = getSnapshot(bundleForUpdates);
+            if (snapshot != null) {
+                curLatLng = snapshot.curLatLng;
                 baseMarkerOptions = NearbyController
                         .loadAttractionsFromLocationToBaseMarkerOptions(curLatLng,
-                                placeList,
-                                getActivity(),
-                                bookmarkLocationDao.getAllBookmarksLocations());
-                boundaryCoordinates = gson.fromJson(gsonBoundaryCoordinates, gsonBoundaryCoordinatesType);
+                                snapshot.placeList,
+                                markerIcons,
+                                bookmarkLocationsIndex.getBookmarks());
+                boundaryCoordinates = snapshot.boundaryCoordinates;
             }
-            mapboxMap.clear();
+            forgetPreviewMarkers();
             addCurrentLocationMarker(mapboxMap);
             updateMapToTrackPosition();
             // We are trying to find nearby places around our current location, thus custom parameter is nullified
@@ -327,7 +322,7 @@ public class NearbyMapFragment extends DaggerFragment {
 
     /**
      * Will be used for map vew updates for custom locations (ie. with search this area method).
-     * Clears the map, adds current location marker, adds nearby markers around custom location,
+     * Replaces nearby markers with the ones around custom location, moves current location marker,
      * re-enables map gestures which was locked during place load, remove progress bar.
      * @param customLatLng custom location that we will search around
      * @param placeList places around of custom location
@@ -336,9 +331,9 @@ public class NearbyMapFragment extends DaggerFragment {
         List<NearbyBaseMarker> customBaseMarkerOptions =  NearbyController
                 .loadAttractionsFromLocationToBaseMarkerOptions(curLatLng, // Curlatlang will be used to calculate distances
                         placeList,
-                        getActivity(),
-                        bookmarkLocationDao.getAllBookmarksLocations());
-        mapboxMap.clear();
+                        markerIcons,
+                        bookmarkLocationsIndex.getBookmarks());
+        forgetPreviewMarkers();
         // We are trying to find nearby places around our custom searched area, thus custom parameter is nonnull
         addNearbyMarkersToMapBoxMap(customBaseMarkerOptions);
         addCurrentLocationMarker(mapboxMap);
@@ -346,6 +341,42 @@ public class NearbyMapFragment extends DaggerFragment {
         mapboxMap.getUiSettings().setAllGesturesEnabled(true);
         searchThisAreaButtonProgressBar.setVisibility(View.GONE);
     }
+    /**
+     * Adds places read by a search which is still running to the markers shown, so that the first
+     * ones are drawn before the search ends. They are replaced by the result of the search.
+     * @param placeList places read since the last call
+     */
+    public void previewNearbyMarkers(List<Place> placeList) {
+        if (mapboxMap == null || curLatLng == null) {
+            return;
+        }
+        // Bookmarks come with every batch, they are only added with the first one
+        NearbyController.addDistinctMarkers(previewBaseMarkers, previewMarkerIds, NearbyController
+                .loadAttractionsFromLocationToBaseMarkerOptions(curLatLng,
+                        placeList,
+                        markerIcons,
+                        bookmarkLocationsIndex.getBookmarks()));
+        setNearbyMarkers(new ArrayList<>(previewBaseMarkers));
+    }
+
+    /**
+     * Removes the places read by a search which failed, showing the markers of the last search again
+     */
+    public void clearPreviewMarkers() {
+        if (previewBaseMarkers.isEmpty()) {
+            return;
+        }
+        forgetPreviewMarkers();
+        if (mapboxMap != null) {
+            setNearbyMarkers(baseMarkerOptions != null ? baseMarkerOptions : new ArrayList<>());
+        }
+    }
+
+    private void forgetPreviewMarkers() {
+        previewBaseMarkers.clear();
+        previewMarkerIds.clear();
+    }
+
     // Only update current position marker and camera view
 
     private void updateMapToTrackPosition() {
@@ -556,6 +587,9 @@ public class NearbyMapFragment extends DaggerFragment {
                 }
 
                 NearbyMapFragment.this.mapboxMap = mapboxMap;
+                markerReconciler = new NearbyMarkerReconciler(mapboxMap);
+                currentLocationMarker = null;
+                currentLocationPolygonOptions = null;
                 addMapMovementListeners();
                 updateMapSignificantlyForCurrentLocation();
             });
@@ -568,6 +602,8 @@ public class NearbyMapFragment extends DaggerFragment {
      */
     private void addMapMovementListeners() {
 
+        mapboxMap.addOnCameraIdleListener(this::renderNearbyMarkers);
+
         mapboxMap.addOnCameraMoveListener(() -> {
 
             if (NearbyController.currentLocation != null) { // If our nearby markers are calculated at least once
@@ -651,12 +687,17 @@ public class NearbyMapFragment extends DaggerFragment {
         if (currentLocationMarker != null) {
             currentLocationMarker.remove(); // Remove previous marker, we are not Hansel and Gretel
         }
+        if (currentLocationPolygonOptions != null) {
+            mapboxMap.removePolygon(currentLocationPolygonOptions.getPolygon());
+        }
 
-        Icon icon = IconFactory.getInstance(getContext()).fromResource(R.drawable.current_location_marker);
+        if (currentLocationIcon == null) {
+            currentLocationIcon = IconFactory.getInstance(getContext()).fromResource(R.drawable.current_location_marker);
+        }
 
         MarkerOptions currentLocationMarkerOptions = new MarkerOptions()
                 .position(new LatLng(curLatLng.getLatitude(), curLatLng.getLongitude()));
-        currentLocationMarkerOptions.setIcon(icon); // Set custom icon
+        currentLocationMarkerOptions.setIcon(currentLocationIcon); // Set custom icon
 
         currentLocationMarker = mapboxMap.addMarker(currentLocationMarkerOptions);
 
@@ -695,14 +736,8 @@ public class NearbyMapFragment extends DaggerFragment {
             // If we try to display nearby markers around our curret location
             baseMarkerOptions = this.baseMarkerOptions;
         }
-        mapboxMap.addMarkers(baseMarkerOptions);
-        mapboxMap.setOnInfoWindowCloseListener(marker -> {
-            if (marker == selected) {
-                bottomSheetDetailsBehavior.setState(BottomSheetBehavior.STATE_HIDDEN);
-            }
-        });
+        setNearbyMarkers(baseMarkerOptions);
         mapView.getMapAsync(mapboxMap -> {
-            mapboxMap.addMarkers(baseMarkerOptions);
             fabRecenter.setVisibility(View.VISIBLE);
             mapboxMap.setOnInfoWindowCloseListener(marker -> {
                 if (marker == selected) {
@@ -720,6 +755,11 @@ public class NearbyMapFragment extends DaggerFragment {
                     bottomSheetListBehavior.setState(BottomSheetBehavior.STATE_HIDDEN);
                     bottomSheetDetailsBehavior.setState(BottomSheetBehavior.STATE_COLLAPSED);
 
+                } else if (marker != currentLocationMarker) {
+                    // Cluster badge, zoom in until its places are split apart
+                    mapboxMap.animateCamera(CameraUpdateFactory.newLatLngZoom(marker.getPosition(),
+                            mapboxMap.getCameraPosition().zoom + CLUSTER_CLICK_ZOOM_STEP));
+                    return true;
                 }
                 return false;
             });
@@ -727,6 +767,76 @@ public class NearbyMapFragment extends DaggerFragment {
         });
     }
 
+    /**
+     * Replaces the nearby markers shown on the map. Markers are clustered for the current zoom
+     * level and drawn again whenever the camera settles.
+     * @param baseMarkerOptions markers of the nearby places
+     */
+    private void setNearbyMarkers(List<NearbyBaseMarker> baseMarkerOptions) {
+        displayedBaseMarkers = baseMarkerOptions;
+        displayedBaseMarkersById.clear();
+        double[] latitudes = new double[baseMarkerOptions.size()];
+        double[] longitudes = new double[baseMarkerOptions.size()];
+        for (int i = 0; i < baseMarkerOptions.size(); i++) {
+            NearbyBaseMarker baseMarker = baseMarkerOptions.get(i);
+            displayedBaseMarkersById.put(NearbyMarkerReconciler.getMarkerId(baseMarker.getPlace()), baseMarker);
+            latitudes[i] = baseMarker.getPosition().getLatitude();
+            longitudes[i] = baseMarker.getPosition().getLongitude();
+        }
+        markerClusterer = new NearbyMarkerClusterer(latitudes, longitudes);
+        renderNearbyMarkers();
+    }
+
+    /**
+     * Draws the nearby markers around the visible region, clustered for the current zoom level.
+     * Markers within a cluster are replaced by a badge showing how many places it holds. Only the
+     * markers which differ from the ones already on the map are added, removed or restyled.
+     */
+    private void renderNearbyMarkers() {
+        if (mapboxMap == null || markerClusterer == null || markerReconciler == null) {
+            return;
+        }
+        double zoom = mapboxMap.getCameraPosition().zoom;
+        int clusterZoom = Math.min(NearbyMarkerClusterer.MAX_CLUSTER_ZOOM, (int) Math.floor(zoom));
+
+        // Markers are drawn for the visible region and half of it again on each side
+        LatLngBounds visibleBounds = mapboxMap.getProjection().getVisibleRegion().latLngBounds;
+        double latPadding = visibleBounds.getLatitudeSpan() / 2;
+        double lonPadding = visibleBounds.getLongitudeSpan() / 2;
+        double south = visibleBounds.getLatSouth() - latPadding;
+        double north = visibleBounds.getLatNorth() + latPadding;
+        double west = visibleBounds.getLonWest() - lonPadding;
+        double east = visibleBounds.getLonEast() + lonPadding;
+        boolean filterLongitude = west < east && east - west < 360;
+
+        Map<String, BaseMarkerOptions> markerOptions = new LinkedHashMap<>();
+        for (int[] group : markerClusterer.getGroups(zoom)) {
+            NearbyBaseMarker firstMarker = displayedBaseMarkers.get(group[0]);
+            double latitude = 0;
+            double longitude = 0;
+            for (int index : group) {
+                LatLng position = displayedBaseMarkers.get(index).getPosition();
+                latitude += position.getLatitude();
+                longitude += position.getLongitude();
+            }
+            latitude /= group.length;
+            longitude /= group.length;
+            if (latitude < south || latitude > north
+                    || (filterLongitude && (longitude < west || longitude > east))) {
+                continue;
+            }
+
+            String id = NearbyMarkerReconciler.getMarkerId(firstMarker.getPlace());
+            if (group.length == 1) {
+                markerOptions.put(id, firstMarker);
+            } else {
+                markerOptions.put("cluster:" + clusterZoom + ":" + id, new MarkerOptions()
+                        .position(new LatLng(latitude, longitude))
+                        .icon(markerIcons.getClusterIcon(NearbyMarkerClusterer.getClusterLabel(group.length))));
+            }
+        }
+        markerReconciler.reconcile(markerOptions);
+    }
 
     /**
      * Creates a series of points that create a circle on the map.
@@ -858,7 +968,7 @@ public class NearbyMapFragment extends DaggerFragment {
         updateBookmarkButtonImage(this.place);
 
         bookmarkButton.setOnClickListener(view -> {
-            boolean isBookmarked = bookmarkLocationDao.updateBookmarkLocation(this.place);
+            boolean isBookmarked = bookmarkLocationsIndex.updateBookmarkLocation(this.place);
             updateBookmarkButtonImage(this.place);
             updateMarker(isBookmarked, this.place);
         });
@@ -877,7 +987,7 @@ public class NearbyMapFragment extends DaggerFragment {
         icon.setImageResource(this.place.getLabel().getIcon());
 
         title.setText(this.place.name);
-        distance.setText(this.place.distance);
+        distance.setText(this.place.getDistance());
         description.setText(this.place.getLongDescription());
 
         fabCamera.setOnClickListener(view -> {
@@ -899,7 +1009,7 @@ public class NearbyMapFragment extends DaggerFragment {
 
     public void updateBookmarkButtonImage(Place place) {
         int bookmarkIcon;
-        if (bookmarkLocationDao.findBookmarkLocation(place)) {
+        if (bookmarkLocationsIndex.isBookmarked(place)) {
             bookmarkIcon = R.drawable.ic_round_star_filled_24px;
         } else {
             bookmarkIcon = R.drawable.ic_round_star_border_24px;
@@ -957,6 +1067,31 @@ public class NearbyMapFragment extends DaggerFragment {
         }
     }
 
+    /**
+     * Returns the location the map is centered on
+     * @return the camera target, or null if the map is not ready
+     */
+    @Nullable
+    public fr.free.nrw.commons.location.LatLng getCameraTarget() {
+        if (mapboxMap == null) {
+            return null;
+        }
+        return LocationUtils.mapBoxLatLngToCommonsLatLng(mapboxMap.getCameraPosition().target);
+    }
+
+    /**
+     * Looks up the nearby state snapshot whose id is held by a bundle
+     * @param bundle arguments or update bundle from NearbyFragment
+     * @return the snapshot, or null if there is none or it was lost with the process
+     */
+    @Nullable
+    private NearbyStateStore.Snapshot getSnapshot(@Nullable Bundle bundle) {
+        if (bundle == null || !bundle.containsKey(NearbyStateStore.ARG_SNAPSHOT_ID)) {
+            return null;
+        }
+        return nearbyStateStore.getSnapshot(bundle.getLong(NearbyStateStore.ARG_SNAPSHOT_ID));
+    }
+
     /**
      * This bundle is sent whenever and update for nearby map comes, not for recreation, for updates
      */
@@ -977,7 +1112,7 @@ public class NearbyMapFragment extends DaggerFragment {
         if (mapView != null) {
             mapView.onPause();
         }
-        bookmarkedplaces = bookmarkLocationDao.getAllBookmarksLocations();
+        bookmarkedplaces = bookmarkLocationsIndex.getBookmarks();
         super.onPause();
     }
 
@@ -1000,7 +1135,7 @@ public class NearbyMapFragment extends DaggerFragment {
         transparentView.setAlpha(0);
         if (bookmarkedplaces != null) {
             for (Place place : bookmarkedplaces) {
-                if (!bookmarkLocationDao.findBookmarkLocation(place)) {
+                if (!bookmarkLocationsIndex.isBookmarked(place)) {
                     updateMarker(false, place);
                 }
             }
@@ -1041,40 +1176,22 @@ public class NearbyMapFragment extends DaggerFragment {
     }
 
 
+    /**
+     * Changes the marker icon of a place after it was bookmarked or unbookmarked
+     * @param isBookmarked new bookmark state of the place
+     * @param place place of the marker
+     */
     public void updateMarker(boolean isBookmarked, Place place) {
-
-        VectorDrawableCompat vectorDrawable;
-        if (isBookmarked) {
-            vectorDrawable = VectorDrawableCompat.create(
-                    getContext().getResources(), R.drawable.ic_custom_bookmark_marker, getContext().getTheme()
-            );
+        Icon icon = markerIcons.getPlaceIcon(isBookmarked);
+        String id = NearbyMarkerReconciler.getMarkerId(place);
+        NearbyBaseMarker nearbyBaseMarker = displayedBaseMarkersById.get(id);
+        if (nearbyBaseMarker != null) {
+            // Keeps the new icon when markers are drawn again
+            nearbyBaseMarker.icon(icon);
         }
-        else {
-            vectorDrawable = VectorDrawableCompat.create(
-                    getContext().getResources(), R.drawable.ic_custom_map_marker, getContext().getTheme()
-            );
+        if (markerReconciler != null) {
+            markerReconciler.setIcon(id, icon);
         }
-        for(Marker marker: mapboxMap.getMarkers()){
-            if(marker.getTitle()!=null && marker.getTitle().equals(place.getName())){
-
-                Bitmap icon = UiUtils.getBitmap(vectorDrawable);
-
-                String distance = formatDistanceBetween(curLatLng, place.location);
-                place.setDistance(distance);
-
-                NearbyBaseMarker nearbyBaseMarker = new NearbyBaseMarker();
-                nearbyBaseMarker.title(place.name);
-                nearbyBaseMarker.position(
-                        new com.mapbox.mapboxsdk.geometry.LatLng(
-                                place.location.getLatitude(),
-                                place.location.getLongitude()));
-                nearbyBaseMarker.place(place);
-                nearbyBaseMarker.icon(IconFactory.getInstance(getContext())
-                        .fromBitmap(icon));
-                marker.setIcon(IconFactory.getInstance(getContext()).fromBitmap(icon));
-            }
-        }
-
     }
 
 }
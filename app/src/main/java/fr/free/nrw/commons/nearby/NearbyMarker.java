@@ -3,7 +3,7 @@ package fr.free.nrw.commons.nearby;
 import com.mapbox.mapboxsdk.annotations.Marker;
 
 class NearbyMarker extends Marker {
-    private final Place place;
+    private Place place;
     private NearbyBaseMarker nearbyBaseMarker;
 
     /**
@@ -21,6 +21,15 @@ class NearbyMarker extends Marker {
         return nearbyBaseMarker;
     }
 
+    /**
+     * Points a marker kept on the map at the place of a newer search
+     * @param nearbyBaseMarker options of the newer search for the same place
+     */
+    void setNearbyBaseMarker(NearbyBaseMarker nearbyBaseMarker) {
+        this.nearbyBaseMarker = nearbyBaseMarker;
+        this.place = nearbyBaseMarker.getPlace();
+    }
+
     public Place getPlace() {
         return place;
     }
@@ -0,0 +1,116 @@
+package fr.free.nrw.commons.nearby;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Groups nearby markers which would overlap on screen into clusters, using a grid of fixed size
+ * screen cells per zoom level. Coordinates are projected once, and the grouping of the last zoom
+ * level is kept so that camera moves within the same zoom level cost nothing.
+ */
+public class NearbyMarkerClusterer {
+    /**
+     * From this zoom level on, every marker is shown on its own
+     */
+    public static final int MAX_CLUSTER_ZOOM = 15;
+    private static final int TILE_SIZE = 512; // size of a map tile in pixels at zoom 0
+    private static final int CELL_SIZE = 64; // size of a cluster cell in pixels
+    private static final int INDEX_BITS = 20;
+    private static final int CELL_BITS = 18;
+
+    private final double[] xs;
+    private final double[] ys;
+    private int groupedZoom = -1;
+    private List<int[]> groups;
+
+    /**
+     * @param latitudes latitudes of the markers in degrees
+     * @param longitudes longitudes of the markers in degrees
+     */
+    public NearbyMarkerClusterer(double[] latitudes, double[] longitudes) {
+        if (latitudes.length >= 1 << INDEX_BITS) {
+            throw new IllegalArgumentException("Too many markers to cluster: " + latitudes.length);
+        }
+        xs = new double[latitudes.length];
+        ys = new double[latitudes.length];
+        for (int i = 0; i < latitudes.length; i++) {
+            // Web Mercator projection into [0, 1)
+            xs[i] = (longitudes[i] + 180.0) / 360.0;
+            double sinLatitude = Math.sin(Math.toRadians(Math.max(-85.0, Math.min(85.0, latitudes[i]))));
+            ys[i] = 0.5 - Math.log((1 + sinLatitude) / (1 - sinLatitude)) / (4 * Math.PI);
+        }
+    }
+
+    public int size() {
+        return xs.length;
+    }
+
+    /**
+     * Groups the markers for a zoom level. Markers sharing a grid cell form a group, a group of
+     * one is a marker shown on its own.
+     * @param zoom zoom level of the map camera
+     * @return groups of marker indexes
+     */
+    public List<int[]> getGroups(double zoom) {
+        int zoomLevel = Math.max(0, Math.min(MAX_CLUSTER_ZOOM, (int) Math.floor(zoom)));
+        if (zoomLevel == groupedZoom) {
+            return groups;
+        }
+
+        List<int[]> newGroups = new ArrayList<>();
+        if (zoomLevel >= MAX_CLUSTER_ZOOM) {
+            for (int i = 0; i < xs.length; i++) {
+                newGroups.add(new int[]{i});
+            }
+        } else {
+            double cellsPerWorld = (double) TILE_SIZE * (1 << zoomLevel) / CELL_SIZE;
+            long maxCell = (1L << CELL_BITS) - 1;
+            // Keys hold the cell above the index, so sorting them brings each cell together
+            long[] keys = new long[xs.length];
+            for (int i = 0; i < xs.length; i++) {
+                long cellX = Math.min(maxCell, (long) (xs[i] * cellsPerWorld));
+                long cellY = Math.min(maxCell, (long) (ys[i] * cellsPerWorld));
+                keys[i] = (((cellX << CELL_BITS) | cellY) << INDEX_BITS) | i;
+            }
+            Arrays.sort(keys);
+
+            int start = 0;
+            while (start < keys.length) {
+                long cell = keys[start] >>> INDEX_BITS;
+                int end = start + 1;
+                while (end < keys.length && keys[end] >>> INDEX_BITS == cell) {
+                    end++;
+                }
+                int[] group = new int[end - start];
+                for (int i = start; i < end; i++) {
+                    group[i - start] = (int) (keys[i] & ((1 << INDEX_BITS) - 1));
+                }
+                newGroups.add(group);
+                start = end;
+            }
+        }
+
+        groupedZoom = zoomLevel;
+        groups = newGroups;
+        return groups;
+    }
+
+    /**
+     * Returns the label shown on a cluster badge. Counts are bucketed so that badges can share
+     * their icons.
+     * @param count number of markers in the cluster
+     * @return label of the badge
+     */
+    public static String getClusterLabel(int count) {
+        if (count < 10) {
+            return String.valueOf(count);
+        } else if (count < 50) {
+            return "10+";
+        } else if (count < 100) {
+            return "50+";
+        } else {
+            return "100+";
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package fr.free.nrw.commons.nearby;
+
+import android.content.Context;
+import android.content.res.Resources;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.Rect;
+
+import com.mapbox.mapboxsdk.annotations.Icon;
+import com.mapbox.mapboxsdk.annotations.IconFactory;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import androidx.annotation.DrawableRes;
+import androidx.annotation.Nullable;
+import androidx.core.content.ContextCompat;
+import androidx.vectordrawable.graphics.drawable.VectorDrawableCompat;
+import fr.free.nrw.commons.R;
+import fr.free.nrw.commons.utils.UiUtils;
+
+/**
+ * Holds one shared icon per kind of nearby marker. Every call to IconFactory.fromBitmap registers
+ * a new image on the map, so markers of the same kind must reuse the same icon.
+ */
+public class NearbyMarkerIcons {
+    private static final float CLUSTER_BADGE_SIZE_DP = 40;
+    private static final float CLUSTER_TEXT_SIZE_DP = 14;
+
+    private final Context context;
+    private Icon placeIcon;
+    private Icon bookmarkIcon;
+    private final Map<String, Icon> clusterIcons = new HashMap<>();
+
+    public NearbyMarkerIcons(Context context) {
+        this.context = context;
+    }
+
+    /**
+     * Returns the icon of a place marker
+     * @param isBookmarked true for the icon of a bookmarked place
+     * @return the icon, or null if the drawable is not available (ie. when running tests)
+     */
+    @Nullable
+    public Icon getPlaceIcon(boolean isBookmarked) {
+        if (isBookmarked) {
+            if (bookmarkIcon == null) {
+                bookmarkIcon = createIcon(R.drawable.ic_custom_bookmark_marker);
+            }
+            return bookmarkIcon;
+        }
+        if (placeIcon == null) {
+            placeIcon = createIcon(R.drawable.ic_custom_map_marker);
+        }
+        return placeIcon;
+    }
+
+    /**
+     * Returns the badge icon of a cluster
+     * @param label label of the badge, see NearbyMarkerClusterer.getClusterLabel
+     * @return the icon
+     */
+    public Icon getClusterIcon(String label) {
+        Icon icon = clusterIcons.get(label);
+        if (icon == null) {
+            icon = IconFactory.getInstance(context).fromBitmap(createClusterBadge(label));
+            clusterIcons.put(label, icon);
+        }
+        return icon;
+    }
+
+    @Nullable
+    private Icon createIcon(@DrawableRes int drawable) {
+        VectorDrawableCompat vectorDrawable = null;
+        try {
+            vectorDrawable = VectorDrawableCompat.create(
+                    context.getResources(), drawable, context.getTheme());
+        } catch (Resources.NotFoundException e) {
+            // ignore when running tests.
+        }
+        if (vectorDrawable == null) {
+            return null;
+        }
+        return IconFactory.getInstance(context).fromBitmap(UiUtils.getBitmap(vectorDrawable));
+    }
+
+    private Bitmap createClusterBadge(String label) {
+        int size = Math.round(UiUtils.convertDpToPixel(CLUSTER_BADGE_SIZE_DP, context));
+        Bitmap bitmap = Bitmap.createBitmap(size, size, Bitmap.Config.ARGB_8888);
+        Canvas canvas = new Canvas(bitmap);
+
+        Paint circlePaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+        circlePaint.setColor(ContextCompat.getColor(context, R.color.primaryColor));
+        canvas.drawCircle(size / 2f, size / 2f, size / 2f, circlePaint);
+
+        Paint textPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+        textPaint.setColor(ContextCompat.getColor(context, R.color.primaryTextColor));
+        textPaint.setTextSize(UiUtils.convertDpToPixel(CLUSTER_TEXT_SIZE_DP, context));
+        textPaint.setFakeBoldText(true);
+        textPaint.setTextAlign(Paint.Align.CENTER);
+        Rect textBounds = new Rect();
+        textPaint.getTextBounds(label, 0, label.length(), textBounds);
+        canvas.drawText(label, size / 2f, size / 2f + textBounds.height() / 2f, textPaint);
+        return bitmap;
+    }
+}
@@ -0,0 +1,107 @@
+package fr.free.nrw.commons.nearby;
+
+import android.text.TextUtils;
+
+import com.mapbox.mapboxsdk.annotations.BaseMarkerOptions;
+import com.mapbox.mapboxsdk.annotations.Icon;
+import com.mapbox.mapboxsdk.annotations.Marker;
+import com.mapbox.mapboxsdk.maps.MapboxMap;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Keeps the nearby markers of a map in sync with a desired set of markers keyed by id, ie. the
+ * Wikidata entity id of a place. Only markers which appeared, disappeared, moved or changed are
+ * touched, instead of clearing the map and adding every marker again. Markers which are kept are
+ * pointed at the place of the latest search.
+ */
+public class NearbyMarkerReconciler {
+    private final MapboxMap mapboxMap;
+    private final Map<String, Marker> markersById = new HashMap<>();
+
+    public NearbyMarkerReconciler(MapboxMap mapboxMap) {
+        this.mapboxMap = mapboxMap;
+    }
+
+    /**
+     * Updates the map so that it shows exactly the given markers
+     * @param desiredMarkers marker options by id
+     */
+    public void reconcile(Map<String, ? extends BaseMarkerOptions> desiredMarkers) {
+        List<Marker> removedMarkers = new ArrayList<>();
+        Iterator<Map.Entry<String, Marker>> iterator = markersById.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<String, Marker> entry = iterator.next();
+            BaseMarkerOptions options = desiredMarkers.get(entry.getKey());
+            Marker marker = entry.getValue();
+            if (options == null || !options.getPosition().equals(marker.getPosition())) {
+                removedMarkers.add(marker);
+                iterator.remove();
+            } else {
+                if (options.getIcon() != marker.getIcon()) {
+                    marker.setIcon(options.getIcon());
+                }
+                if (!TextUtils.equals(options.getTitle(), marker.getTitle())) {
+                    marker.setTitle(options.getTitle());
+                }
+                if (marker instanceof NearbyMarker && options instanceof NearbyBaseMarker) {
+                    // The kept marker shows the place of the latest search, ie. its distance
+                    ((NearbyMarker) marker).setNearbyBaseMarker((NearbyBaseMarker) options);
+                }
+            }
+        }
+        if (!removedMarkers.isEmpty()) {
+            mapboxMap.removeAnnotations(removedMarkers);
+        }
+
+        LinkedHashMap<String, BaseMarkerOptions> addedOptions = new LinkedHashMap<>();
+        for (Map.Entry<String, ? extends BaseMarkerOptions> entry : desiredMarkers.entrySet()) {
+            if (!markersById.containsKey(entry.getKey())) {
+                addedOptions.put(entry.getKey(), entry.getValue());
+            }
+        }
+        if (!addedOptions.isEmpty()) {
+            List<Marker> addedMarkers = mapboxMap.addMarkers(new ArrayList<>(addedOptions.values()));
+            int i = 0;
+            for (String id : addedOptions.keySet()) {
+                markersById.put(id, addedMarkers.get(i++));
+            }
+        }
+    }
+
+    /**
+     * Changes the icon of a single marker, if it is on the map
+     * @param id id of the marker
+     * @param icon new icon
+     * @return true if the marker was found
+     */
+    public boolean setIcon(String id, Icon icon) {
+        Marker marker = markersById.get(id);
+        if (marker == null) {
+            return false;
+        }
+        if (marker.getIcon() != icon) {
+            marker.setIcon(icon);
+        }
+        return true;
+    }
+
+    /**
+     * Returns the id of the marker of a place
+     * @param place place of the marker
+     * @return Wikidata entity id, or name and location for places without one
+     */
+    public static String getMarkerId(Place place) {
+        // Called for every place of a search, so the id is read without logging
+        String entityId = place.getEntityId();
+        if (entityId != null) {
+            return entityId;
+        }
+        return place.name + "@" + place.location.getLatitude() + "," + place.location.getLongitude();
+    }
+}
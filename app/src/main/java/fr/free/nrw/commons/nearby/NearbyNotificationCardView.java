@@ -125,7 +125,7 @@ public class NearbyNotificationCardView extends SwipableCardView {
         notificationDistance.setVisibility(VISIBLE);
         notificationIcon.setVisibility(VISIBLE);
         notificationTitle.setText(place.name);
-        notificationDistance.setText(place.distance);
+        notificationDistance.setText(place.getDistance());
 
     }
 
@@ -0,0 +1,458 @@
+package fr.free.nrw.commons.nearby;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+import androidx.annotation.Nullable;
+import fr.free.nrw.commons.location.LatLng;
+
+import static fr.free.nrw.commons.utils.LengthUtils.computeDistanceBetween;
+
+/**
+ * Keeps every nearby place fetched during the session in a KD-tree over primitive arrays, along
+ * with the circles which were fully queried. Searches inside an already queried circle, ie. from
+ * "Search this area", are answered from memory without going to the network.
+ */
+@Singleton
+public class NearbyPlaceIndex {
+    private static final int MAX_PLACES = 50000;
+    private static final int MAX_COVERED_AREAS = 64;
+
+    private String lang;
+    private final List<Place> placeList = new ArrayList<>();
+    private final Map<String, Integer> indexById = new HashMap<>();
+    // Latitude, longitude and radius in meters of each circle queried in full
+    private final List<double[]> coveredAreas = new ArrayList<>();
+    private KdTree tree;
+
+    @Inject
+    public NearbyPlaceIndex() {
+    }
+
+    /**
+     * Adds the result of a query around a location. Places already in the index are replaced by
+     * their newer version.
+     * @param center center of the queried circle
+     * @param lang language of the query
+     * @param radius radius of the queried circle in kilometers
+     * @param places every place found inside the circle
+     */
+    public synchronized void addPlaces(LatLng center, String lang, double radius, List<Place> places) {
+        if (!lang.equals(this.lang) || placeList.size() + places.size() > MAX_PLACES) {
+            clear();
+            this.lang = lang;
+        }
+        for (Place place : places) {
+            if (place.location == null) {
+                continue;
+            }
+            String id = NearbyMarkerReconciler.getMarkerId(place);
+            Integer index = indexById.get(id);
+            if (index == null) {
+                indexById.put(id, placeList.size());
+                placeList.add(place);
+            } else {
+                placeList.set(index, place);
+            }
+        }
+        if (coveredAreas.size() == MAX_COVERED_AREAS) {
+            coveredAreas.remove(0);
+        }
+        coveredAreas.add(new double[]{center.getLatitude(), center.getLongitude(), radius * 1000});
+        tree = null;
+    }
+
+    /**
+     * Returns the radius around a location inside which every place is already known
+     * @param center search location
+     * @param lang language of the search
+     * @return radius in kilometers, 0 if the location is not covered
+     */
+    public synchronized double getCoveredRadius(LatLng center, String lang) {
+        if (!lang.equals(this.lang)) {
+            return 0;
+        }
+        double coveredRadius = 0;
+        for (double[] area : coveredAreas) {
+            double distance = computeDistanceBetween(center.getLatitude(), center.getLongitude(),
+                    area[0], area[1]);
+            coveredRadius = Math.max(coveredRadius, area[2] - distance);
+        }
+        return coveredRadius / 1000;
+    }
+
+    /**
+     * Returns the known places inside a circle
+     * @param center center of the circle
+     * @param lang language of the search
+     * @param radius radius of the circle in kilometers
+     * @return places inside the circle, in no particular order
+     */
+    public synchronized List<Place> getPlaces(LatLng center, String lang, double radius) {
+        if (!lang.equals(this.lang)) {
+            return Collections.emptyList();
+        }
+        return getTree().query(center, radius * 1000).places;
+    }
+
+    /**
+     * Returns the south, north, west and east most known places inside a circle. Whole branches of
+     * the tree inside the circle answer with their own extremes, without visiting their places.
+     * @param center center of the circle
+     * @param lang language of the search
+     * @param radius radius of the circle in kilometers
+     * @return the boundary coordinates, or null if there are no known places inside the circle
+     */
+    @Nullable
+    public synchronized LatLng[] getBoundaryCoordinates(LatLng center, String lang, double radius) {
+        if (!lang.equals(this.lang)) {
+            return null;
+        }
+        return getTree().query(center, radius * 1000).getBoundaryCoordinates();
+    }
+
+    /**
+     * Returns the known place closest to a location, within a maximum distance
+     * @param center search location
+     * @param lang language of the search
+     * @param radius maximum distance in kilometers
+     * @return the closest place, or null if no known place is close enough
+     */
+    @Nullable
+    public synchronized Place getClosestPlace(LatLng center, String lang, double radius) {
+        if (!lang.equals(this.lang)) {
+            return null;
+        }
+        return getTree().findClosest(center, radius * 1000);
+    }
+
+    /**
+     * Forgets every place, ie. after the user added a picture to a Wikidata item
+     */
+    public synchronized void clear() {
+        placeList.clear();
+        indexById.clear();
+        coveredAreas.clear();
+        tree = null;
+    }
+
+    private KdTree getTree() {
+        if (tree == null) {
+            tree = new KdTree(placeList);
+        }
+        return tree;
+    }
+
+    /**
+     * Static KD-tree with coordinates in primitive arrays, ordered so that each node covers a
+     * contiguous range. Nodes are split across the median of their widest dimension.
+     */
+    static class KdTree {
+        private static final int LEAF_SIZE = 16;
+        private static final double EARTH_RADIUS = 6371009.0; // in meters
+
+        private final Place[] places;
+        private final double[] latitudes;
+        private final double[] longitudes;
+
+        // Nodes in preorder: the left child of a node follows it, right is -1 for leaves
+        private final int[] start;
+        private final int[] end;
+        private final int[] right;
+        private final double[] south;
+        private final double[] north;
+        private final double[] west;
+        private final double[] east;
+        // Positions of the south, north, west and east most places of each node
+        private final int[] southMost;
+        private final int[] northMost;
+        private final int[] westMost;
+        private final int[] eastMost;
+        private int nodeCount;
+
+        KdTree(List<Place> placeList) {
+            int size = placeList.size();
+            double[] unorderedLatitudes = new double[size];
+            double[] unorderedLongitudes = new double[size];
+            int[] order = new int[size];
+            for (int i = 0; i < size; i++) {
+                unorderedLatitudes[i] = placeList.get(i).location.getLatitude();
+                unorderedLongitudes[i] = placeList.get(i).location.getLongitude();
+                order[i] = i;
+            }
+
+            // Leaves hold at least LEAF_SIZE / 2 places, except when there is a single one
+            int maxNodes = 2 * (size / (LEAF_SIZE / 2)) + 1;
+            start = new int[maxNodes];
+            end = new int[maxNodes];
+            right = new int[maxNodes];
+            south = new double[maxNodes];
+            north = new double[maxNodes];
+            west = new double[maxNodes];
+            east = new double[maxNodes];
+            southMost = new int[maxNodes];
+            northMost = new int[maxNodes];
+            westMost = new int[maxNodes];
+            eastMost = new int[maxNodes];
+            build(order, unorderedLatitudes, unorderedLongitudes, 0, size);
+
+            places = new Place[size];
+            latitudes = new double[size];
+            longitudes = new double[size];
+            for (int i = 0; i < size; i++) {
+                places[i] = placeList.get(order[i]);
+                latitudes[i] = unorderedLatitudes[order[i]];
+                longitudes[i] = unorderedLongitudes[order[i]];
+            }
+        }
+
+        /**
+         * Finds the places within a distance of a location
+         * @param center center of the circle
+         * @param radius radius of the circle in meters
+         * @return places and boundary of the places inside the circle
+         */
+        Result query(LatLng center, double radius) {
+            Result result = new Result();
+            if (places.length == 0) {
+                return result;
+            }
+            double latitude = center.getLatitude();
+            double longitude = center.getLongitude();
+            double latitudeDelta = Math.toDegrees(radius / EARTH_RADIUS);
+            double querySouth = latitude - latitudeDelta;
+            double queryNorth = latitude + latitudeDelta;
+            double cosLatitude = Math.cos(Math.toRadians(
+                    Math.min(90, Math.max(Math.abs(querySouth), Math.abs(queryNorth)))));
+            double longitudeDelta = cosLatitude > 0 ? latitudeDelta / cosLatitude : 360;
+            // Circles reaching a pole or the antimeridian are only bounded by latitude
+            boolean limitLongitude = queryNorth < 90 && querySouth > -90
+                    && longitude - longitudeDelta >= -180 && longitude + longitudeDelta <= 180;
+            query(0, result, latitude, longitude, radius, querySouth, queryNorth,
+                    limitLongitude ? longitude - longitudeDelta : -180,
+                    limitLongitude ? longitude + longitudeDelta : 180);
+            return result;
+        }
+
+        /**
+         * Finds the place closest to a location
+         * @param center search location
+         * @param maxDistance maximum distance in meters
+         * @return the closest place, or null if none is within the maximum distance
+         */
+        @Nullable
+        Place findClosest(LatLng center, double maxDistance) {
+            if (places.length == 0) {
+                return null;
+            }
+            double[] best = {maxDistance, -1}; // distance and position of the closest place so far
+            findClosest(0, center.getLatitude(), center.getLongitude(), best);
+            return best[1] < 0 ? null : places[(int) best[1]];
+        }
+
+        private void findClosest(int node, double latitude, double longitude, double[] best) {
+            // Distance to the closest point of the node bounds, no place of the node can be closer
+            double boundLatitude = Math.max(south[node], Math.min(north[node], latitude));
+            double boundLongitude = Math.max(west[node], Math.min(east[node], longitude));
+            if (computeDistanceBetween(latitude, longitude, boundLatitude, boundLongitude) > best[0]) {
+                return;
+            }
+            if (right[node] < 0) {
+                for (int i = start[node]; i < end[node]; i++) {
+                    double distance = computeDistanceBetween(latitude, longitude, latitudes[i], longitudes[i]);
+                    if (distance <= best[0]) {
+                        best[0] = distance;
+                        best[1] = i;
+                    }
+                }
+                return;
+            }
+            // Visit the child on the side of the location first, it most likely holds the closest place
+            int left = node + 1;
+            boolean leftFirst = latitude >= south[left] && latitude <= north[left]
+                    && longitude >= west[left] && longitude <= east[left];
+            findClosest(leftFirst ? left : right[node], latitude, longitude, best);
+            findClosest(leftFirst ? right[node] : left, latitude, longitude, best);
+        }
+
+        private void query(int node, Result result, double latitude, double longitude, double radius,
+                           double querySouth, double queryNorth, double queryWest, double queryEast) {
+            if (north[node] < querySouth || south[node] > queryNorth
+                    || east[node] < queryWest || west[node] > queryEast) {
+                return;
+            }
+            if (isInside(node, latitude, longitude, radius)) {
+                for (int i = start[node]; i < end[node]; i++) {
+                    result.places.add(places[i]);
+                }
+                result.addExtremes(southMost[node], northMost[node], westMost[node], eastMost[node]);
+                return;
+            }
+            if (right[node] < 0) {
+                for (int i = start[node]; i < end[node]; i++) {
+                    if (computeDistanceBetween(latitude, longitude, latitudes[i], longitudes[i]) <= radius) {
+                        result.places.add(places[i]);
+                        result.addExtremes(i, i, i, i);
+                    }
+                }
+                return;
+            }
+            query(node + 1, result, latitude, longitude, radius, querySouth, queryNorth, queryWest, queryEast);
+            query(right[node], result, latitude, longitude, radius, querySouth, queryNorth, queryWest, queryEast);
+        }
+
+        /**
+         * Returns true if every corner of the node is inside the circle
+         */
+        private boolean isInside(int node, double latitude, double longitude, double radius) {
+            return computeDistanceBetween(latitude, longitude, south[node], west[node]) <= radius
+                    && computeDistanceBetween(latitude, longitude, south[node], east[node]) <= radius
+                    && computeDistanceBetween(latitude, longitude, north[node], west[node]) <= radius
+                    && computeDistanceBetween(latitude, longitude, north[node], east[node]) <= radius;
+        }
+
+        /**
+         * Builds the node covering order[from, to) and its children
+         * @return id of the node
+         */
+        private int build(int[] order, double[] lats, double[] lons, int from, int to) {
+            int node = nodeCount++;
+            start[node] = from;
+            end[node] = to;
+            right[node] = -1;
+            if (from == to) {
+                return node;
+            }
+
+            int s = from, n = from, w = from, e = from;
+            for (int i = from; i < to; i++) {
+                int place = order[i];
+                if (lats[place] < lats[order[s]]) {
+                    s = i;
+                }
+                if (lats[place] > lats[order[n]]) {
+                    n = i;
+                }
+                if (lons[place] < lons[order[w]]) {
+                    w = i;
+                }
+                if (lons[place] > lons[order[e]]) {
+                    e = i;
+                }
+            }
+            south[node] = lats[order[s]];
+            north[node] = lats[order[n]];
+            west[node] = lons[order[w]];
+            east[node] = lons[order[e]];
+
+            if (to - from > LEAF_SIZE) {
+                int middle = (from + to) >>> 1;
+                boolean splitByLatitude = north[node] - south[node] > east[node] - west[node];
+                select(order, splitByLatitude ? lats : lons, from, to - 1, middle);
+                build(order, lats, lons, from, middle);
+                right[node] = build(order, lats, lons, middle, to);
+                // Positions of the extremes are only known once the children are ordered
+                s = southMost[node + 1];
+                n = northMost[node + 1];
+                w = westMost[node + 1];
+                e = eastMost[node + 1];
+                int r = right[node];
+                if (lats[order[southMost[r]]] < lats[order[s]]) {
+                    s = southMost[r];
+                }
+                if (lats[order[northMost[r]]] > lats[order[n]]) {
+                    n = northMost[r];
+                }
+                if (lons[order[westMost[r]]] < lons[order[w]]) {
+                    w = westMost[r];
+                }
+                if (lons[order[eastMost[r]]] > lons[order[e]]) {
+                    e = eastMost[r];
+                }
+            }
+            southMost[node] = s;
+            northMost[node] = n;
+            westMost[node] = w;
+            eastMost[node] = e;
+            return node;
+        }
+
+        /**
+         * Reorders order[left, right] so that order[k] holds the place with the k-th smallest key,
+         * with smaller keys before it and larger keys after it
+         */
+        private static void select(int[] order, double[] keys, int left, int right, int k) {
+            while (left < right) {
+                double pivot = keys[order[(left + right) >>> 1]];
+                int i = left;
+                int j = right;
+                while (i <= j) {
+                    while (keys[order[i]] < pivot) {
+                        i++;
+                    }
+                    while (keys[order[j]] > pivot) {
+                        j--;
+                    }
+                    if (i <= j) {
+                        int swap = order[i];
+                        order[i] = order[j];
+                        order[j] = swap;
+                        i++;
+                        j--;
+                    }
+                }
+                if (k <= j) {
+                    right = j;
+                } else if (k >= i) {
+                    left = i;
+                } else {
+                    return;
+                }
+            }
+        }
+
+        /**
+         * Places found by a query and the positions of the extreme ones
+         */
+        class Result {
+            final List<Place> places = new ArrayList<>();
+            private int southMost = -1;
+            private int northMost = -1;
+            private int westMost = -1;
+            private int eastMost = -1;
+
+            void addExtremes(int s, int n, int w, int e) {
+                if (southMost < 0 || latitudes[s] < latitudes[southMost]) {
+                    southMost = s;
+                }
+                if (northMost < 0 || latitudes[n] > latitudes[northMost]) {
+                    northMost = n;
+                }
+                if (westMost < 0 || longitudes[w] < longitudes[westMost]) {
+                    westMost = w;
+                }
+                if (eastMost < 0 || longitudes[e] > longitudes[eastMost]) {
+                    eastMost = e;
+                }
+            }
+
+            @Nullable
+            LatLng[] getBoundaryCoordinates() {
+                if (southMost < 0) {
+                    return null;
+                }
+                return new LatLng[]{
+                        KdTree.this.places[southMost].location,
+                        KdTree.this.places[northMost].location,
+                        KdTree.this.places[westMost].location,
+                        KdTree.this.places[eastMost].location};
+            }
+        }
+    }
+}
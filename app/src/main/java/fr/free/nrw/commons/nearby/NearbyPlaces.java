@@ -2,14 +2,19 @@ package fr.free.nrw.commons.nearby;
 
 import java.io.IOException;
 import java.io.InterruptedIOException;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 import javax.inject.Inject;
 import javax.inject.Singleton;
 
+import androidx.annotation.Nullable;
 import fr.free.nrw.commons.location.LatLng;
-import fr.free.nrw.commons.mwapi.OkHttpJsonApiClient;
+import io.reactivex.Observable;
+import io.reactivex.schedulers.Schedulers;
 import timber.log.Timber;
 
 /**
@@ -18,35 +23,69 @@ import timber.log.Timber;
 @Singleton
 public class NearbyPlaces {
 
-    private static final double INITIAL_RADIUS = 1.0; // in kilometers
+    static final double INITIAL_RADIUS = 1.0; // in kilometers
+    static final int MIN_RESULTS = 40;
+    static final double MAX_RADIUS = 300.0; // in kilometers
     private static final double RADIUS_MULTIPLIER = 1.618;
-    public double radius = INITIAL_RADIUS;
+    // Radii tried in parallel when there is no density history for the region
+    private static final double[] SPECULATIVE_RADII = {1.0, 4.236, 17.944}; // in kilometers
 
-    private final OkHttpJsonApiClient okHttpJsonApiClient;
+    private final NearbyTileCache nearbyTileCache;
+    private final NearbyDensityHistory densityHistory;
+    private final NearbyPlaceIndex placeIndex;
+    private final NearbyRegionPacks regionPacks;
 
     /**
      * Reads Wikidata query to check nearby wikidata items which needs picture, with a circular
      * search. As a point is center of a circle with a radius will be set later.
-     * @param okHttpJsonApiClient
+     * @param nearbyTileCache cache of nearby places, which queries Wikidata for missing tiles
+     * @param densityHistory densities of earlier searches, used to guess the starting radius
+     * @param placeIndex places already fetched during the session
+     * @param regionPacks offline region packs, used when Wikidata cannot be reached
      */
     @Inject
-    public NearbyPlaces(OkHttpJsonApiClient okHttpJsonApiClient) {
-        this.okHttpJsonApiClient = okHttpJsonApiClient;
+    public NearbyPlaces(NearbyTileCache nearbyTileCache, NearbyDensityHistory densityHistory,
+                        NearbyPlaceIndex placeIndex, NearbyRegionPacks regionPacks) {
+        this.nearbyTileCache = nearbyTileCache;
+        this.densityHistory = densityHistory;
+        this.placeIndex = placeIndex;
+        this.regionPacks = regionPacks;
     }
 
     /**
-     * Expands the radius as needed for the Wikidata query
+     * Expands the radius as needed for the Wikidata query. The starting radius is guessed from the
+     * density of earlier searches in the region, or else a few radii are queried in parallel, so
+     * that the sequential expansion is rarely needed. Keeps no state of its own, so searches may
+     * run concurrently.
      * @param curLatLng coordinates of search location
      * @param lang user's language
      * @param returnClosestResult true if only the nearest point is desired
-     * @return list of places obtained
+     * @return places obtained and the radius they were searched in
      * @throws IOException if query fails
      */
-    List<Place> radiusExpander(LatLng curLatLng, String lang, boolean returnClosestResult) throws IOException {
+    SearchResult radiusExpander(LatLng curLatLng, String lang, boolean returnClosestResult) throws IOException {
+        return radiusExpander(curLatLng, lang, returnClosestResult, null);
+    }
+
+    /**
+     * Expands the radius as needed for the Wikidata query, like
+     * {@link #radiusExpander(LatLng, String, boolean)}, handing places to a listener as soon as
+     * they have been read
+     * @param curLatLng coordinates of search location
+     * @param lang user's language
+     * @param returnClosestResult true if only the nearest point is desired
+     * @param placeListener notified once of each place read while searching, possibly from
+     *                      several threads, whether or not it ends up in the result
+     * @return places obtained and the radius they were searched in
+     * @throws IOException if query fails
+     */
+    SearchResult radiusExpander(LatLng curLatLng, String lang, boolean returnClosestResult,
+                                @Nullable PlaceListener placeListener) throws IOException {
 
         int minResults;
         double maxRadius;
 
+        double radius = INITIAL_RADIUS;
         List<Place> places = Collections.emptyList();
 
         // If returnClosestResult is true, then this means that we are trying to get closest point
@@ -54,44 +93,171 @@ public class NearbyPlaces {
         if (returnClosestResult) {
             minResults = 1; // Return closest nearby place
             maxRadius = 5;  // Return places only in 5 km area
-            radius = INITIAL_RADIUS; // refresh radius again, otherwise increased radius is grater than MAX_RADIUS, thus returns null
         } else {
-            minResults = 40;
-            maxRadius = 300.0; // in kilometers
-            radius = INITIAL_RADIUS;
+            minResults = MIN_RESULTS;
+            maxRadius = MAX_RADIUS;
         }
 
-            // Increase the radius gradually to find a satisfactory number of nearby places
-            while (radius <= maxRadius) {
-                try {
-                    places = getFromWikidataQuery(curLatLng, lang, radius);
-                } catch (InterruptedIOException e) {
-                    Timber.e(e, "exception in fetching nearby places");
-                    return places;
-                }
+        // Searches inside an area queried earlier in the session need no network at all
+        double coveredRadius = Math.min(placeIndex.getCoveredRadius(curLatLng, lang), maxRadius);
+        if (coveredRadius > 0) {
+            List<Place> coveredPlaces = placeIndex.getPlaces(curLatLng, lang, coveredRadius);
+            if (coveredPlaces.size() >= minResults || coveredRadius >= maxRadius) {
+                Timber.d("%d results from the session index at radius: %f", coveredPlaces.size(), coveredRadius);
+                return new SearchResult(coveredRadius, coveredPlaces);
+            }
+        }
+
+        // Overlapping queries read the same places again, they are handed over only once
+        PlaceListener distinctListener = placeListener == null ? null : new DistinctPlaceListener(placeListener);
+        double guessedRadius = densityHistory.guessRadius(curLatLng, minResults, INITIAL_RADIUS, maxRadius);
+        try {
+            if (guessedRadius > 0) {
+                radius = guessedRadius;
+                places = getFromWikidataQuery(curLatLng, lang, radius, distinctListener);
+            } else {
+                SearchResult result = speculativeSearch(curLatLng, lang, minResults, maxRadius, distinctListener);
+                radius = result.radius;
+                places = result.places;
+            }
+            Timber.d("%d results at starting radius: %f", places.size(), radius);
+
+            // Increase the radius gradually if the starting radius was too small
+            while (places.size() < minResults && radius < maxRadius) {
+                radius = Math.min(radius * RADIUS_MULTIPLIER, maxRadius);
+                places = getFromWikidataQuery(curLatLng, lang, radius, distinctListener);
                 Timber.d("%d results at radius: %f", places.size(), radius);
-                if (places.size() >= minResults) {
-                    break;
-                } else {
-                    radius *= RADIUS_MULTIPLIER;
-                }
             }
-        // make sure we will be able to send at least one request next time
-        if (radius > maxRadius) {
-            radius = maxRadius;
+        } catch (InterruptedIOException e) {
+            Timber.e(e, "exception in fetching nearby places");
+            SearchResult offlineResult = getFromRegionPacks(curLatLng, lang, maxRadius);
+            return offlineResult != null ? offlineResult : new SearchResult(radius, places);
+        } catch (IOException e) {
+            SearchResult offlineResult = getFromRegionPacks(curLatLng, lang, maxRadius);
+            if (offlineResult == null) {
+                throw e;
+            }
+            Timber.e(e, "exception in fetching nearby places, using offline region pack");
+            return offlineResult;
+        }
+
+        if (!returnClosestResult) {
+            // Searches for the closest result stop at one place, which says little about density
+            densityHistory.record(curLatLng, places.size(), radius);
+        }
+        return new SearchResult(radius, places);
+    }
+
+    /**
+     * Queries a few increasing radii in parallel and keeps the smallest one which has enough
+     * results, or the largest one if none has.
+     * @param curLatLng coordinates of search location
+     * @param lang user's language
+     * @param minResults number of places wanted
+     * @param maxRadius largest radius allowed
+     * @param placeListener notified of each place as soon as it has been read
+     * @return places obtained and the radius they were searched in
+     * @throws IOException if query fails
+     */
+    private SearchResult speculativeSearch(LatLng curLatLng, String lang, int minResults, double maxRadius,
+                                           @Nullable PlaceListener placeListener) throws IOException {
+        List<Observable<SearchResult>> searches = new ArrayList<>();
+        for (double speculativeRadius : SPECULATIVE_RADII) {
+            double searchRadius = Math.min(speculativeRadius, maxRadius);
+            searches.add(Observable.fromCallable(() -> new SearchResult(searchRadius,
+                    getFromWikidataQuery(curLatLng, lang, searchRadius, placeListener)))
+                    .subscribeOn(Schedulers.io()));
+            if (searchRadius >= maxRadius) {
+                break;
+            }
+        }
+
+        try {
+            // concatEager subscribes to all searches at once but emits them in order of radius
+            return Observable.concatEager(searches)
+                    .takeUntil(searchResult -> searchResult.places.size() >= minResults)
+                    .blockingLast();
+        } catch (RuntimeException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw e;
         }
-        return places;
     }
 
     /**
-     * Runs the Wikidata query to populate the Places around search location
+     * Populates the Places around search location from the offline region packs, within the part
+     * of the search circle covered by a pack.
+     * @param curLatLng coordinates of search location
+     * @param lang user's language
+     * @param maxRadius largest radius allowed
+     * @return places obtained, or null if no pack covers the search location
+     */
+    @Nullable
+    private SearchResult getFromRegionPacks(LatLng curLatLng, String lang, double maxRadius) {
+        double offlineRadius = Math.min(regionPacks.getCoveredRadius(curLatLng, lang), maxRadius);
+        if (offlineRadius <= 0) {
+            return null;
+        }
+        return new SearchResult(offlineRadius, regionPacks.getPlaces(curLatLng, lang, offlineRadius));
+    }
+
+    /**
+     * Populates the Places around search location from cached tiles, running the Wikidata query
+     * only for the tiles which are missing. The places are added to the session index.
      * @param cur coordinates of search location
      * @param lang user's language
      * @param radius radius for search, as determined by radiusExpander()
+     * @param placeListener notified of each place as soon as it has been read
      * @return list of places obtained
      * @throws IOException if query fails
      */
-    private List<Place> getFromWikidataQuery(LatLng cur, String lang, double radius) throws IOException {
-        return okHttpJsonApiClient.getNearbyPlaces(cur, lang, radius).blockingSingle();
+    private List<Place> getFromWikidataQuery(LatLng cur, String lang, double radius,
+                                             @Nullable PlaceListener placeListener) throws IOException {
+        List<Place> places = nearbyTileCache.getPlaces(cur, lang, radius, placeListener);
+        placeIndex.addPlaces(cur, lang, radius, places);
+        return places;
+    }
+
+    /**
+     * Listener for places read while a search is still running
+     */
+    public interface PlaceListener {
+        void onPlaceRead(Place place);
+    }
+
+    /**
+     * Hands each place over to a listener only the first time it is read
+     */
+    private static class DistinctPlaceListener implements PlaceListener {
+        private final PlaceListener placeListener;
+        private final Set<String> placeIds = new HashSet<>();
+
+        DistinctPlaceListener(PlaceListener placeListener) {
+            this.placeListener = placeListener;
+        }
+
+        @Override
+        public void onPlaceRead(Place place) {
+            synchronized (placeIds) {
+                if (!placeIds.add(NearbyMarkerReconciler.getMarkerId(place))) {
+                    return;
+                }
+            }
+            placeListener.onPlaceRead(place);
+        }
+    }
+
+    /**
+     * Places obtained by a search and the radius they were searched in
+     */
+    static class SearchResult {
+        final double radius;
+        final List<Place> places;
+
+        SearchResult(double radius, List<Place> places) {
+            this.radius = radius;
+            this.places = places;
+        }
     }
 }
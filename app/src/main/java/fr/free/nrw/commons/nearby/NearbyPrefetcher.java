@@ -0,0 +1,114 @@
+package fr.free.nrw.commons.nearby;
+
+import android.content.Context;
+import android.os.SystemClock;
+
+import java.io.IOException;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+import fr.free.nrw.commons.location.LatLng;
+import fr.free.nrw.commons.location.MovementListener;
+import fr.free.nrw.commons.utils.GeohashUtils;
+import fr.free.nrw.commons.utils.LengthUtils;
+import fr.free.nrw.commons.utils.NetworkUtils;
+import io.reactivex.Completable;
+import io.reactivex.schedulers.Schedulers;
+import timber.log.Timber;
+
+/**
+ * Warms the nearby tile cache at the place the user is heading to, so that the search made when
+ * they get there is answered from the cache. Prefetches are rate limited, and on metered networks
+ * they are taken from a small hourly budget.
+ */
+@Singleton
+public class NearbyPrefetcher implements MovementListener {
+    private static final float MIN_SPEED = 0.5f; // in meters per second, below is standing still
+    private static final long LOOKAHEAD_SECONDS = 120;
+    private static final double MIN_LOOKAHEAD_DISTANCE = 300; // in meters
+    private static final double MAX_LOOKAHEAD_DISTANCE = 5000; // in meters
+    private static final long MIN_PREFETCH_INTERVAL = TimeUnit.SECONDS.toMillis(60);
+    private static final int METERED_PREFETCHES_PER_HOUR = 5;
+    private static final int PREDICTION_PRECISION = 6; // cells of about 1.2km x 0.6km
+
+    private final Context context;
+    private final NearbyTileCache nearbyTileCache;
+    private final NearbyDensityHistory densityHistory;
+
+    private long lastPrefetchAt = -MIN_PREFETCH_INTERVAL;
+    private String lastPrefetchedCell;
+    private long meteredBudgetResetAt;
+    private int meteredPrefetches;
+    private boolean prefetching;
+
+    @Inject
+    public NearbyPrefetcher(Context context, NearbyTileCache nearbyTileCache,
+                            NearbyDensityHistory densityHistory) {
+        this.context = context;
+        this.nearbyTileCache = nearbyTileCache;
+        this.densityHistory = densityHistory;
+    }
+
+    @Override
+    public void onMovement(LatLng latLng, float speed, float bearing) {
+        if (speed < MIN_SPEED) {
+            return;
+        }
+        double lookaheadDistance = Math.max(MIN_LOOKAHEAD_DISTANCE,
+                Math.min(MAX_LOOKAHEAD_DISTANCE, speed * LOOKAHEAD_SECONDS));
+        LatLng predicted = LengthUtils.computeOffset(latLng, lookaheadDistance, bearing);
+        if (!shouldPrefetch(predicted)) {
+            return;
+        }
+
+        double radius = densityHistory.guessRadius(predicted, NearbyPlaces.MIN_RESULTS,
+                NearbyPlaces.INITIAL_RADIUS, NearbyPlaces.MAX_RADIUS);
+        double prefetchRadius = radius > 0 ? radius : NearbyPlaces.INITIAL_RADIUS;
+        String lang = Locale.getDefault().getLanguage();
+        Timber.d("Prefetching nearby places %fm ahead, radius %f", lookaheadDistance, prefetchRadius);
+        Completable.fromAction(() -> {
+            try {
+                nearbyTileCache.getPlaces(predicted, lang, prefetchRadius);
+            } catch (IOException e) {
+                Timber.d(e, "Nearby prefetch failed");
+            } finally {
+                onPrefetchFinished();
+            }
+        }).subscribeOn(Schedulers.io()).subscribe();
+    }
+
+    /**
+     * Checks the rate limit and the network budget, and reserves a prefetch if they allow it
+     */
+    private synchronized boolean shouldPrefetch(LatLng predicted) {
+        long now = SystemClock.elapsedRealtime();
+        String cell = GeohashUtils.encode(predicted, PREDICTION_PRECISION);
+        if (prefetching || now - lastPrefetchAt < MIN_PREFETCH_INTERVAL || cell.equals(lastPrefetchedCell)) {
+            return false;
+        }
+        if (!NetworkUtils.isInternetConnectionEstablished(context)) {
+            return false;
+        }
+        if (NetworkUtils.isConnectionMetered(context)) {
+            if (now >= meteredBudgetResetAt) {
+                meteredBudgetResetAt = now + TimeUnit.HOURS.toMillis(1);
+                meteredPrefetches = 0;
+            }
+            if (meteredPrefetches >= METERED_PREFETCHES_PER_HOUR) {
+                return false;
+            }
+            meteredPrefetches++;
+        }
+        prefetching = true;
+        lastPrefetchAt = now;
+        lastPrefetchedCell = cell;
+        return true;
+    }
+
+    private synchronized void onPrefetchFinished() {
+        prefetching = false;
+    }
+}
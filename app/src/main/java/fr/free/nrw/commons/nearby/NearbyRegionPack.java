@@ -0,0 +1,297 @@
+package fr.free.nrw.commons.nearby;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import fr.free.nrw.commons.location.LatLng;
+
+import static fr.free.nrw.commons.utils.LengthUtils.computeDistanceBetween;
+
+/**
+ * Nearby places of a region saved in a compact binary file for offline use. The file is memory
+ * mapped, so the places stay on disk until a query decodes the few which are inside its circle.
+ *
+ * The file holds a header, then places sorted by the cell of a grid over their bounding box:
+ * the start of each cell, the latitudes, the longitudes, the offsets of the strings of each place
+ * and finally the UTF-8 bytes of the strings.
+ */
+public class NearbyRegionPack {
+    private static final int MAGIC = 0x4E425031; // "NBP1"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 4 * 4 + 8 * 8;
+    private static final int PLACES_PER_CELL = 8;
+    private static final int MAX_GRID_SIZE = 256;
+    // name, label, long description, category, Wikipedia, Commons and Wikidata links
+    private static final int STRINGS_PER_PLACE = 7;
+    private static final double EARTH_RADIUS = 6371009.0; // in meters
+
+    private final ByteBuffer buffer;
+    private final int count;
+    private final int gridSize;
+    private final double south;
+    private final double north;
+    private final double west;
+    private final double east;
+    private final LatLng center;
+    private final double radius;
+    private final long createdAt;
+    private final int cellsOffset;
+    private final int latitudesOffset;
+    private final int longitudesOffset;
+    private final int stringOffsetsOffset;
+    private final int stringsOffset;
+
+    private NearbyRegionPack(ByteBuffer buffer) throws IOException {
+        this.buffer = buffer;
+        if (buffer.capacity() < HEADER_SIZE || buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+            throw new IOException("Not a nearby region pack");
+        }
+        count = buffer.getInt(8);
+        gridSize = buffer.getInt(12);
+        south = buffer.getDouble(16);
+        north = buffer.getDouble(24);
+        west = buffer.getDouble(32);
+        east = buffer.getDouble(40);
+        center = new LatLng(buffer.getDouble(48), buffer.getDouble(56), 0);
+        radius = buffer.getDouble(64);
+        createdAt = buffer.getLong(72);
+
+        cellsOffset = HEADER_SIZE;
+        latitudesOffset = cellsOffset + 4 * (gridSize * gridSize + 1);
+        longitudesOffset = latitudesOffset + 8 * count;
+        stringOffsetsOffset = longitudesOffset + 8 * count;
+        stringsOffset = stringOffsetsOffset + 4 * (count * STRINGS_PER_PLACE + 1);
+        if (count < 0 || gridSize < 1 || stringsOffset > buffer.capacity()
+                || stringsOffset + getStringOffset(count * STRINGS_PER_PLACE) > buffer.capacity()) {
+            throw new IOException("Truncated nearby region pack");
+        }
+    }
+
+    /**
+     * Maps a region pack file into memory
+     * @param file file written by {@link #write}
+     * @return the region pack
+     * @throws IOException if the file could not be read or is not a region pack
+     */
+    public static NearbyRegionPack open(File file) throws IOException {
+        try (RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r");
+             FileChannel channel = randomAccessFile.getChannel()) {
+            // The mapping stays valid after the channel is closed
+            return new NearbyRegionPack(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    /**
+     * Center of the circle the pack was downloaded for
+     */
+    public LatLng getCenter() {
+        return center;
+    }
+
+    /**
+     * Radius of the circle the pack was downloaded for, in kilometers
+     */
+    public double getRadius() {
+        return radius;
+    }
+
+    public long getCreatedAt() {
+        return createdAt;
+    }
+
+    public int size() {
+        return count;
+    }
+
+    /**
+     * Returns the radius around a location inside which the pack holds every place
+     * @param location search location
+     * @return radius in kilometers, 0 if the location is outside the pack
+     */
+    public double getCoveredRadius(LatLng location) {
+        double distance = computeDistanceBetween(location, center) / 1000;
+        return Math.max(0, radius - distance);
+    }
+
+    /**
+     * Returns the places of the pack inside a circle
+     * @param location center of the circle
+     * @param searchRadius radius of the circle in kilometers
+     * @return places inside the circle
+     */
+    public List<Place> getPlaces(LatLng location, double searchRadius) {
+        List<Place> places = new ArrayList<>();
+        if (count == 0) {
+            return places;
+        }
+        double latitude = location.getLatitude();
+        double longitude = location.getLongitude();
+        double radiusInMeters = searchRadius * 1000;
+        double latitudeDelta = Math.toDegrees(radiusInMeters / EARTH_RADIUS);
+        double cosLatitude = Math.cos(Math.toRadians(Math.min(90, Math.abs(latitude) + latitudeDelta)));
+        double longitudeDelta = cosLatitude > 0 ? latitudeDelta / cosLatitude : 360;
+
+        int firstRow = getCell(latitude - latitudeDelta, south, north, gridSize);
+        int lastRow = getCell(latitude + latitudeDelta, south, north, gridSize);
+        int firstColumn = 0;
+        int lastColumn = gridSize - 1;
+        if (longitude - longitudeDelta >= -180 && longitude + longitudeDelta < 180) {
+            firstColumn = getCell(longitude - longitudeDelta, west, east, gridSize);
+            lastColumn = getCell(longitude + longitudeDelta, west, east, gridSize);
+        }
+
+        for (int row = firstRow; row <= lastRow; row++) {
+            for (int column = firstColumn; column <= lastColumn; column++) {
+                int cell = row * gridSize + column;
+                int end = buffer.getInt(cellsOffset + 4 * (cell + 1));
+                for (int i = buffer.getInt(cellsOffset + 4 * cell); i < end; i++) {
+                    double placeLatitude = buffer.getDouble(latitudesOffset + 8 * i);
+                    double placeLongitude = buffer.getDouble(longitudesOffset + 8 * i);
+                    if (computeDistanceBetween(latitude, longitude, placeLatitude, placeLongitude) <= radiusInMeters) {
+                        places.add(getPlace(i, placeLatitude, placeLongitude));
+                    }
+                }
+            }
+        }
+        return places;
+    }
+
+    private Place getPlace(int index, double latitude, double longitude) {
+        int first = index * STRINGS_PER_PLACE;
+        return new Place(
+                getString(first),
+                Label.fromText(getString(first + 1)),
+                getString(first + 2),
+                new LatLng(latitude, longitude, 0),
+                getString(first + 3),
+                new Sitelinks.Builder()
+                        .setWikipediaLink(getString(first + 4))
+                        .setCommonsLink(getString(first + 5))
+                        .setWikidataLink(getString(first + 6))
+                        .build());
+    }
+
+    private int getStringOffset(int string) {
+        return buffer.getInt(stringOffsetsOffset + 4 * string);
+    }
+
+    private String getString(int string) {
+        int start = getStringOffset(string);
+        byte[] bytes = new byte[getStringOffset(string + 1) - start];
+        ByteBuffer duplicate = buffer.duplicate();
+        duplicate.position(stringsOffset + start);
+        duplicate.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Writes the places of a region into a pack file
+     * @param file file to write
+     * @param center center of the circle the places were downloaded for
+     * @param radius radius of the circle in kilometers
+     * @param placeList every place inside the circle
+     * @throws IOException if the file could not be written
+     */
+    public static void write(File file, LatLng center, double radius, List<Place> placeList) throws IOException {
+        List<Place> places = new ArrayList<>();
+        double south = 90, north = -90, west = 180, east = -180;
+        for (Place place : placeList) {
+            if (place.location == null) {
+                continue;
+            }
+            places.add(place);
+            south = Math.min(south, place.location.getLatitude());
+            north = Math.max(north, place.location.getLatitude());
+            west = Math.min(west, place.location.getLongitude());
+            east = Math.max(east, place.location.getLongitude());
+        }
+        int count = places.size();
+        int gridSize = Math.max(1, Math.min(MAX_GRID_SIZE,
+                (int) Math.ceil(Math.sqrt((double) count / PLACES_PER_CELL))));
+
+        // Counting sort of the places by cell
+        int[] cells = new int[count];
+        int[] cellStarts = new int[gridSize * gridSize + 1];
+        for (int i = 0; i < count; i++) {
+            LatLng location = places.get(i).location;
+            cells[i] = getCell(location.getLatitude(), south, north, gridSize) * gridSize
+                    + getCell(location.getLongitude(), west, east, gridSize);
+            cellStarts[cells[i] + 1]++;
+        }
+        for (int cell = 0; cell < gridSize * gridSize; cell++) {
+            cellStarts[cell + 1] += cellStarts[cell];
+        }
+        Place[] sortedPlaces = new Place[count];
+        int[] next = cellStarts.clone();
+        for (int i = 0; i < count; i++) {
+            sortedPlaces[next[cells[i]]++] = places.get(i);
+        }
+
+        byte[][] strings = new byte[count * STRINGS_PER_PLACE][];
+        for (int i = 0; i < count; i++) {
+            Place place = sortedPlaces[i];
+            int first = i * STRINGS_PER_PLACE;
+            strings[first] = getBytes(place.name);
+            strings[first + 1] = getBytes(place.getLabel() == null ? null : place.getLabel().getText());
+            strings[first + 2] = getBytes(place.getLongDescription());
+            strings[first + 3] = getBytes(place.getCategory());
+            strings[first + 4] = getBytes(place.siteLinks == null ? null : place.siteLinks.getWikipediaLink());
+            strings[first + 5] = getBytes(place.siteLinks == null ? null : place.siteLinks.getCommonsLink());
+            strings[first + 6] = getBytes(place.siteLinks == null ? null : place.siteLinks.getWikidataLink());
+        }
+
+        try (DataOutputStream output = new DataOutputStream(
+                new BufferedOutputStream(new FileOutputStream(file)))) {
+            output.writeInt(MAGIC);
+            output.writeInt(VERSION);
+            output.writeInt(count);
+            output.writeInt(gridSize);
+            output.writeDouble(south);
+            output.writeDouble(north);
+            output.writeDouble(west);
+            output.writeDouble(east);
+            output.writeDouble(center.getLatitude());
+            output.writeDouble(center.getLongitude());
+            output.writeDouble(radius);
+            output.writeLong(System.currentTimeMillis());
+            for (int cellStart : cellStarts) {
+                output.writeInt(cellStart);
+            }
+            for (Place place : sortedPlaces) {
+                output.writeDouble(place.location.getLatitude());
+            }
+            for (Place place : sortedPlaces) {
+                output.writeDouble(place.location.getLongitude());
+            }
+            int offset = 0;
+            output.writeInt(offset);
+            for (byte[] string : strings) {
+                offset += string.length;
+                output.writeInt(offset);
+            }
+            for (byte[] string : strings) {
+                output.write(string);
+            }
+        }
+    }
+
+    private static int getCell(double value, double min, double max, int gridSize) {
+        if (max <= min) {
+            return 0;
+        }
+        return Math.max(0, Math.min(gridSize - 1, (int) ((value - min) / (max - min) * gridSize)));
+    }
+
+    private static byte[] getBytes(Object value) {
+        return value == null ? new byte[0] : value.toString().getBytes(StandardCharsets.UTF_8);
+    }
+}
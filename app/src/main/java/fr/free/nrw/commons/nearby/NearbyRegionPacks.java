@@ -0,0 +1,149 @@
+package fr.free.nrw.commons.nearby;
+
+import android.content.Context;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+import androidx.annotation.Nullable;
+import fr.free.nrw.commons.location.LatLng;
+import fr.free.nrw.commons.mwapi.OkHttpJsonApiClient;
+import fr.free.nrw.commons.utils.GeohashUtils;
+import timber.log.Timber;
+
+/**
+ * Offline region packs saved by the user, one file per language and region. Nearby searches fall
+ * back to them when Wikidata cannot be reached.
+ */
+@Singleton
+public class NearbyRegionPacks {
+    private static final String PACKS_FOLDER_NAME = "nearbyPacks";
+    private static final String PACK_EXTENSION = ".pack";
+    private static final int REGION_PRECISION = 5; // regions of about 4.9km x 4.9km
+
+    private final OkHttpJsonApiClient okHttpJsonApiClient;
+    private final File packsDir;
+    private Map<String, List<NearbyRegionPack>> packsByLang;
+
+    @Inject
+    public NearbyRegionPacks(Context context, OkHttpJsonApiClient okHttpJsonApiClient) {
+        this.okHttpJsonApiClient = okHttpJsonApiClient;
+        this.packsDir = new File(context.getFilesDir(), PACKS_FOLDER_NAME);
+    }
+
+    /**
+     * Downloads the places needing pictures around a location and saves them as a region pack,
+     * replacing an earlier pack of the same region
+     * @param center center of the region
+     * @param lang user's language
+     * @param radius radius of the region in kilometers
+     * @return number of places saved
+     * @throws IOException if the places could not be downloaded or saved
+     */
+    public int download(LatLng center, String lang, double radius) throws IOException {
+        List<Place> places;
+        try {
+            places = okHttpJsonApiClient.getNearbyPlaces(center, lang, radius).toList().blockingGet();
+        } catch (RuntimeException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw e;
+        }
+
+        if (!packsDir.exists() && !packsDir.mkdirs()) {
+            throw new IOException("Could not create nearby packs directory");
+        }
+        String name = lang + "_" + GeohashUtils.encode(center, REGION_PRECISION);
+        File tempFile = new File(packsDir, name + ".tmp");
+        File file = new File(packsDir, name + PACK_EXTENSION);
+        try {
+            NearbyRegionPack.write(tempFile, center, radius, places);
+        } catch (IOException e) {
+            tempFile.delete();
+            throw e;
+        }
+        synchronized (this) {
+            // Packs are opened again on next use, mappings of a replaced file stay readable
+            if (!tempFile.renameTo(file)) {
+                tempFile.delete();
+                throw new IOException("Could not save nearby pack " + name);
+            }
+            packsByLang = null;
+        }
+        Timber.d("Saved %d places in nearby pack %s", places.size(), name);
+        return places.size();
+    }
+
+    /**
+     * Returns the radius around a location inside which a region pack holds every place
+     * @param location search location
+     * @param lang user's language
+     * @return radius in kilometers, 0 if no pack covers the location
+     */
+    public synchronized double getCoveredRadius(LatLng location, String lang) {
+        double coveredRadius = 0;
+        for (NearbyRegionPack pack : getPacks(lang)) {
+            coveredRadius = Math.max(coveredRadius, pack.getCoveredRadius(location));
+        }
+        return coveredRadius;
+    }
+
+    /**
+     * Returns the places inside a circle from the pack covering most of it
+     * @param location center of the circle
+     * @param lang user's language
+     * @param radius radius of the circle in kilometers
+     * @return places inside the circle, or null if no pack covers the location
+     */
+    @Nullable
+    public synchronized List<Place> getPlaces(LatLng location, String lang, double radius) {
+        NearbyRegionPack bestPack = null;
+        for (NearbyRegionPack pack : getPacks(lang)) {
+            if (bestPack == null || pack.getCoveredRadius(location) > bestPack.getCoveredRadius(location)) {
+                bestPack = pack;
+            }
+        }
+        if (bestPack == null || bestPack.getCoveredRadius(location) <= 0) {
+            return null;
+        }
+        return bestPack.getPlaces(location, radius);
+    }
+
+    private List<NearbyRegionPack> getPacks(String lang) {
+        if (packsByLang == null) {
+            packsByLang = new HashMap<>();
+            File[] files = packsDir.listFiles();
+            if (files != null) {
+                for (File file : files) {
+                    String name = file.getName();
+                    if (!name.endsWith(PACK_EXTENSION) || name.indexOf('_') < 0) {
+                        continue;
+                    }
+                    try {
+                        NearbyRegionPack pack = NearbyRegionPack.open(file);
+                        String packLang = name.substring(0, name.lastIndexOf('_'));
+                        List<NearbyRegionPack> packs = packsByLang.get(packLang);
+                        if (packs == null) {
+                            packs = new ArrayList<>();
+                            packsByLang.put(packLang, packs);
+                        }
+                        packs.add(pack);
+                    } catch (IOException e) {
+                        Timber.e(e, "Could not open nearby pack %s", name);
+                    }
+                }
+            }
+        }
+        List<NearbyRegionPack> packs = packsByLang.get(lang);
+        return packs == null ? Collections.emptyList() : packs;
+    }
+}
@@ -0,0 +1,193 @@
+package fr.free.nrw.commons.nearby;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import fr.free.nrw.commons.location.LatLng;
+
+import static fr.free.nrw.commons.utils.LengthUtils.computeDistances;
+
+/**
+ * Nearby places with their coordinates and distances kept in primitive arrays. The boundary box is
+ * found in a single pass, distances are computed in a batch, and places are ordered by sorting
+ * primitive keys instead of boxing a distance per place.
+ */
+public class NearbyResultSet {
+    private final Place[] places;
+    private final double[] latitudes;
+    private final double[] longitudes;
+    private final double[] distances;
+    private final LatLng[] boundaryCoordinates;
+
+    /**
+     * @param placeList places to hold, places without a location are dropped
+     * @param origin location distances are measured from, or null if it is unknown
+     */
+    public NearbyResultSet(@NonNull List<Place> placeList, @Nullable LatLng origin) {
+        int size = 0;
+        for (Place place : placeList) {
+            if (place.location != null) {
+                size++;
+            }
+        }
+        places = new Place[size];
+        latitudes = new double[size];
+        longitudes = new double[size];
+        distances = new double[size];
+
+        // Indexes of the south, north, west and east most places
+        int south = 0, north = 0, west = 0, east = 0;
+        int i = 0;
+        for (Place place : placeList) {
+            if (place.location == null) {
+                continue;
+            }
+            places[i] = place;
+            latitudes[i] = place.location.getLatitude();
+            longitudes[i] = place.location.getLongitude();
+            if (latitudes[i] < latitudes[south]) {
+                south = i;
+            }
+            if (latitudes[i] > latitudes[north]) {
+                north = i;
+            }
+            if (longitudes[i] < longitudes[west]) {
+                west = i;
+            }
+            if (longitudes[i] > longitudes[east]) {
+                east = i;
+            }
+            i++;
+        }
+
+        if (origin != null) {
+            computeDistances(origin.getLatitude(), origin.getLongitude(),
+                    latitudes, longitudes, distances, size);
+            for (i = 0; i < size; i++) {
+                places[i].setDistanceInMeters(distances[i]);
+            }
+        }
+
+        boundaryCoordinates = size == 0 ? null : new LatLng[]{
+                places[south].location,
+                places[north].location,
+                places[west].location,
+                places[east].location};
+    }
+
+    public int size() {
+        return places.length;
+    }
+
+    public Place getPlace(int index) {
+        return places[index];
+    }
+
+    public double getLatitude(int index) {
+        return latitudes[index];
+    }
+
+    public double getLongitude(int index) {
+        return longitudes[index];
+    }
+
+    /**
+     * Returns the distance in meters of a place from the origin, 0 if the origin is unknown
+     */
+    public double getDistance(int index) {
+        return distances[index];
+    }
+
+    /**
+     * Returns the south, north, west and east most locations, or null if there are no places
+     */
+    @Nullable
+    public LatLng[] getBoundaryCoordinates() {
+        return boundaryCoordinates;
+    }
+
+    /**
+     * Returns the indexes of the closest places ordered by distance. Only the first limit places
+     * are fully sorted, the others are just partitioned away.
+     * @param limit maximum number of indexes to return
+     * @return indexes into this result set
+     */
+    public int[] getClosestIndexes(int limit) {
+        int count = Math.min(limit, places.length);
+        // Distances are non negative, so the bits of their float value sort like the value itself.
+        // Packing them above the index gives keys which can be sorted as primitives.
+        long[] keys = new long[places.length];
+        for (int i = 0; i < places.length; i++) {
+            keys[i] = ((long) Float.floatToIntBits((float) distances[i]) << 32) | i;
+        }
+        if (count < keys.length) {
+            select(keys, count);
+        }
+        Arrays.sort(keys, 0, count);
+
+        int[] indexes = new int[count];
+        for (int i = 0; i < count; i++) {
+            indexes[i] = (int) keys[i];
+        }
+        return indexes;
+    }
+
+    /**
+     * Returns the closest places ordered by distance
+     * @param limit maximum number of places to return
+     * @return places ordered by distance
+     */
+    public List<Place> getClosestPlaces(int limit) {
+        int[] indexes = getClosestIndexes(limit);
+        List<Place> closestPlaces = new ArrayList<>(indexes.length);
+        for (int index : indexes) {
+            closestPlaces.add(places[index]);
+        }
+        return closestPlaces;
+    }
+
+    /**
+     * Returns the places in the order they were given, up to limit
+     */
+    public List<Place> getPlaces(int limit) {
+        return new ArrayList<>(Arrays.asList(places).subList(0, Math.min(limit, places.length)));
+    }
+
+    /**
+     * Moves the k smallest keys to the beginning of the array, in no particular order
+     */
+    private static void select(long[] keys, int k) {
+        int left = 0;
+        int right = keys.length - 1;
+        while (left < right) {
+            long pivot = keys[(left + right) >>> 1];
+            int i = left;
+            int j = right;
+            while (i <= j) {
+                while (keys[i] < pivot) {
+                    i++;
+                }
+                while (keys[j] > pivot) {
+                    j--;
+                }
+                if (i <= j) {
+                    long swap = keys[i];
+                    keys[i] = keys[j];
+                    keys[j] = swap;
+                    i++;
+                    j--;
+                }
+            }
+            if (k - 1 <= j) {
+                right = j;
+            } else if (k - 1 >= i) {
+                left = i;
+            } else {
+                return;
+            }
+        }
+    }
+}
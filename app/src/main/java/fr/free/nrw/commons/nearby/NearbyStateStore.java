@@ -0,0 +1,100 @@
+package fr.free.nrw.commons.nearby;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+import androidx.annotation.Nullable;
+import fr.free.nrw.commons.location.LatLng;
+
+/**
+ * Holds the latest nearby places in memory, so that the nearby map and list fragments can share
+ * them without serializing the place list into their arguments. Fragments only keep the id of the
+ * snapshot they were given. Ids of each process start at a random value, so that an id restored
+ * after the process was killed does not match a snapshot of the new process.
+ */
+@Singleton
+public class NearbyStateStore {
+    static final String ARG_SNAPSHOT_ID = "NearbySnapshotId";
+
+    private Snapshot snapshot;
+    private long nextSnapshotId = new Random().nextLong();
+
+    @Inject
+    public NearbyStateStore() {
+    }
+
+    /**
+     * Stores new nearby places, replacing the previous ones
+     * @param curLatLng current location of the user
+     * @param placeList nearby places
+     * @param boundaryCoordinates south, north, west and east most locations of the places
+     * @return the new snapshot
+     */
+    public synchronized Snapshot setPlaces(LatLng curLatLng, List<Place> placeList,
+                                           @Nullable LatLng[] boundaryCoordinates) {
+        snapshot = new Snapshot(nextSnapshotId++, curLatLng, placeList, boundaryCoordinates);
+        return snapshot;
+    }
+
+    /**
+     * Updates the current location of the user, keeping the same places
+     * @param curLatLng current location of the user
+     * @return the new snapshot
+     */
+    public synchronized Snapshot setCurLatLng(LatLng curLatLng) {
+        if (snapshot == null) {
+            return setPlaces(curLatLng, Collections.emptyList(), null);
+        }
+        snapshot = new Snapshot(snapshot.id, curLatLng, snapshot.placeList,
+                snapshot.boundaryCoordinates);
+        return snapshot;
+    }
+
+    /**
+     * Returns the latest snapshot, or null if no places were stored yet
+     */
+    @Nullable
+    public synchronized Snapshot getSnapshot() {
+        return snapshot;
+    }
+
+    /**
+     * Returns the latest snapshot if it is still the one with the given id
+     * @param id id kept by a fragment
+     * @return the snapshot, or null if it was replaced or lost with the process
+     */
+    @Nullable
+    public synchronized Snapshot getSnapshot(long id) {
+        return snapshot != null && snapshot.id == id ? snapshot : null;
+    }
+
+    /**
+     * Forgets the stored places, to be called when nearby is closed for good
+     */
+    public synchronized void clear() {
+        snapshot = null;
+    }
+
+    /**
+     * Immutable nearby places along with the location they were loaded for
+     */
+    public static class Snapshot {
+        public final long id;
+        public final LatLng curLatLng;
+        public final List<Place> placeList;
+        @Nullable
+        public final LatLng[] boundaryCoordinates;
+
+        Snapshot(long id, LatLng curLatLng, List<Place> placeList,
+                 @Nullable LatLng[] boundaryCoordinates) {
+            this.id = id;
+            this.curLatLng = curLatLng;
+            this.placeList = Collections.unmodifiableList(placeList);
+            this.boundaryCoordinates = boundaryCoordinates;
+        }
+    }
+}
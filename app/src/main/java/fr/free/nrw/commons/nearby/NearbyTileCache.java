@@ -0,0 +1,251 @@
+package fr.free.nrw.commons.nearby;
+
+import android.content.Context;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+import androidx.annotation.Nullable;
+import androidx.collection.LruCache;
+import fr.free.nrw.commons.location.LatLng;
+import fr.free.nrw.commons.mwapi.OkHttpJsonApiClient;
+import fr.free.nrw.commons.utils.GeohashUtils;
+import timber.log.Timber;
+
+import static fr.free.nrw.commons.utils.LengthUtils.computeDistanceBetween;
+
+/**
+ * Disk backed cache of nearby places, split into geohash tiles per language. A search circle is
+ * answered from the tiles covering it, and only missing or expired tiles are queried from Wikidata.
+ */
+@Singleton
+public class NearbyTileCache {
+    private static final String CACHE_FOLDER_NAME = "nearbyTiles";
+    private static final long TILE_TTL = TimeUnit.HOURS.toMillis(24);
+    private static final int MIN_PRECISION = 4; // tiles of about 39km x 20km
+    private static final int MAX_PRECISION = 6; // tiles of about 1.2km x 0.6km
+    private static final int MAX_TILES_PER_SEARCH = 9;
+    private static final int MEMORY_CACHE_SIZE = 64;
+
+    private final OkHttpJsonApiClient okHttpJsonApiClient;
+    private final Gson gson;
+    private final File cacheDir;
+    private final LruCache<String, NearbyTile> memoryCache = new LruCache<>(MEMORY_CACHE_SIZE);
+
+    @Inject
+    public NearbyTileCache(Context context, OkHttpJsonApiClient okHttpJsonApiClient, Gson gson) {
+        this.okHttpJsonApiClient = okHttpJsonApiClient;
+        this.gson = gson;
+        this.cacheDir = new File(context.getCacheDir(), CACHE_FOLDER_NAME);
+    }
+
+    /**
+     * Returns the places inside a search circle, served from cached tiles where possible
+     * @param center center of the search circle
+     * @param lang user's language
+     * @param radius radius of the search circle in kilometers
+     * @return list of places inside the circle
+     * @throws IOException if a missing tile could not be fetched
+     */
+    public List<Place> getPlaces(LatLng center, String lang, double radius) throws IOException {
+        return getPlaces(center, lang, radius, null);
+    }
+
+    /**
+     * Returns the places inside a search circle, served from cached tiles where possible
+     * @param center center of the search circle
+     * @param lang user's language
+     * @param radius radius of the search circle in kilometers
+     * @param placeListener notified of each place inside the circle as soon as it has been read,
+     *                      before the whole response has arrived
+     * @return list of places inside the circle
+     * @throws IOException if a missing tile could not be fetched
+     */
+    public List<Place> getPlaces(LatLng center, String lang, double radius,
+                                 @Nullable NearbyPlaces.PlaceListener placeListener) throws IOException {
+        List<String> tiles = GeohashUtils.coveringTiles(center, radius,
+                MIN_PRECISION, MAX_PRECISION, MAX_TILES_PER_SEARCH);
+        if (tiles == null) {
+            // Circle is too large to be split into tiles, query it directly
+            try {
+                return okHttpJsonApiClient.getNearbyPlaces(center, lang, radius)
+                        .doOnNext(place -> notifyPlaceRead(placeListener, place))
+                        .toList()
+                        .blockingGet();
+            } catch (RuntimeException e) {
+                throw unwrapIOException(e);
+            }
+        }
+
+        int fetchedTiles = 0;
+        double radiusInMeters = radius * 1000;
+        List<Place> places = new ArrayList<>();
+        for (String geohash : tiles) {
+            NearbyTile tile = getCachedTile(lang, geohash);
+            boolean fetched = false;
+            if (tile == null) {
+                tile = fetchTile(lang, geohash, place -> {
+                    if (computeDistanceBetween(center, place.location) <= radiusInMeters) {
+                        notifyPlaceRead(placeListener, place);
+                    }
+                });
+                fetched = true;
+                fetchedTiles++;
+            }
+            for (Place place : tile.places) {
+                if (computeDistanceBetween(center, place.location) <= radiusInMeters) {
+                    places.add(place);
+                    if (!fetched) {
+                        notifyPlaceRead(placeListener, place);
+                    }
+                }
+            }
+        }
+        Timber.d("Served %d places from %d tiles, %d fetched", places.size(), tiles.size(), fetchedTiles);
+        return places;
+    }
+
+    /**
+     * Drops every cached tile, ie. after the user added a picture to a Wikidata item
+     */
+    public synchronized void invalidate() {
+        memoryCache.evictAll();
+        File[] files = cacheDir.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+    }
+
+    /**
+     * Returns the tile from memory or disk if it is still fresh
+     */
+    @Nullable
+    private synchronized NearbyTile getCachedTile(String lang, String geohash) {
+        String key = getKey(lang, geohash);
+        NearbyTile tile = memoryCache.get(key);
+        if (tile == null) {
+            tile = readTile(key);
+            if (tile != null) {
+                memoryCache.put(key, tile);
+            }
+        }
+        if (tile != null && System.currentTimeMillis() - tile.fetchedAt > TILE_TTL) {
+            memoryCache.remove(key);
+            return null;
+        }
+        return tile;
+    }
+
+    /**
+     * Queries the circle around the tile and keeps only the places inside the tile
+     */
+    private NearbyTile fetchTile(String lang, String geohash, NearbyPlaces.PlaceListener placeListener) throws IOException {
+        List<Place> places;
+        try {
+            places = okHttpJsonApiClient.getNearbyPlaces(GeohashUtils.center(geohash),
+                    lang, GeohashUtils.circumscribedRadius(geohash))
+                    .filter(place -> place.location != null
+                            && geohash.equals(GeohashUtils.encode(place.location, geohash.length())))
+                    .doOnNext(placeListener::onPlaceRead)
+                    .toList()
+                    .blockingGet();
+        } catch (RuntimeException e) {
+            throw unwrapIOException(e);
+        }
+
+        NearbyTile tile = new NearbyTile(System.currentTimeMillis(), places);
+        String key = getKey(lang, geohash);
+        synchronized (this) {
+            memoryCache.put(key, tile);
+            writeTile(key, tile);
+        }
+        return tile;
+    }
+
+    private static void notifyPlaceRead(@Nullable NearbyPlaces.PlaceListener placeListener, Place place) {
+        if (placeListener != null) {
+            placeListener.onPlaceRead(place);
+        }
+    }
+
+    @Nullable
+    private NearbyTile readTile(String key) {
+        File file = new File(cacheDir, key + ".json");
+        if (!file.exists()) {
+            return null;
+        }
+        try (Reader reader = new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8)) {
+            NearbyTile tile = gson.fromJson(reader, NearbyTile.class);
+            if (tile != null && tile.places != null) {
+                return tile;
+            }
+        } catch (IOException | JsonParseException e) {
+            Timber.e(e, "Could not read nearby tile %s", key);
+        }
+        file.delete();
+        return null;
+    }
+
+    private void writeTile(String key, NearbyTile tile) {
+        if (!cacheDir.exists() && !cacheDir.mkdirs()) {
+            Timber.e("Could not create nearby tile cache directory");
+            return;
+        }
+        File tempFile = new File(cacheDir, key + ".tmp");
+        try (Writer writer = new OutputStreamWriter(new FileOutputStream(tempFile), StandardCharsets.UTF_8)) {
+            gson.toJson(tile, writer);
+        } catch (IOException e) {
+            Timber.e(e, "Could not write nearby tile %s", key);
+            tempFile.delete();
+            return;
+        }
+        if (!tempFile.renameTo(new File(cacheDir, key + ".json"))) {
+            tempFile.delete();
+        }
+    }
+
+    /**
+     * Blocking RxJava calls wrap checked exceptions, this gets the IOException of a failed query back
+     */
+    private static IOException unwrapIOException(RuntimeException e) {
+        if (e.getCause() instanceof IOException) {
+            return (IOException) e.getCause();
+        }
+        throw e;
+    }
+
+    private static String getKey(String lang, String geohash) {
+        return lang + "_" + geohash;
+    }
+
+    /**
+     * Places of one geohash tile and the time they were fetched at
+     */
+    static class NearbyTile {
+        final long fetchedAt;
+        final List<Place> places;
+
+        NearbyTile(long fetchedAt, List<Place> places) {
+            this.fetchedAt = fetchedAt;
+            this.places = places;
+        }
+    }
+}
@@ -10,6 +10,7 @@ import androidx.annotation.Nullable;
 
 import fr.free.nrw.commons.location.LatLng;
 import fr.free.nrw.commons.nearby.model.NearbyResultItem;
+import fr.free.nrw.commons.utils.LengthUtils;
 import fr.free.nrw.commons.utils.PlaceUtils;
 import timber.log.Timber;
 
@@ -25,6 +26,7 @@ public class Place implements Parcelable {
     private final String category;
 
     public String distance;
+    private double distanceInMeters = -1;
     public final Sitelinks siteLinks;
 
 
@@ -47,21 +49,45 @@ public class Place implements Parcelable {
     }
 
     public static Place from(NearbyResultItem item) {
-        String itemClass = item.getClassName().getValue();
+        return from(item.getItem().getValue(),
+                item.getWikipediaArticle().getValue(),
+                item.getCommonsArticle().getValue(),
+                item.getLocation().getValue(),
+                item.getLabel().getValue(),
+                item.getClassName().getValue(),
+                item.getClassLabel().getValue(),
+                item.getCommonsCategory().getValue());
+    }
+
+    /**
+     * Creates a place from the values of a SPARQL nearby binding
+     * @param item Wikidata entity URI of the place
+     * @param wikipediaArticle Wikipedia article URL
+     * @param commonsArticle Commons page URL
+     * @param location location as a WKT point string
+     * @param label name of the place
+     * @param itemClass Wikidata entity URI of the class of the place
+     * @param classLabel name of the class of the place
+     * @param commonsCategory Commons category of the place
+     * @return the place
+     */
+    public static Place from(String item, String wikipediaArticle, String commonsArticle,
+                             String location, String label, String itemClass,
+                             String classLabel, String commonsCategory) {
         String classEntityId = "";
         if(!StringUtils.isBlank(itemClass)) {
             classEntityId = itemClass.replace("http://www.wikidata.org/entity/", "");
         }
         return new Place(
-                item.getLabel().getValue(),
+                label,
                 Label.fromText(classEntityId), // list
-                item.getClassLabel().getValue(), // details
-                PlaceUtils.latLngFromPointString(item.getLocation().getValue()),
-                item.getCommonsCategory().getValue(),
+                classLabel, // details
+                PlaceUtils.latLngFromPointString(location),
+                commonsCategory,
                 new Sitelinks.Builder()
-                        .setWikipediaLink(item.getWikipediaArticle().getValue())
-                        .setCommonsLink(item.getCommonsArticle().getValue())
-                        .setWikidataLink(item.getItem().getValue())
+                        .setWikipediaLink(wikipediaArticle)
+                        .setCommonsLink(commonsArticle)
+                        .setWikidataLink(item)
                         .build());
     }
 
@@ -103,20 +129,53 @@ public class Place implements Parcelable {
         this.distance = distance;
     }
 
+    /**
+     * Sets the distance of the place from the user's location, the string is formatted only when
+     * it is first needed
+     * @param distanceInMeters distance of place from user's location in meters
+     */
+    public void setDistanceInMeters(double distanceInMeters) {
+        this.distanceInMeters = distanceInMeters;
+        this.distance = null;
+    }
+
+    /**
+     * Gets the formatted distance of the place from the user's location
+     * @return distance, or null if it is unknown
+     */
+    @Nullable
+    public String getDistance() {
+        if (distance == null && distanceInMeters >= 0) {
+            distance = LengthUtils.formatDistance((int) Math.round(distanceInMeters));
+        }
+        return distance;
+    }
+
     /**
      * Extracts the entity id from the wikidata link
      * @return returns the entity id if wikidata link exists
      */
     @Nullable
     public String getWikiDataEntityId() {
+        String entityId = getEntityId();
+        if (entityId == null) {
+            Timber.d("Wikidata entity ID is null for place with sitelink %s", siteLinks);
+        } else {
+            Timber.d("Wikidata entity is %s", entityId);
+        }
+        return entityId;
+    }
+
+    /**
+     * Extracts the entity id from the wikidata link, without logging, for lookups over many places
+     * @return returns the entity id if wikidata link exists
+     */
+    @Nullable
+    String getEntityId() {
         if (!hasWikidataLink()) {
-            Timber.d("Wikidata entity ID is null for place with sitelink %s", siteLinks.toString());
             return null;
         }
-
-        String wikiDataLink = siteLinks.getWikidataLink().toString();
-        Timber.d("Wikidata entity is %s", wikiDataLink);
-        return wikiDataLink.replace("http://www.wikidata.org/entity/", "");
+        return siteLinks.getWikidataLink().toString().replace("http://www.wikidata.org/entity/", "");
     }
 
     /**
@@ -29,7 +29,7 @@ import butterknife.ButterKnife;
 import fr.free.nrw.commons.R;
 import fr.free.nrw.commons.Utils;
 import fr.free.nrw.commons.auth.LoginActivity;
-import fr.free.nrw.commons.bookmarks.locations.BookmarkLocationsDao;
+import fr.free.nrw.commons.bookmarks.locations.BookmarkLocationsIndex;
 import fr.free.nrw.commons.contributions.ContributionController;
 import fr.free.nrw.commons.di.ApplicationlessInjection;
 import fr.free.nrw.commons.kvstore.JsonKvStore;
@@ -67,7 +67,7 @@ public class PlaceRenderer extends Renderer<Place> {
     private ContributionController controller;
     private OnBookmarkClick onBookmarkClick;
 
-    @Inject BookmarkLocationsDao bookmarkLocationDao;
+    @Inject BookmarkLocationsIndex bookmarkLocationsIndex;
     @Inject
     @Named("default_preferences")
     JsonKvStore applicationKvStore;
@@ -180,7 +180,7 @@ public class PlaceRenderer extends Renderer<Place> {
                         })
                         .show();
             } else {
-                boolean isBookmarked = bookmarkLocationDao.updateBookmarkLocation(place);
+                boolean isBookmarked = bookmarkLocationsIndex.updateBookmarkLocation(place);
                 int icon = isBookmarked ? R.drawable.ic_round_star_filled_24px : R.drawable.ic_round_star_border_24px;
                 bookmarkButtonImage.setImageResource(icon);
                 if (onBookmarkClick != null) {
@@ -218,7 +218,7 @@ public class PlaceRenderer extends Renderer<Place> {
             tvDesc.setVisibility(View.INVISIBLE);
         }
         tvDesc.setText(descriptionText);
-        distance.setText(place.distance);
+        distance.setText(place.getDistance());
 
 
         icon.setImageResource(place.getLabel().getIcon());
@@ -229,7 +229,7 @@ public class PlaceRenderer extends Renderer<Place> {
         iconOverflow.setOnClickListener(v -> popupMenuListener());
 
         int icon;
-        if (bookmarkLocationDao.findBookmarkLocation(place)) {
+        if (bookmarkLocationsIndex.isBookmarked(place)) {
             icon = R.drawable.ic_round_star_filled_24px;
         } else {
             icon = R.drawable.ic_round_star_border_24px;
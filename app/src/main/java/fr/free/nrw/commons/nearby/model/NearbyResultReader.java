@@ -0,0 +1,146 @@
+package fr.free.nrw.commons.nearby.model;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+
+import androidx.annotation.Nullable;
+import fr.free.nrw.commons.nearby.Place;
+
+/**
+ * Reads the bindings of a SPARQL nearby response one at a time, turning each into a Place as soon
+ * as it has been read, without holding the response or a tree of bindings in memory.
+ */
+public class NearbyResultReader implements Closeable {
+    private final JsonReader jsonReader;
+    private boolean insideBindings;
+    private boolean finished;
+
+    public NearbyResultReader(Reader reader) {
+        this.jsonReader = new JsonReader(reader);
+    }
+
+    /**
+     * Reads the next binding of the response
+     * @return the place of the next binding, or null once all bindings have been read
+     * @throws IOException if the response could not be read or is malformed
+     */
+    @Nullable
+    public Place nextPlace() throws IOException {
+        if (finished) {
+            return null;
+        }
+        if (!insideBindings && !moveToBindings()) {
+            finished = true;
+            return null;
+        }
+        if (!jsonReader.hasNext()) {
+            finished = true;
+            return null;
+        }
+        return readBinding();
+    }
+
+    /**
+     * Skips everything up to the first element of results.bindings
+     * @return false if the response has no bindings
+     */
+    private boolean moveToBindings() throws IOException {
+        jsonReader.beginObject();
+        while (jsonReader.hasNext()) {
+            if (!"results".equals(jsonReader.nextName())) {
+                jsonReader.skipValue();
+                continue;
+            }
+            jsonReader.beginObject();
+            while (jsonReader.hasNext()) {
+                if ("bindings".equals(jsonReader.nextName())) {
+                    jsonReader.beginArray();
+                    insideBindings = true;
+                    return true;
+                }
+                jsonReader.skipValue();
+            }
+            return false;
+        }
+        return false;
+    }
+
+    private Place readBinding() throws IOException {
+        String item = "";
+        String wikipediaArticle = "";
+        String commonsArticle = "";
+        String location = "";
+        String label = "";
+        String className = "";
+        String classLabel = "";
+        String commonsCategory = "";
+
+        jsonReader.beginObject();
+        while (jsonReader.hasNext()) {
+            String name = jsonReader.nextName();
+            switch (name) {
+                case "item":
+                    item = readValue();
+                    break;
+                case "wikipediaArticle":
+                    wikipediaArticle = readValue();
+                    break;
+                case "commonsArticle":
+                    commonsArticle = readValue();
+                    break;
+                case "location":
+                    location = readValue();
+                    break;
+                case "label":
+                    label = readValue();
+                    break;
+                case "class":
+                    className = readValue();
+                    break;
+                case "classLabel":
+                    classLabel = readValue();
+                    break;
+                case "commonsCategory":
+                    commonsCategory = readValue();
+                    break;
+                default:
+                    jsonReader.skipValue();
+                    break;
+            }
+        }
+        jsonReader.endObject();
+
+        return Place.from(item, wikipediaArticle, commonsArticle, location,
+                label, className, classLabel, commonsCategory);
+    }
+
+    /**
+     * Reads the value of a {"type": ..., "value": ...} tuple
+     */
+    private String readValue() throws IOException {
+        String value = "";
+        if (jsonReader.peek() == JsonToken.NULL) {
+            jsonReader.nextNull();
+            return value;
+        }
+        jsonReader.beginObject();
+        while (jsonReader.hasNext()) {
+            if ("value".equals(jsonReader.nextName())) {
+                value = jsonReader.nextString();
+            } else {
+                jsonReader.skipValue();
+            }
+        }
+        jsonReader.endObject();
+        return value;
+    }
+
+    @Override
+    public void close() throws IOException {
+        jsonReader.close();
+    }
+}
@@ -1,13 +1,5 @@
 package fr.free.nrw.commons.upload;
 
-import com.drew.imaging.ImageMetadataReader;
-import com.drew.imaging.ImageProcessingException;
-import com.drew.metadata.Directory;
-import com.drew.metadata.Metadata;
-
-import java.io.File;
-import java.io.IOException;
-
 import javax.inject.Inject;
 import javax.inject.Singleton;
 
@@ -23,9 +15,11 @@ import timber.log.Timber;
 
 @Singleton
 public class EXIFReader {
+    private final ImageFactsReader imageFactsReader;
+
     @Inject
-    public EXIFReader() {
-        //Empty
+    public EXIFReader(ImageFactsReader imageFactsReader) {
+        this.imageFactsReader = imageFactsReader;
     }
     /**
     * The method takes in path of the image and reads metadata using the library metadata-extractor
@@ -33,28 +27,11 @@ public class EXIFReader {
      * */
 
     public Single<Integer> processMetadata(String path) {
-        Metadata readMetadata = null;
-        try {
-            readMetadata = ImageMetadataReader.readMetadata(new File(path));
-        } catch (ImageProcessingException e) {
-            Timber.d(e.toString());
-        } catch (IOException e) {
-            Timber.d(e.toString());
-        }
-        if (readMetadata != null) {
-            for (Directory directory : readMetadata.getDirectories()) {
-                // In case of internet downloaded image these three fields are not present
-                if (directory.getName().equals("Exif IFD0") //Contains information about the device capturing the photo
-                        || directory.getName().equals("Exif SubIFD") //contains information like date, time and pixels of the image
-                        || directory.getName().equals("Exif Thumbnail")) //contains information about image thumbnail like compression and reolution
-                {
-                    Timber.d(directory.getName() + " Contains metadata");
-                    return Single.just(ImageUtils.IMAGE_OK);
-                }
-            }
+        if (imageFactsReader.getFacts(path).hasExif()) {
+            Timber.d("%s contains EXIF metadata", path);
+            return Single.just(ImageUtils.IMAGE_OK);
         }
         return Single.just(ImageUtils.FILE_NO_EXIF);
     }
 
 }
-
@@ -0,0 +1,163 @@
+package fr.free.nrw.commons.upload;
+
+import android.annotation.SuppressLint;
+import android.content.Context;
+
+import androidx.annotation.Nullable;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import com.google.gson.reflect.TypeToken;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+import io.reactivex.Completable;
+import io.reactivex.schedulers.Schedulers;
+import timber.log.Timber;
+
+/**
+ * Disk backed store of the SHA1 of the files being uploaded, so that a file is hashed once rather
+ * than each time it is checked. Hashes are keyed by path, size and modification time, so a file
+ * changed since it was hashed is hashed again. Hashes recorded together, ie. for the files of a
+ * batch, are written to disk at once.
+ */
+@Singleton
+public class FileHashStore {
+    private static final String STORE_FILE_NAME = "fileHashes.json";
+    private static final int MAX_ENTRIES = 1000;
+    private static final long WRITE_DELAY_MS = 1000;
+    private static final Type HASHES_TYPE = new TypeToken<LinkedHashMap<String, String>>() {}.getType();
+
+    private final Gson gson;
+    private final File storeFile;
+    private LinkedHashMap<String, String> hashes;
+    private boolean writeScheduled;
+
+    @Inject
+    FileHashStore(Context context, Gson gson) {
+        this.gson = gson;
+        this.storeFile = new File(context.getCacheDir(), STORE_FILE_NAME);
+    }
+
+    /**
+     * Returns the SHA1 of a file, hashing it only if it is not known yet
+     * @param file file to hash
+     * @return SHA1 as 40 hex characters, or null if the file could not be read
+     */
+    @Nullable
+    public String getSha1(File file) {
+        String key = getKey(file);
+        synchronized (this) {
+            String sha1 = getHashes().get(key);
+            if (sha1 != null) {
+                return sha1;
+            }
+        }
+        String sha1;
+        try {
+            sha1 = FileUtils.getSHA1(new FileInputStream(file));
+        } catch (FileNotFoundException e) {
+            Timber.e(e, "Could not hash %s", file);
+            return null;
+        }
+        if (sha1.isEmpty()) {
+            return null;
+        }
+        putSha1(file, sha1);
+        return sha1;
+    }
+
+    /**
+     * Records the SHA1 of a file computed elsewhere, for instance while it was copied
+     * @param file file that was hashed
+     * @param sha1 SHA1 as 40 hex characters
+     */
+    public synchronized void putSha1(File file, String sha1) {
+        Map<String, String> hashes = getHashes();
+        hashes.put(getKey(file), sha1);
+        // Entries are kept in insertion order, so the oldest are evicted first
+        Iterator<String> iterator = hashes.keySet().iterator();
+        while (hashes.size() > MAX_ENTRIES) {
+            iterator.next();
+            iterator.remove();
+        }
+        scheduleWrite();
+    }
+
+    /**
+     * Writes the recorded hashes to disk now rather than with the next scheduled write
+     */
+    synchronized void flush() {
+        writeScheduled = false;
+        write();
+    }
+
+    @SuppressLint("CheckResult")
+    private void scheduleWrite() {
+        if (writeScheduled) {
+            return;
+        }
+        writeScheduled = true;
+        Completable.timer(WRITE_DELAY_MS, TimeUnit.MILLISECONDS, Schedulers.io())
+                .subscribe(this::flush, Timber::e);
+    }
+
+    private static String getKey(File file) {
+        return file.getAbsolutePath() + "|" + file.length() + "|" + file.lastModified();
+    }
+
+    private LinkedHashMap<String, String> getHashes() {
+        if (hashes == null) {
+            hashes = read();
+        }
+        return hashes;
+    }
+
+    private LinkedHashMap<String, String> read() {
+        LinkedHashMap<String, String> hashes = new LinkedHashMap<>();
+        if (!storeFile.exists()) {
+            return hashes;
+        }
+        try (Reader reader = new InputStreamReader(new FileInputStream(storeFile), StandardCharsets.UTF_8)) {
+            Map<String, String> entries = gson.fromJson(reader, HASHES_TYPE);
+            if (entries != null) {
+                hashes.putAll(entries);
+            }
+        } catch (IOException | JsonParseException e) {
+            Timber.e(e, "Could not read file hashes");
+            storeFile.delete();
+        }
+        return hashes;
+    }
+
+    private void write() {
+        File tempFile = new File(storeFile.getPath() + ".tmp");
+        try (Writer writer = new OutputStreamWriter(new FileOutputStream(tempFile), StandardCharsets.UTF_8)) {
+            gson.toJson(hashes, HASHES_TYPE, writer);
+        } catch (IOException e) {
+            Timber.e(e, "Could not write file hashes");
+            tempFile.delete();
+            return;
+        }
+        if (!tempFile.renameTo(storeFile)) {
+            tempFile.delete();
+        }
+    }
+}
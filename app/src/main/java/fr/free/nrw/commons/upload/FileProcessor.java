@@ -1,19 +1,18 @@
 package fr.free.nrw.commons.upload;
 
 import android.annotation.SuppressLint;
-import android.content.ContentResolver;
 import android.content.Context;
-import android.net.Uri;
 import androidx.annotation.NonNull;
 
 import fr.free.nrw.commons.upload.SimilarImageDialogFragment.Callback;
-import java.io.File;
 import java.io.IOException;
 import java.lang.reflect.Type;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import javax.inject.Inject;
 import javax.inject.Named;
@@ -28,9 +27,7 @@ import fr.free.nrw.commons.caching.CacheController;
 import fr.free.nrw.commons.kvstore.JsonKvStore;
 import fr.free.nrw.commons.mwapi.CategoryApi;
 import fr.free.nrw.commons.settings.Prefs;
-import io.reactivex.Observable;
 import io.reactivex.disposables.CompositeDisposable;
-import io.reactivex.disposables.Disposable;
 import io.reactivex.schedulers.Schedulers;
 import timber.log.Timber;
 
@@ -38,7 +35,7 @@ import timber.log.Timber;
  * Processing of the image filePath that is about to be uploaded via ShareActivity is done here
  */
 @Singleton
-public class FileProcessor implements Callback {
+public class FileProcessor {
 
     @Inject
     CacheController cacheController;
@@ -47,16 +44,16 @@ public class FileProcessor implements Callback {
     @Inject
     CategoryApi apiCall;
     @Inject
+    ImageFactsReader imageFactsReader;
+    @Inject
+    GalleryTimeline galleryTimeline;
+    @Inject
     @Named("default_preferences")
     JsonKvStore defaultKvStore;
-    private String filePath;
-    private ContentResolver contentResolver;
-    private GPSExtractor imageObj;
-    private String decimalCoords;
-    private ExifInterface exifInterface;
-    private boolean haveCheckedForOtherImages = false;
-    private GPSExtractor tempImageObj;
     private CompositeDisposable compositeDisposable = new CompositeDisposable();
+    // Files of a batch are copies in the same folder, so only the first one is checked for similar
+    // images, otherwise every file would offer the others
+    private final AtomicBoolean haveCheckedForOtherImages = new AtomicBoolean(false);
 
     @Inject
     public FileProcessor() {
@@ -64,37 +61,40 @@ public class FileProcessor implements Callback {
 
     public void cleanup() {
         compositeDisposable.clear();
-    }
-
-    void initFileDetails(@NonNull String filePath, ContentResolver contentResolver) {
-        this.filePath = filePath;
-        this.contentResolver = contentResolver;
-        try {
-            exifInterface = new ExifInterface(filePath);
-        } catch (IOException e) {
-            Timber.e(e);
-        }
+        haveCheckedForOtherImages.set(false);
     }
 
     /**
-     * Processes filePath coordinates, either from EXIF data or user location
+     * Processes filePath coordinates, either from EXIF data or user location. The state of each
+     * file is kept apart, so that several files can be processed at the same time.
+     * @return the processing context of the file
      */
-    GPSExtractor processFileCoordinates(SimilarImageInterface similarImageInterface, Context context) {
+    FileContext processFileCoordinates(@NonNull String filePath,
+            SimilarImageInterface similarImageInterface, Context context) {
         // Redact EXIF data as indicated in preferences.
-        redactExifTags(exifInterface, getExifTagsToRedact(context));
+        Set<String> redactTags = getExifTagsToRedact(context);
+        boolean rewritten = false;
+        if (!redactTags.isEmpty()) {
+            try {
+                rewritten = redactExifTags(new ExifInterface(filePath), redactTags);
+            } catch (IOException e) {
+                Timber.e(e);
+            }
+        }
 
+        // Metadata is read after redaction, and shared with the checks made before upload
+        FileContext fileContext = new FileContext(filePath, imageFactsReader.getFacts(filePath), rewritten);
         Timber.d("Calling GPSExtractor");
-        imageObj = new GPSExtractor(exifInterface);
-        decimalCoords = imageObj.getCoords();
-        if (decimalCoords == null || !imageObj.imageCoordsExists) {
+        if (fileContext.decimalCoords == null || !fileContext.imageObj.imageCoordsExists) {
             //Find other photos taken around the same time which has gps coordinates
-            if (!haveCheckedForOtherImages)
-                findOtherImages(similarImageInterface);// Do not do repeat the process
+            if (haveCheckedForOtherImages.compareAndSet(false, true)) {
+                findOtherImages(fileContext, similarImageInterface);// Do not do repeat the process
+            }
         } else {
-            useImageCoords();
+            useImageCoords(fileContext);
         }
 
-        return imageObj;
+        return fileContext;
     }
 
     /**
@@ -117,73 +117,58 @@ public class FileProcessor implements Callback {
     }
 
     /**
-     * Redacts EXIF metadata as indicated in preferences.
+     * Redacts EXIF metadata as indicated in preferences. The file is only saved again if one of
+     * the tags had a value, so that files without such metadata keep their size and modification
+     * time.
      *
      * @param exifInterface  ExifInterface object
      * @param redactTags     tags to be redacted
+     * @return true if the file was rewritten
      */
-    public static void redactExifTags(ExifInterface exifInterface, Set<String> redactTags) {
-        if(redactTags.isEmpty()) return;
-
-         Disposable disposable = Observable.fromIterable(redactTags)
-                 .flatMap(tag -> Observable.fromArray(FileMetadataUtils.getTagsFromPref(tag)))
-                 .forEach(tag -> {
-                     Timber.d("Checking for tag: %s", tag);
-                     String oldValue = exifInterface.getAttribute(tag);
-                     if (oldValue != null && !oldValue.isEmpty()) {
-                         Timber.d("Exif tag %s with value %s redacted.", tag, oldValue);
-                         exifInterface.setAttribute(tag, null);
-                     }
-                 });
-         CompositeDisposable disposables = new CompositeDisposable();
-         disposables.add(disposable);
-         disposables.clear();
-
-         try {
-             exifInterface.saveAttributes();
+    public static boolean redactExifTags(ExifInterface exifInterface, Set<String> redactTags) {
+        if(redactTags.isEmpty()) return false;
+
+        boolean redacted = false;
+        for (String redactTag : redactTags) {
+            for (String tag : FileMetadataUtils.getTagsFromPref(redactTag)) {
+                Timber.d("Checking for tag: %s", tag);
+                String oldValue = exifInterface.getAttribute(tag);
+                if (oldValue != null && !oldValue.isEmpty()) {
+                    Timber.d("Exif tag %s with value %s redacted.", tag, oldValue);
+                    exifInterface.setAttribute(tag, null);
+                    redacted = true;
+                }
+            }
+        }
+        if (!redacted) {
+            return false;
+        }
+
+        try {
+            exifInterface.saveAttributes();
         } catch (IOException e) {
             Timber.w("EXIF redaction failed: %s", e.toString());
         }
+        // A failed save may still have changed the file
+        return true;
     }
 
     /**
-     * Find other images around the same location that were taken within the last 20 sec
+     * Find other images of the same folder having coordinates, taken within two minutes of the image
      * @param similarImageInterface
      */
-    private void findOtherImages(SimilarImageInterface similarImageInterface) {
+    private void findOtherImages(FileContext fileContext, SimilarImageInterface similarImageInterface) {
+        String filePath = fileContext.filePath;
         Timber.d("filePath" + filePath);
 
-        long timeOfCreation = new File(filePath).lastModified();//Time when the original image was created
-        File folder = new File(filePath.substring(0, filePath.lastIndexOf('/')));
-        File[] files = folder.listFiles();
-        Timber.d("folderTime Number:" + files.length);
-
-
-        for (File file : files) {
-            if (file.lastModified() - timeOfCreation <= (120 * 1000) && file.lastModified() - timeOfCreation >= -(120 * 1000)) {
-                //Make sure the photos were taken within 20seconds
-                Timber.d("fild date:" + file.lastModified() + " time of creation" + timeOfCreation);
-                tempImageObj = null;//Temporary GPSExtractor to extract coords from these photos
-                try {
-                    tempImageObj = new GPSExtractor(contentResolver.openInputStream(Uri.fromFile(file)));
-                } catch (Exception e) {
-                    e.printStackTrace();
-                }
-                if (tempImageObj != null) {
-                    tempImageObj = new GPSExtractor(file.getAbsolutePath());
-                }
-                if (tempImageObj != null) {
-                    Timber.d("not null fild EXIF" + tempImageObj.imageCoordsExists + " coords" + tempImageObj.getCoords());
-                    if (tempImageObj.getCoords() != null && tempImageObj.imageCoordsExists) {
-                        // Current image has gps coordinates and it's not current gps locaiton
-                        Timber.d("This filePath has image coords:" + file.getAbsolutePath());
-                        similarImageInterface.showSimilarImageFragment(filePath, file.getAbsolutePath());
-                        break;
-                    }
-                }
-            }
+        String similarFilePath = galleryTimeline.findGeotaggedNeighbour(filePath);
+        if (similarFilePath != null) {
+            //Temporary GPSExtractor to extract coords from this photo
+            fileContext.tempImageObj = new GPSExtractor(imageFactsReader.getFacts(similarFilePath));
+            // Current image has gps coordinates and it's not current gps locaiton
+            Timber.d("This filePath has image coords:" + similarFilePath);
+            similarImageInterface.showSimilarImageFragment(filePath, similarFilePath);
         }
-        haveCheckedForOtherImages = true; //Finished checking for other images
     }
 
     /**
@@ -191,19 +176,21 @@ public class FileProcessor implements Callback {
      * Then initiates the calls to MediaWiki API through an instance of CategoryApi.
      */
     @SuppressLint("CheckResult")
-    private void useImageCoords() {
+    private void useImageCoords(FileContext fileContext) {
+        String decimalCoords = fileContext.decimalCoords;
+        GPSExtractor imageObj = fileContext.imageObj;
         if (decimalCoords != null) {
             Timber.d("Decimal coords of image: %s", decimalCoords);
             Timber.d("is EXIF data present:" + imageObj.imageCoordsExists + " from findOther image");
 
-            // Only set cache for this point if image has coords
-            if (imageObj.imageCoordsExists) {
-                double decLongitude = imageObj.getDecLongitude();
-                double decLatitude = imageObj.getDecLatitude();
-                cacheController.setQtPoint(decLongitude, decLatitude);
+            // Only use the cache for this point if image has coords
+            List<String> displayCatList = Collections.emptyList();
+            double decLatitude = imageObj.getDecLatitude();
+            double decLongitude = imageObj.getDecLongitude();
+            boolean cacheable = imageObj.imageCoordsExists;
+            if (cacheable) {
+                displayCatList = cacheController.findCategory(decLatitude, decLongitude);
             }
-
-            List<String> displayCatList = cacheController.findCategory();
             boolean catListEmpty = displayCatList.isEmpty();
 
 
@@ -213,7 +200,12 @@ public class FileProcessor implements Callback {
                         .subscribeOn(Schedulers.io())
                         .observeOn(Schedulers.io())
                         .subscribe(
-                                gpsCategoryModel::setCategoryList,
+                                categories -> {
+                                    gpsCategoryModel.setCategoryList(categories);
+                                    if (cacheable) {
+                                        cacheController.cacheCategory(decLatitude, decLongitude, categories);
+                                    }
+                                },
                                 throwable -> {
                                     Timber.e(throwable);
                                     gpsCategoryModel.clear();
@@ -229,17 +221,53 @@ public class FileProcessor implements Callback {
         }
     }
 
-    @Override
-    public void onPositiveResponse() {
-        imageObj = tempImageObj;
-        decimalCoords = imageObj.getCoords();// Not necessary to use gps as image already ha EXIF data
-        Timber.d("EXIF from tempImageObj");
-        useImageCoords();
-    }
+    /**
+     * Metadata and coordinates of one file being processed
+     */
+    class FileContext implements Callback {
+        private final String filePath;
+        private final ImageFacts imageFacts;
+        private GPSExtractor imageObj;
+        private String decimalCoords;
+        private GPSExtractor tempImageObj;
+        private final boolean rewritten;
+
+        private FileContext(String filePath, ImageFacts imageFacts, boolean rewritten) {
+            this.filePath = filePath;
+            this.imageFacts = imageFacts;
+            this.rewritten = rewritten;
+            this.imageObj = new GPSExtractor(imageFacts);
+            this.decimalCoords = imageObj.getCoords();
+        }
 
-    @Override
-    public void onNegativeResponse() {
-        Timber.d("EXIF from imageObj");
-        useImageCoords();
+        ImageFacts getImageFacts() {
+            return imageFacts;
+        }
+
+        GPSExtractor getGpsExtractor() {
+            return imageObj;
+        }
+
+        /**
+         * Returns whether the file was saved again to redact its metadata, so that its content
+         * differs from what was copied
+         */
+        boolean isRewritten() {
+            return rewritten;
+        }
+
+        @Override
+        public void onPositiveResponse() {
+            imageObj = tempImageObj;
+            decimalCoords = imageObj.getCoords();// Not necessary to use gps as image already ha EXIF data
+            Timber.d("EXIF from tempImageObj");
+            useImageCoords(this);
+        }
+
+        @Override
+        public void onNegativeResponse() {
+            Timber.d("EXIF from imageObj");
+            useImageCoords(this);
+        }
     }
-}
\ No newline at end of file
+}
@@ -16,7 +16,6 @@ import java.math.BigInteger;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 
-import androidx.exifinterface.media.ExifInterface;
 import timber.log.Timber;
 
 public class FileUtils {
@@ -40,11 +39,7 @@ public class FileUtils {
             while ((read = is.read(buffer)) > 0) {
                 digest.update(buffer, 0, read);
             }
-            byte[] md5sum = digest.digest();
-            BigInteger bigInt = new BigInteger(1, md5sum);
-            String output = bigInt.toString(16);
-            // Fill to 40 chars
-            output = String.format("%40s", output).replace(' ', '0');
+            String output = formatSHA1(digest.digest());
             Timber.i("File SHA1: %s", output);
 
             return output;
@@ -61,25 +56,14 @@ public class FileUtils {
     }
 
     /**
-     * Get Geolocation of filePath from input filePath path
+     * Formats a SHA1 digest as 40 hex characters
      */
-    static String getGeolocationOfFile(String filePath) {
-
-        try {
-            ExifInterface exifInterface = new ExifInterface(filePath);
-            GPSExtractor imageObj = new GPSExtractor(exifInterface);
-            if (imageObj.imageCoordsExists) { // If image has geolocation information in its EXIF
-                return imageObj.getCoords();
-            } else {
-                return "";
-            }
-        } catch (IOException e) {
-            e.printStackTrace();
-            return "";
-        }
+    public static String formatSHA1(byte[] sha1) {
+        String output = new BigInteger(1, sha1).toString(16);
+        // Fill to 40 chars
+        return String.format("%40s", output).replace(' ', '0');
     }
 
-
     /**
      * Read and return the content of a resource filePath as string.
      *
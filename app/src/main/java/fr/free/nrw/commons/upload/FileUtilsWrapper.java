@@ -1,5 +1,6 @@
 package fr.free.nrw.commons.upload;
 
+import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.InputStream;
@@ -10,6 +11,11 @@ import javax.inject.Singleton;
 @Singleton
 public class FileUtilsWrapper {
 
+    @Inject
+    ImageFactsReader imageFactsReader;
+    @Inject
+    FileHashStore fileHashStore;
+
     @Inject
     public FileUtilsWrapper() {
 
@@ -23,11 +29,25 @@ public class FileUtilsWrapper {
         return FileUtils.getSHA1(is);
     }
 
+    /**
+     * Get SHA1 of a file, hashed once and then reused while the file is unchanged
+     * @return SHA1 of the file, empty if it could not be read
+     */
+    public String getFileSHA1(String filePath) {
+        String sha1 = fileHashStore.getSha1(new File(filePath));
+        return sha1 == null ? "" : sha1;
+    }
+
     public FileInputStream getFileInputStream(String filePath) throws FileNotFoundException {
         return FileUtils.getFileInputStream(filePath);
     }
 
+    /**
+     * Get Geolocation of filePath from input filePath path
+     * @return coordinates as "latitude|longitude", empty if the EXIF has no location
+     */
     public String getGeolocationOfFile(String filePath) {
-        return FileUtils.getGeolocationOfFile(filePath);
+        String coords = imageFactsReader.getFacts(filePath).getCoords();
+        return coords == null ? "" : coords;
     }
 }
@@ -3,9 +3,6 @@ package fr.free.nrw.commons.upload;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 
-import java.io.IOException;
-import java.io.InputStream;
-
 import androidx.exifinterface.media.ExifInterface;
 import timber.log.Timber;
 
@@ -32,25 +29,14 @@ public class GPSExtractor {
 
     }
     /**
-     * Construct from a stream.
+     * Construct from the metadata read once for the image.
+     * @param imageFacts metadata of the image
      */
-    GPSExtractor(@NonNull InputStream stream) throws IOException {
-        ExifInterface exif = new ExifInterface(stream);
-        processCoords(exif);
-    }
-
-    /**
-     * Construct from the file path of the image.
-     * @param path file path of the image
-     *
-     */
-    GPSExtractor(@NonNull String path) {
-        try {
-            ExifInterface exif = new ExifInterface(path);
-            processCoords(exif);
-        } catch (IOException | IllegalArgumentException e) {
-            Timber.w(e);
-        }
+    GPSExtractor(@NonNull ImageFacts imageFacts) {
+        decimalCoords = imageFacts.getCoords();
+        imageCoordsExists = decimalCoords != null;
+        decLatitude = imageFacts.getDecLatitude();
+        decLongitude = imageFacts.getDecLongitude();
     }
 
     /**
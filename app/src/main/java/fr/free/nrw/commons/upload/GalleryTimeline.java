@@ -0,0 +1,211 @@
+package fr.free.nrw.commons.upload;
+
+import android.content.Context;
+import android.database.Cursor;
+import android.os.Build;
+import android.provider.MediaStore;
+
+import androidx.annotation.Nullable;
+import androidx.collection.LruCache;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+import timber.log.Timber;
+
+/**
+ * Finds geotagged images taken around the same time as an image, in the same folder. Folders
+ * indexed by the media store are queried by date taken, other folders are listed once and kept
+ * sorted by modification time until they change.
+ */
+@Singleton
+public class GalleryTimeline {
+    private static final long TIME_WINDOW = 120 * 1000; // in milliseconds, either way
+    private static final int MAX_CACHED_FOLDERS = 4;
+    // Location columns of the media store are not filled anymore from Android 10
+    private static final boolean HAS_LOCATION_COLUMNS = Build.VERSION.SDK_INT < 29;
+
+    private final Context context;
+    private final ImageFactsReader imageFactsReader;
+    private final LruCache<String, FolderTimeline> folderTimelines = new LruCache<>(MAX_CACHED_FOLDERS);
+
+    @Inject
+    GalleryTimeline(Context context, ImageFactsReader imageFactsReader) {
+        this.context = context;
+        this.imageFactsReader = imageFactsReader;
+    }
+
+    /**
+     * Returns an image of the same folder having coordinates, taken within two minutes of an image
+     * @param filePath path of the image
+     * @return path of the closest image in time having coordinates, null if there is none
+     */
+    @Nullable
+    public String findGeotaggedNeighbour(String filePath) {
+        File file = new File(filePath);
+        File folder = file.getParentFile();
+        if (folder == null) {
+            return null;
+        }
+        List<String> candidates = queryMediaStore(file, folder);
+        if (candidates == null) {
+            candidates = getFolderTimeline(folder).getNeighbours(file);
+        }
+        for (String candidate : candidates) {
+            if (imageFactsReader.getFacts(candidate).getCoords() != null) {
+                Timber.d("Found geotagged image %s close to %s", candidate, filePath);
+                return candidate;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns the images of the folder taken around the same time, closest first, or null if the
+     * image is not known to the media store
+     */
+    @Nullable
+    private List<String> queryMediaStore(File file, File folder) {
+        Long dateTaken = null;
+        try (Cursor cursor = context.getContentResolver().query(
+                MediaStore.Images.Media.EXTERNAL_CONTENT_URI,
+                new String[]{MediaStore.Images.ImageColumns.DATE_TAKEN},
+                MediaStore.Images.ImageColumns.DATA + " = ?",
+                new String[]{file.getAbsolutePath()}, null)) {
+            if (cursor != null && cursor.moveToFirst() && !cursor.isNull(0)) {
+                dateTaken = cursor.getLong(0);
+            }
+        } catch (RuntimeException e) {
+            Timber.e(e, "Could not query the media store");
+        }
+        if (dateTaken == null) {
+            return null;
+        }
+
+        String selection = MediaStore.Images.ImageColumns.DATA + " LIKE ? AND "
+                + MediaStore.Images.ImageColumns.DATA + " != ? AND "
+                + MediaStore.Images.ImageColumns.DATE_TAKEN + " BETWEEN ? AND ?";
+        if (HAS_LOCATION_COLUMNS) {
+            selection += " AND " + MediaStore.Images.ImageColumns.LATITUDE + " IS NOT NULL AND "
+                    + MediaStore.Images.ImageColumns.LONGITUDE + " IS NOT NULL";
+        }
+        List<String> paths = new ArrayList<>();
+        List<Long> distances = new ArrayList<>();
+        try (Cursor cursor = context.getContentResolver().query(
+                MediaStore.Images.Media.EXTERNAL_CONTENT_URI,
+                new String[]{MediaStore.Images.ImageColumns.DATA,
+                        MediaStore.Images.ImageColumns.DATE_TAKEN},
+                selection,
+                new String[]{folder.getAbsolutePath() + "/%", file.getAbsolutePath(),
+                        String.valueOf(dateTaken - TIME_WINDOW),
+                        String.valueOf(dateTaken + TIME_WINDOW)},
+                null)) {
+            if (cursor == null) {
+                return null;
+            }
+            while (cursor.moveToNext()) {
+                String path = cursor.getString(0);
+                // Images of sub folders are left out, as they are when listing the folder
+                if (path != null && folder.equals(new File(path).getParentFile())) {
+                    paths.add(path);
+                    distances.add(Math.abs(cursor.getLong(1) - dateTaken));
+                }
+            }
+        } catch (RuntimeException e) {
+            Timber.e(e, "Could not query the media store");
+            return null;
+        }
+        return sortByDistance(paths, distances);
+    }
+
+    private synchronized FolderTimeline getFolderTimeline(File folder) {
+        String key = folder.getAbsolutePath();
+        FolderTimeline timeline = folderTimelines.get(key);
+        // A folder is modified when files are added to or removed from it
+        if (timeline == null || timeline.folderModified != folder.lastModified()) {
+            timeline = new FolderTimeline(folder);
+            folderTimelines.put(key, timeline);
+        }
+        return timeline;
+    }
+
+    private static List<String> sortByDistance(List<String> paths, List<Long> distances) {
+        Integer[] order = new Integer[paths.size()];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (first, second) -> Long.compare(distances.get(first), distances.get(second)));
+        List<String> sorted = new ArrayList<>(order.length);
+        for (int index : order) {
+            sorted.add(paths.get(index));
+        }
+        return sorted;
+    }
+
+    /**
+     * Files of a folder sorted by modification time
+     */
+    private static class FolderTimeline {
+        private final long folderModified;
+        private final long[] times;
+        private final String[] paths;
+
+        FolderTimeline(File folder) {
+            folderModified = folder.lastModified();
+            File[] files = folder.listFiles();
+            if (files == null) {
+                files = new File[0];
+            }
+            long[] fileTimes = new long[files.length];
+            for (int i = 0; i < files.length; i++) {
+                fileTimes[i] = files[i].isFile() ? files[i].lastModified() : Long.MIN_VALUE;
+            }
+            Integer[] order = new Integer[files.length];
+            for (int i = 0; i < order.length; i++) {
+                order[i] = i;
+            }
+            Arrays.sort(order, (first, second) -> Long.compare(fileTimes[first], fileTimes[second]));
+            times = new long[files.length];
+            paths = new String[files.length];
+            for (int i = 0; i < order.length; i++) {
+                times[i] = fileTimes[order[i]];
+                paths[i] = files[order[i]].getAbsolutePath();
+            }
+            Timber.d("Listed %d files of %s", files.length, folder);
+        }
+
+        /**
+         * Returns the other files modified around the same time as a file, closest first
+         */
+        List<String> getNeighbours(File file) {
+            long time = file.lastModified();
+            if (time == 0) {
+                return Collections.emptyList();
+            }
+            int index = Arrays.binarySearch(times, time - TIME_WINDOW);
+            if (index < 0) {
+                index = -index - 1;
+            }
+            // Equal times may precede the one found
+            while (index > 0 && times[index - 1] >= time - TIME_WINDOW) {
+                index--;
+            }
+            String filePath = file.getAbsolutePath();
+            List<String> neighbours = new ArrayList<>();
+            List<Long> distances = new ArrayList<>();
+            for (; index < times.length && times[index] <= time + TIME_WINDOW; index++) {
+                if (!paths[index].equals(filePath)) {
+                    neighbours.add(paths[index]);
+                    distances.add(Math.abs(times[index] - time));
+                }
+            }
+            return sortByDistance(neighbours, distances);
+        }
+    }
+}
@@ -8,6 +8,10 @@ import java.util.Set;
 import javax.inject.Inject;
 import javax.inject.Singleton;
 
+/**
+ * Categories suggested for the location of the images being uploaded. Images are processed on
+ * worker threads, so access is synchronized.
+ */
 @Singleton
 public class GpsCategoryModel {
     private Set<String> categorySet;
@@ -17,24 +21,24 @@ public class GpsCategoryModel {
         clear();
     }
 
-    public void clear() {
+    public synchronized void clear() {
         categorySet = new HashSet<>();
     }
 
-    public boolean getGpsCatExists() {
+    public synchronized boolean getGpsCatExists() {
         return !categorySet.isEmpty();
     }
 
-    public List<String> getCategoryList() {
+    public synchronized List<String> getCategoryList() {
         return new ArrayList<>(categorySet);
     }
 
-    public void setCategoryList(List<String> categoryList) {
+    public synchronized void setCategoryList(List<String> categoryList) {
         clear();
         categorySet.addAll(categoryList != null ? categoryList : new ArrayList<>());
     }
 
-    public void add(String categoryString) {
+    public synchronized void add(String categoryString) {
         categorySet.add(categoryString);
     }
 }
@@ -0,0 +1,82 @@
+package fr.free.nrw.commons.upload;
+
+import java.util.Date;
+
+import androidx.annotation.Nullable;
+
+/**
+ * Metadata of an image read in a single pass by {@link ImageFactsReader}, and shared by the
+ * checks made before uploading it.
+ */
+public class ImageFacts {
+    private final boolean hasExif;
+    private final boolean fbmd;
+    @Nullable
+    private final String coords;
+    private final double decLatitude;
+    private final double decLongitude;
+    @Nullable
+    private final Date captureDate;
+    @Nullable
+    private final byte[] thumbnail;
+
+    ImageFacts(boolean hasExif, boolean fbmd, @Nullable String coords,
+               double decLatitude, double decLongitude,
+               @Nullable Date captureDate, @Nullable byte[] thumbnail) {
+        this.hasExif = hasExif;
+        this.fbmd = fbmd;
+        this.coords = coords;
+        this.decLatitude = decLatitude;
+        this.decLongitude = decLongitude;
+        this.captureDate = captureDate;
+        this.thumbnail = thumbnail;
+    }
+
+    /**
+     * Whether the image has EXIF directories, which images downloaded from the internet usually
+     * lack
+     */
+    public boolean hasExif() {
+        return hasExif;
+    }
+
+    /**
+     * Whether the IPTC metadata of the image shows it was downloaded from Facebook
+     */
+    public boolean isFbmd() {
+        return fbmd;
+    }
+
+    /**
+     * Coordinates of the image as "latitude|longitude", or null if its EXIF has no location
+     */
+    @Nullable
+    public String getCoords() {
+        return coords;
+    }
+
+    public double getDecLatitude() {
+        return decLatitude;
+    }
+
+    public double getDecLongitude() {
+        return decLongitude;
+    }
+
+    /**
+     * Date the picture was taken according to its EXIF, or null if unknown
+     */
+    @Nullable
+    public Date getCaptureDate() {
+        return captureDate == null ? null : new Date(captureDate.getTime());
+    }
+
+    /**
+     * JPEG thumbnail embedded in the EXIF, or null if there is none. The array must not be
+     * modified.
+     */
+    @Nullable
+    public byte[] getThumbnail() {
+        return thumbnail;
+    }
+}
@@ -0,0 +1,205 @@
+package fr.free.nrw.commons.upload;
+
+import com.drew.imaging.ImageMetadataReader;
+import com.drew.imaging.ImageProcessingException;
+import com.drew.metadata.Metadata;
+import com.drew.metadata.Tag;
+import com.drew.metadata.exif.ExifIFD0Directory;
+import com.drew.metadata.exif.ExifSubIFDDirectory;
+import com.drew.metadata.exif.ExifThumbnailDirectory;
+import com.drew.metadata.iptc.IptcDirectory;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Date;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.collection.LruCache;
+import androidx.exifinterface.media.ExifInterface;
+import timber.log.Timber;
+
+/**
+ * Reads the metadata of images to be uploaded into {@link ImageFacts}. For JPEG files, the
+ * segments before the image data are read once and both metadata parsers work on that copy.
+ * Facts are cached until the file changes, ie. after its EXIF is redacted.
+ */
+@Singleton
+public class ImageFactsReader {
+    private static final int CACHE_SIZE = 64;
+    private static final int MAX_HEADER_SIZE = 1024 * 1024;
+    private static final int MARKER_SOI = 0xD8;
+    private static final int MARKER_SOS = 0xDA;
+    private static final int MARKER_EOI = 0xD9;
+
+    private final LruCache<String, CachedFacts> cache = new LruCache<>(CACHE_SIZE);
+
+    @Inject
+    public ImageFactsReader() {
+    }
+
+    /**
+     * Returns the metadata of an image, reading it only if the file changed since the last call
+     * @param filePath path of the image
+     * @return metadata of the image, without any value if it could not be read
+     */
+    @NonNull
+    public ImageFacts getFacts(@NonNull String filePath) {
+        File file = new File(filePath);
+        long length = file.length();
+        long lastModified = file.lastModified();
+        CachedFacts cachedFacts = cache.get(filePath);
+        if (cachedFacts != null && cachedFacts.length == length
+                && cachedFacts.lastModified == lastModified) {
+            return cachedFacts.facts;
+        }
+        long millis = System.currentTimeMillis();
+        ImageFacts facts = readFacts(file);
+        Timber.d("Reading metadata of %s took %d ms", filePath, System.currentTimeMillis() - millis);
+        cache.put(filePath, new CachedFacts(length, lastModified, facts));
+        return facts;
+    }
+
+    private static ImageFacts readFacts(File file) {
+        byte[] header = null;
+        try {
+            header = readJpegHeader(file);
+        } catch (IOException e) {
+            Timber.d(e, "Could not read JPEG segments of %s", file);
+        }
+
+        Metadata metadata = null;
+        try (InputStream inputStream = header != null ? new ByteArrayInputStream(header)
+                : new BufferedInputStream(new FileInputStream(file))) {
+            metadata = ImageMetadataReader.readMetadata(inputStream);
+        } catch (ImageProcessingException | IOException e) {
+            Timber.d(e, "Could not read metadata of %s", file);
+        }
+
+        ExifInterface exif = null;
+        try {
+            exif = header != null ? new ExifInterface(new ByteArrayInputStream(header))
+                    : new ExifInterface(file.getPath());
+        } catch (IOException | RuntimeException e) {
+            Timber.d(e, "Could not read EXIF of %s", file);
+        }
+
+        boolean hasExif = false;
+        boolean fbmd = false;
+        Date captureDate = null;
+        if (metadata != null) {
+            // In case of internet downloaded image these directories are not present
+            hasExif = metadata.containsDirectoryOfType(ExifIFD0Directory.class)
+                    || metadata.containsDirectoryOfType(ExifSubIFDDirectory.class)
+                    || metadata.containsDirectoryOfType(ExifThumbnailDirectory.class);
+            fbmd = isFbmd(metadata.getFirstDirectoryOfType(IptcDirectory.class));
+            ExifSubIFDDirectory directory = metadata.getFirstDirectoryOfType(ExifSubIFDDirectory.class);
+            if (directory != null && directory.containsTag(ExifSubIFDDirectory.TAG_DATETIME_ORIGINAL)) {
+                captureDate = directory.getDate(ExifSubIFDDirectory.TAG_DATETIME_ORIGINAL);
+            }
+        }
+
+        String coords = null;
+        double decLatitude = 0;
+        double decLongitude = 0;
+        byte[] thumbnail = null;
+        if (exif != null) {
+            try {
+                GPSExtractor gpsExtractor = new GPSExtractor(exif);
+                if (gpsExtractor.imageCoordsExists) {
+                    coords = gpsExtractor.getCoords();
+                    decLatitude = gpsExtractor.getDecLatitude();
+                    decLongitude = gpsExtractor.getDecLongitude();
+                }
+            } catch (RuntimeException e) {
+                Timber.d(e, "Invalid EXIF location in %s", file);
+                coords = null;
+            }
+            thumbnail = exif.getThumbnail();
+        }
+        return new ImageFacts(hasExif, fbmd, coords, decLatitude, decLongitude, captureDate, thumbnail);
+    }
+
+    /**
+     * Facebook downloaded images contain IPTC special instructions starting with FBMD
+     */
+    private static boolean isFbmd(@Nullable IptcDirectory iptcDirectory) {
+        if (iptcDirectory == null) {
+            return false;
+        }
+        for (Tag tag : iptcDirectory.getTags()) {
+            String description = tag.getDescription();
+            if (tag.getTagName().equals("Special Instructions")
+                    && description != null && description.startsWith("FBMD")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Copies the segments of a JPEG file which come before its image data, where the metadata is
+     * @param file image file
+     * @return the segments, or null if the file is not a JPEG or they are unusually large
+     * @throws IOException if the file could not be read
+     */
+    @Nullable
+    static byte[] readJpegHeader(File file) throws IOException {
+        try (DataInputStream inputStream = new DataInputStream(
+                new BufferedInputStream(new FileInputStream(file)))) {
+            if (inputStream.readUnsignedByte() != 0xFF
+                    || inputStream.readUnsignedByte() != MARKER_SOI) {
+                return null;
+            }
+            ByteArrayOutputStream header = new ByteArrayOutputStream(64 * 1024);
+            header.write(0xFF);
+            header.write(MARKER_SOI);
+            while (header.size() < MAX_HEADER_SIZE) {
+                if (inputStream.readUnsignedByte() != 0xFF) {
+                    return null;
+                }
+                int marker = inputStream.readUnsignedByte();
+                while (marker == 0xFF) {
+                    // Markers may be preceded by fill bytes
+                    marker = inputStream.readUnsignedByte();
+                }
+                header.write(0xFF);
+                header.write(marker);
+                if (marker == MARKER_SOS || marker == MARKER_EOI) {
+                    return header.toByteArray();
+                }
+                int length = inputStream.readUnsignedShort();
+                if (length < 2) {
+                    return null;
+                }
+                header.write(length >> 8);
+                header.write(length & 0xFF);
+                byte[] segment = new byte[length - 2];
+                inputStream.readFully(segment);
+                header.write(segment);
+            }
+            return null;
+        }
+    }
+
+    private static class CachedFacts {
+        final long length;
+        final long lastModified;
+        final ImageFacts facts;
+
+        CachedFacts(long length, long lastModified, ImageFacts facts) {
+            this.length = length;
+            this.lastModified = lastModified;
+            this.facts = facts;
+        }
+    }
+}
@@ -1,12 +1,7 @@
 package fr.free.nrw.commons.upload;
 
-import android.content.Context;
-import android.net.Uri;
-
 import org.apache.commons.lang3.StringUtils;
 
-import java.io.IOException;
-
 import javax.inject.Inject;
 import javax.inject.Singleton;
 
@@ -34,25 +29,25 @@ public class ImageProcessingService {
     private final MediaWikiApi mwApi;
     private final ReadFBMD readFBMD;
     private final EXIFReader EXIFReader;
-    private final Context context;
+    private final UploadedHashIndex uploadedHashIndex;
 
     @Inject
     public ImageProcessingService(FileUtilsWrapper fileUtilsWrapper,
                                   ImageUtilsWrapper imageUtilsWrapper,
                                   MediaWikiApi mwApi, ReadFBMD readFBMD, EXIFReader EXIFReader,
-                                  Context context) {
+                                  UploadedHashIndex uploadedHashIndex) {
         this.fileUtilsWrapper = fileUtilsWrapper;
         this.imageUtilsWrapper = imageUtilsWrapper;
         this.mwApi = mwApi;
         this.readFBMD = readFBMD;
         this.EXIFReader = EXIFReader;
-        this.context = context;
+        this.uploadedHashIndex = uploadedHashIndex;
     }
 
     /**
      * Check image quality before upload
      * - checks duplicate image
-     * - checks dark image
+     * - checks dark or blurry image
      * - checks geolocation for image
      * - check for valid title
      */
@@ -64,12 +59,11 @@ public class ImageProcessingService {
         }
         Timber.d("Checking the validity of image");
         String filePath = uploadItem.getMediaUri().getPath();
-        Uri contentUri=uploadItem.getContentUri();
         Single<Integer> duplicateImage = checkDuplicateImage(filePath);
         Single<Integer> wrongGeoLocation = checkImageGeoLocation(uploadItem.getPlace(), filePath);
         Single<Integer> darkImage = checkDarkImage(filePath);
         Single<Integer> itemTitle = checkTitle ? validateItemTitle(uploadItem) : Single.just(ImageUtils.IMAGE_OK);
-        Single<Integer> checkFBMD = checkFBMD(context,contentUri);
+        Single<Integer> checkFBMD = checkFBMD(filePath);
         Single<Integer> checkEXIF = checkEXIF(filePath);
 
         Single<Integer> zipResult = Single.zip(duplicateImage, wrongGeoLocation, darkImage, itemTitle,
@@ -93,12 +87,8 @@ public class ImageProcessingService {
      * Thus we successfully protect common's from Facebook's copyright violation
      */
 
-    public Single<Integer> checkFBMD(Context context,Uri contentUri) {
-        try {
-            return readFBMD.processMetadata(context,contentUri);
-        } catch (IOException e) {
-            return Single.just(ImageUtils.FILE_FBMD);
-        }
+    public Single<Integer> checkFBMD(String filePath) {
+        return readFBMD.processMetadata(filePath);
     }
 
     /**
@@ -136,17 +126,15 @@ public class ImageProcessingService {
     }
 
     /**
-     * Checks for duplicate image
+     * Checks for duplicate image, among the user's own uploads first and then on the server
      *
      * @param filePath file to be checked
      * @return IMAGE_DUPLICATE or IMAGE_OK
      */
     private Single<Integer> checkDuplicateImage(String filePath) {
         Timber.d("Checking for duplicate image %s", filePath);
-        return Single.fromCallable(() ->
-                fileUtilsWrapper.getFileInputStream(filePath))
-                .map(fileUtilsWrapper::getSHA1)
-                .map(mwApi::existingFile)
+        return Single.fromCallable(() -> fileUtilsWrapper.getFileSHA1(filePath))
+                .map(sha1 -> uploadedHashIndex.contains(sha1) || mwApi.existingFile(sha1))
                 .map(b -> {
                     Timber.d("Result for duplicate image %s", b);
                     return b ? ImageUtils.IMAGE_DUPLICATE : ImageUtils.IMAGE_OK;
@@ -154,14 +142,14 @@ public class ImageProcessingService {
     }
 
     /**
-     * Checks for dark image
+     * Checks for dark or blurry image
      *
      * @param filePath file to be checked
-     * @return IMAGE_DARK or IMAGE_OK
+     * @return IMAGE_DARK, IMAGE_BLURRY or IMAGE_OK
      */
     private Single<Integer> checkDarkImage(String filePath) {
-        Timber.d("Checking for dark image %s", filePath);
-        return imageUtilsWrapper.checkIfImageIsTooDark(filePath);
+        Timber.d("Checking for dark or blurry image %s", filePath);
+        return imageUtilsWrapper.checkIfImageIsDarkOrBlurry(filePath);
     }
 
     /**
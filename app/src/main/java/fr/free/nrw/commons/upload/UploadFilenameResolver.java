@@ -0,0 +1,157 @@
+package fr.free.nrw.commons.upload;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+import fr.free.nrw.commons.mwapi.MediaWikiApi;
+import timber.log.Timber;
+
+/**
+ * Finds free file names for uploads, appending a number to names that are taken. Candidate names
+ * of every file in the batch are checked together, and their existence is kept until the batch is
+ * finished.
+ */
+@Singleton
+public class UploadFilenameResolver {
+    private static final Pattern EXTENSION_PATTERN = Pattern.compile("^(.*)(\\..+?)$");
+    // Number of candidates checked at once for the file being named
+    private static final int CANDIDATE_WINDOW = 10;
+    // Candidates checked at once for each other file of the batch
+    private static final int BATCH_CANDIDATE_WINDOW = 3;
+    private static final int MAX_CANDIDATES_PER_QUERY = 50;
+
+    private final MediaWikiApi mwApi;
+    // Whether a name is taken, keyed by normalized name
+    private final Map<String, Boolean> existence = new HashMap<>();
+    private final Set<String> pendingFileNames = new LinkedHashSet<>();
+
+    @Inject
+    UploadFilenameResolver(MediaWikiApi mwApi) {
+        this.mwApi = mwApi;
+    }
+
+    /**
+     * Adds a file of the batch being uploaded, so that its name is checked along with the others
+     * @param fileName name the file should be given
+     */
+    public synchronized void addPendingFileName(String fileName) {
+        if (fileName != null) {
+            pendingFileNames.add(fileName);
+        }
+    }
+
+    /**
+     * Removes a file of the batch which won't be named, as its upload failed before finalization
+     * @param fileName name the file should have been given
+     */
+    public synchronized void removePendingFileName(String fileName) {
+        pendingFileNames.remove(fileName);
+    }
+
+    /**
+     * Forgets which names are taken once a batch is finished, as they may be taken by others before
+     * the next one
+     */
+    public synchronized void clearCheckedNames() {
+        existence.clear();
+    }
+
+    /**
+     * Returns the first free name among the name and its numbered variants, and keeps it from
+     * being given again
+     * @param fileName name the file should be given
+     * @param unavailable names of uploads which are not finished yet
+     * @return a name which is neither taken nor unavailable
+     * @throws IOException if the names could not be checked
+     */
+    public synchronized String findUniqueFilename(String fileName, Set<String> unavailable) throws IOException {
+        pendingFileNames.remove(fileName);
+        for (int sequenceNumber = 1; true; sequenceNumber++) {
+            String sequenceFileName = getSequenceFileName(fileName, sequenceNumber);
+            if (unavailable.contains(sequenceFileName)) {
+                continue;
+            }
+            Boolean taken = existence.get(normalize(sequenceFileName));
+            if (taken == null) {
+                checkCandidates(fileName, sequenceNumber);
+                taken = existence.get(normalize(sequenceFileName));
+            } else if (!taken && mwApi.fileExistsWithName(sequenceFileName)) {
+                // Checked earlier in the batch, and taken by someone else since
+                existence.put(normalize(sequenceFileName), true);
+                taken = true;
+            }
+            if (!Boolean.TRUE.equals(taken)) {
+                // Taken from now on, whether or not the upload succeeds
+                existence.put(normalize(sequenceFileName), true);
+                return sequenceFileName;
+            }
+        }
+    }
+
+    /**
+     * Checks the next candidates for a name, and the first ones for the other files of the batch
+     */
+    private void checkCandidates(String fileName, int firstSequenceNumber) throws IOException {
+        List<String> candidates = new ArrayList<>();
+        addUnknownCandidates(candidates, fileName, firstSequenceNumber, CANDIDATE_WINDOW);
+        for (String pendingFileName : pendingFileNames) {
+            if (candidates.size() + BATCH_CANDIDATE_WINDOW > MAX_CANDIDATES_PER_QUERY) {
+                break;
+            }
+            addUnknownCandidates(candidates, pendingFileName, 1, BATCH_CANDIDATE_WINDOW);
+        }
+
+        Set<String> existing = mwApi.getExistingFileNames(candidates);
+        for (String candidate : candidates) {
+            existence.put(normalize(candidate), existing.contains(candidate));
+        }
+        Timber.d("Checked %d file names, %d are taken", candidates.size(), existing.size());
+    }
+
+    private void addUnknownCandidates(List<String> candidates, String fileName, int firstSequenceNumber, int count) {
+        for (int sequenceNumber = firstSequenceNumber; sequenceNumber < firstSequenceNumber + count; sequenceNumber++) {
+            String candidate = getSequenceFileName(fileName, sequenceNumber);
+            if (!existence.containsKey(normalize(candidate)) && !candidates.contains(candidate)) {
+                candidates.add(candidate);
+            }
+        }
+    }
+
+    static String getSequenceFileName(String fileName, int sequenceNumber) {
+        if (sequenceNumber == 1) {
+            return fileName;
+        }
+        if (fileName.indexOf('.') == -1) {
+            // We really should have appended a filePath type suffix already.
+            // But... we might not.
+            return fileName + " " + sequenceNumber;
+        }
+        Matcher matcher = EXTENSION_PATTERN.matcher(fileName);
+        return matcher.replaceAll("$1 " + sequenceNumber + "$2");
+    }
+
+    /**
+     * Returns the name as a title of the wiki, with spaces for underscores and a capital first letter
+     */
+    private static String normalize(String fileName) {
+        String normalized = fileName.replace('_', ' ').trim();
+        if (normalized.isEmpty()) {
+            return normalized;
+        }
+        int firstCodePoint = normalized.codePointAt(0);
+        return new StringBuilder(normalized.length())
+                .appendCodePoint(Character.toUpperCase(firstCodePoint))
+                .append(normalized, Character.charCount(firstCodePoint), normalized.length())
+                .toString();
+    }
+}
@@ -7,6 +7,7 @@ import androidx.annotation.Nullable;
 import fr.free.nrw.commons.CommonsApplication;
 import fr.free.nrw.commons.Utils;
 import fr.free.nrw.commons.auth.SessionManager;
+import fr.free.nrw.commons.concurrency.ThreadPoolService;
 import fr.free.nrw.commons.contributions.Contribution;
 import fr.free.nrw.commons.filepicker.MimeTypeMapWrapper;
 import fr.free.nrw.commons.filepicker.UploadableFile;
@@ -15,15 +16,17 @@ import fr.free.nrw.commons.nearby.Place;
 import fr.free.nrw.commons.settings.Prefs;
 import fr.free.nrw.commons.utils.ImageUtils;
 import io.reactivex.Observable;
+import io.reactivex.Scheduler;
 import io.reactivex.Single;
 import io.reactivex.disposables.CompositeDisposable;
+import io.reactivex.schedulers.Schedulers;
 import io.reactivex.subjects.BehaviorSubject;
 import java.util.ArrayList;
 import java.util.Date;
-import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.CopyOnWriteArrayList;
 import javax.inject.Inject;
 import javax.inject.Named;
 import javax.inject.Singleton;
@@ -32,6 +35,13 @@ import timber.log.Timber;
 @Singleton
 public class UploadModel {
 
+    /**
+     * Images are pre-processed on a few workers, as reading them is mostly bound by storage,
+     * which slows down when too many files are read at once
+     */
+    private static final int PRE_PROCESSING_THREADS =
+            Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors()));
+
     private static UploadItem DUMMY = new UploadItem(
             Uri.EMPTY, Uri.EMPTY,
             "",
@@ -45,14 +55,21 @@ public class UploadModel {
     private final Context context;
     private String license;
     private final Map<String, String> licensesByName;
-    private List<UploadItem> items = new ArrayList<>();
+    private final List<UploadItem> items = new CopyOnWriteArrayList<>();
+    private long nextSequence = 0;
     private int currentStepIndex = 0;
     private CompositeDisposable compositeDisposable = new CompositeDisposable();
 
     private SessionManager sessionManager;
     private FileProcessor fileProcessor;
     private final ImageProcessingService imageProcessingService;
+    private final FileHashStore fileHashStore;
     private List<String> selectedCategories;
+    private final Scheduler preProcessingScheduler = Schedulers.from(
+            new ThreadPoolService.Builder("upload-preprocessing")
+                    .setPoolSize(PRE_PROCESSING_THREADS)
+                    .setPriority(Thread.NORM_PRIORITY)
+                    .build());
 
     @Inject
     UploadModel(@Named("licenses") List<String> licenses,
@@ -61,7 +78,8 @@ public class UploadModel {
             Context context,
             SessionManager sessionManager,
             FileProcessor fileProcessor,
-            ImageProcessingService imageProcessingService) {
+            ImageProcessingService imageProcessingService,
+            FileHashStore fileHashStore) {
         this.licenses = licenses;
         this.store = store;
         this.license = store.getString(Prefs.DEFAULT_LICENSE, Prefs.Licenses.CC_BY_SA_3);
@@ -70,6 +88,7 @@ public class UploadModel {
         this.sessionManager = sessionManager;
         this.fileProcessor = fileProcessor;
         this.imageProcessingService = imageProcessingService;
+        this.fileHashStore = fileHashStore;
     }
 
     /**
@@ -92,7 +111,7 @@ public class UploadModel {
     }
 
     /**
-     * pre process a list of items
+     * pre process a list of items in parallel, items are emitted as soon as they are processed
      */
     @SuppressLint("CheckResult")
     Observable<UploadItem> preProcessImages(List<UploadableFile> uploadableFiles,
@@ -100,19 +119,27 @@ public class UploadModel {
             String source,
             SimilarImageInterface similarImageInterface) {
         return Observable.fromIterable(uploadableFiles)
-                .map(uploadableFile -> getUploadItem(uploadableFile, place, source,
-                        similarImageInterface));
+                .flatMap(uploadableFile -> preProcessImage(uploadableFile, place, source,
+                        similarImageInterface), PRE_PROCESSING_THREADS);
     }
 
 
     /**
-     * pre process a one item at a time
+     * pre process a one item at a time, on the pre-processing workers. Items keep the order in
+     * which they were requested, whatever the order in which they are processed.
      */
     public Observable<UploadItem> preProcessImage(UploadableFile uploadableFile,
             Place place,
             String source,
             SimilarImageInterface similarImageInterface) {
-        return Observable.just(getUploadItem(uploadableFile, place, source, similarImageInterface));
+        long sequence = getNextSequence();
+        return Observable.fromCallable(() -> getUploadItem(uploadableFile, place, source,
+                similarImageInterface, sequence))
+                .subscribeOn(preProcessingScheduler);
+    }
+
+    private synchronized long getNextSequence() {
+        return nextSequence++;
     }
 
     public Single<Integer> getImageQuality(UploadItem uploadItem, boolean checkTitle) {
@@ -122,11 +149,22 @@ public class UploadModel {
     private UploadItem getUploadItem(UploadableFile uploadableFile,
             Place place,
             String source,
-            SimilarImageInterface similarImageInterface) {
-        fileProcessor.initFileDetails(Objects.requireNonNull(uploadableFile.getFilePath()),
-                context.getContentResolver());
+            SimilarImageInterface similarImageInterface,
+            long sequence) {
+        FileProcessor.FileContext fileContext = fileProcessor.processFileCoordinates(
+                Objects.requireNonNull(uploadableFile.getFilePath()), similarImageInterface,
+                context);
+        // Recorded once redaction is done, as it changes the size and modification time the hash
+        // is keyed by
+        if (uploadableFile.getSha1() != null && !fileContext.isRewritten()) {
+            // Hashed while the file was copied, the duplicate check does not need to read it again
+            fileHashStore.putSha1(uploadableFile.getFile(), uploadableFile.getSha1());
+        } else {
+            // Hashed here on the pre-processing worker rather than by the duplicate check
+            fileHashStore.getSha1(uploadableFile.getFile());
+        }
         UploadableFile.DateTimeWithSource dateTimeWithSource = uploadableFile
-                .getFileCreatedDate(context);
+                .getFileCreatedDate(context, fileContext.getImageFacts());
         long fileCreatedDate = -1;
         String createdTimestampSource = "";
         if (dateTimeWithSource != null) {
@@ -134,23 +172,37 @@ public class UploadModel {
             createdTimestampSource = dateTimeWithSource.getSource();
         }
         Timber.d("File created date is %d", fileCreatedDate);
-        GPSExtractor gpsExtractor = fileProcessor
-                .processFileCoordinates(similarImageInterface, context);
         UploadItem uploadItem = new UploadItem(uploadableFile.getContentUri(),
                 Uri.parse(uploadableFile.getFilePath()),
-                uploadableFile.getMimeType(context), source, gpsExtractor, place, fileCreatedDate,
-                createdTimestampSource);
+                uploadableFile.getMimeType(context), source, fileContext.getGpsExtractor(), place,
+                fileCreatedDate, createdTimestampSource);
+        uploadItem.sequence = sequence;
         if (place != null) {
             uploadItem.title.setTitleText(place.name);
             uploadItem.descriptions.get(0).setDescriptionText(place.getLongDescription());
             uploadItem.descriptions.get(0).setLanguageCode("en");
         }
-        if (!items.contains(uploadItem)) {
-            items.add(uploadItem);
-        }
+        addItem(uploadItem);
         return uploadItem;
     }
 
+    /**
+     * Inserts an item at the position it was requested at, items being accessed by the index of
+     * their upload step
+     */
+    private void addItem(UploadItem uploadItem) {
+        synchronized (items) {
+            if (items.contains(uploadItem)) {
+                return;
+            }
+            int index = items.size();
+            while (index > 0 && items.get(index - 1).sequence > uploadItem.sequence) {
+                index--;
+            }
+            items.add(index, uploadItem);
+        }
+    }
+
     int getCurrentStep() {
         return currentStepIndex + 1;
     }
@@ -212,11 +264,12 @@ public class UploadModel {
     }
 
     public void deletePicture(String filePath) {
-        Iterator<UploadItem> iterator = items.iterator();
-        while (iterator.hasNext()) {
-            if (iterator.next().mediaUri.toString().contains(filePath)) {
-                iterator.remove();
-                break;
+        synchronized (items) {
+            for (int i = 0; i < items.size(); i++) {
+                if (items.get(i).mediaUri.toString().contains(filePath)) {
+                    items.remove(i);
+                    break;
+                }
             }
         }
         if (items.isEmpty()) {
@@ -253,6 +306,7 @@ public class UploadModel {
         private long createdTimestamp;
         private String createdTimestampSource;
         private BehaviorSubject<Integer> imageQuality;
+        private long sequence;
 
         @SuppressLint("CheckResult")
         UploadItem(Uri originalContentUri,
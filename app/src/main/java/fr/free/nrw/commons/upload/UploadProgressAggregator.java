@@ -0,0 +1,124 @@
+package fr.free.nrw.commons.upload;
+
+import android.net.Uri;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+import io.reactivex.Observable;
+import io.reactivex.subjects.PublishSubject;
+import io.reactivex.subjects.Subject;
+
+/**
+ * Coalesces the progress callbacks of uploads. Every callback is published in memory, while
+ * notifications and database writes are limited to 4 per second and to steps of 1%.
+ */
+@Singleton
+public class UploadProgressAggregator {
+    private static final long MIN_REPORT_INTERVAL = 250; // in milliseconds
+    private static final int MIN_REPORT_STEP = 1; // in percent
+
+    private final Subject<Progress> progressSubject = PublishSubject.<Progress>create().toSerialized();
+    private final Map<Uri, Progress> currentProgress = new ConcurrentHashMap<>();
+
+    @Inject
+    UploadProgressAggregator() {
+    }
+
+    /**
+     * Starts tracking the progress of an upload
+     * @param contentUri content URI of the contribution being uploaded
+     */
+    public Tracker track(Uri contentUri) {
+        return new Tracker(contentUri);
+    }
+
+    /**
+     * Returns the progress of an upload as it is reported, starting with the last known progress
+     * @param contentUri content URI of the contribution being uploaded
+     */
+    public Observable<Progress> getProgress(Uri contentUri) {
+        return Observable.defer(() -> {
+            Observable<Progress> updates = progressSubject
+                    .filter(progress -> progress.getContentUri().equals(contentUri));
+            Progress current = currentProgress.get(contentUri);
+            return current == null ? updates : updates.startWith(current);
+        });
+    }
+
+    /**
+     * Progress of an upload at some point
+     */
+    public static class Progress {
+        private final Uri contentUri;
+        private final long transferred;
+        private final long total;
+
+        Progress(Uri contentUri, long transferred, long total) {
+            this.contentUri = contentUri;
+            this.transferred = transferred;
+            this.total = total;
+        }
+
+        public Uri getContentUri() {
+            return contentUri;
+        }
+
+        public long getTransferred() {
+            return transferred;
+        }
+
+        public long getTotal() {
+            return total;
+        }
+    }
+
+    /**
+     * Progress of one upload, telling which callbacks are worth persisting
+     */
+    public class Tracker {
+        private final Uri contentUri;
+        private long lastReportTime;
+        private int lastReportedPercent = -MIN_REPORT_STEP;
+
+        private Tracker(Uri contentUri) {
+            this.contentUri = contentUri;
+        }
+
+        /**
+         * Publishes the progress of the upload in memory
+         * @return true if the progress should be shown in notifications and saved, which is always
+         * the case once the whole file is transferred
+         */
+        public synchronized boolean onProgress(long transferred, long total) {
+            if (contentUri != null) {
+                Progress progress = new Progress(contentUri, transferred, total);
+                currentProgress.put(contentUri, progress);
+                progressSubject.onNext(progress);
+            }
+
+            long now = System.currentTimeMillis();
+            int percent = total > 0 ? (int) (transferred * 100 / total) : 0;
+            if (transferred < total
+                    && (now - lastReportTime < MIN_REPORT_INTERVAL
+                    || Math.abs(percent - lastReportedPercent) < MIN_REPORT_STEP)) {
+                return false;
+            }
+            lastReportTime = now;
+            lastReportedPercent = percent;
+            return true;
+        }
+
+        /**
+         * Stops tracking the upload, once its final state is saved
+         */
+        public void finish() {
+            if (contentUri != null) {
+                currentProgress.remove(contentUri);
+            }
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package fr.free.nrw.commons.upload;
+
+import android.content.Context;
+
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+import fr.free.nrw.commons.concurrency.ThreadPoolService;
+import fr.free.nrw.commons.utils.NetworkUtils;
+import io.reactivex.Scheduler;
+import io.reactivex.Single;
+import io.reactivex.schedulers.Schedulers;
+import timber.log.Timber;
+
+/**
+ * Runs the stash uploads of a batch in parallel, and their finalization one at a time. The number
+ * of parallel uploads is capped by the network type, and raised as long as it raises throughput.
+ */
+@Singleton
+public class UploadScheduler {
+    private static final int MAX_PARALLEL_UPLOADS = 4;
+    // Throughput changes below this ratio are taken as noise
+    private static final double THROUGHPUT_TOLERANCE = 0.1;
+
+    private final Context context;
+    private final Scheduler finalizeScheduler = Schedulers.from(
+            new ThreadPoolService.Builder("upload-finalize")
+                    .setPriority(Thread.NORM_PRIORITY)
+                    .build());
+    private final Queue<Runnable> pending = new ArrayDeque<>();
+
+    private int concurrency = 1;
+    private int running;
+    // Bytes uploaded since the start of the round, a round ending once as many uploads finished as
+    // were allowed in parallel
+    private long roundStart;
+    private long roundBytes;
+    private int roundUploads;
+    private double previousThroughput;
+
+    @Inject
+    UploadScheduler(Context context) {
+        this.context = context;
+    }
+
+    /**
+     * Returns an upload which starts once fewer uploads than allowed are running
+     * @param upload stash upload of a file
+     * @param length size of the file, used to measure throughput
+     */
+    public <T> Single<T> scheduleStash(Single<T> upload, long length) {
+        return Single.create(emitter -> enqueue(() -> {
+            if (emitter.isDisposed()) {
+                onUploadFinished(0);
+                return;
+            }
+            // The slot is released once, whether the upload succeeds, fails or gets disposed
+            AtomicBoolean succeeded = new AtomicBoolean();
+            emitter.setDisposable(upload
+                    .doOnSuccess(result -> succeeded.set(true))
+                    .doFinally(() -> onUploadFinished(succeeded.get() ? length : 0))
+                    .subscribe(emitter::onSuccess, emitter::onError));
+        }));
+    }
+
+    /**
+     * Scheduler running finalization and filename checks one at a time, so that files given the
+     * same name in a batch are told apart
+     */
+    public Scheduler getFinalizeScheduler() {
+        return finalizeScheduler;
+    }
+
+    /**
+     * Number of uploads currently allowed to run in parallel
+     */
+    public synchronized int getConcurrency() {
+        return concurrency;
+    }
+
+    private void enqueue(Runnable upload) {
+        synchronized (this) {
+            if (running == 0 && pending.isEmpty()) {
+                // Starting a new batch, the network may have changed since the last one
+                concurrency = Math.min(Math.max(concurrency, getInitialConcurrency()), getMaxConcurrency());
+                roundStart = System.currentTimeMillis();
+                roundBytes = 0;
+                roundUploads = 0;
+                previousThroughput = 0;
+            }
+            pending.add(upload);
+        }
+        startPending();
+    }
+
+    private void onUploadFinished(long length) {
+        synchronized (this) {
+            running--;
+            roundBytes += length;
+            roundUploads++;
+            if (roundUploads >= concurrency) {
+                adaptConcurrency();
+            }
+        }
+        startPending();
+    }
+
+    private void adaptConcurrency() {
+        long now = System.currentTimeMillis();
+        double throughput = (double) roundBytes / Math.max(1, now - roundStart);
+        int maxConcurrency = getMaxConcurrency();
+        if (throughput > previousThroughput * (1 + THROUGHPUT_TOLERANCE)) {
+            concurrency = Math.min(concurrency + 1, maxConcurrency);
+        } else if (throughput < previousThroughput * (1 - THROUGHPUT_TOLERANCE)) {
+            concurrency = Math.max(concurrency - 1, 1);
+        }
+        concurrency = Math.min(concurrency, maxConcurrency);
+        Timber.d("Upload throughput %.1f kB/s, %d parallel uploads", throughput, concurrency);
+        previousThroughput = throughput;
+        roundStart = now;
+        roundBytes = 0;
+        roundUploads = 0;
+    }
+
+    private void startPending() {
+        while (true) {
+            Runnable upload;
+            synchronized (this) {
+                if (running >= concurrency || pending.isEmpty()) {
+                    return;
+                }
+                upload = pending.poll();
+                running++;
+            }
+            upload.run();
+        }
+    }
+
+    private int getInitialConcurrency() {
+        return Math.min(2, getMaxConcurrency());
+    }
+
+    private int getMaxConcurrency() {
+        switch (NetworkUtils.getNetworkType(context)) {
+            case WIFI:
+                return NetworkUtils.isConnectionMetered(context) ? 2 : MAX_PARALLEL_UPLOADS;
+            case TWO_G:
+            case THREE_G:
+                return 1;
+            default:
+                return 2;
+        }
+    }
+}
@@ -5,6 +5,8 @@ import android.app.PendingIntent;
 import android.content.ContentResolver;
 import android.content.ContentValues;
 import android.content.Intent;
+import android.database.Cursor;
+import android.graphics.Bitmap;
 import android.graphics.BitmapFactory;
 import android.net.Uri;
 import android.os.Bundle;
@@ -13,14 +15,13 @@ import androidx.core.app.NotificationManagerCompat;
 import android.widget.Toast;
 
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileNotFoundException;
-import java.io.IOException;
-import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
 import javax.inject.Inject;
 
@@ -54,10 +55,15 @@ public class UploadService extends HandlerService<Contribution> {
     @Inject WikidataEditService wikidataEditService;
     @Inject SessionManager sessionManager;
     @Inject ContributionDao contributionDao;
+    @Inject UploadedHashIndex uploadedHashIndex;
+    @Inject UploadScheduler uploadScheduler;
+    @Inject UploadProgressAggregator uploadProgressAggregator;
+    @Inject UploadFilenameResolver uploadFilenameResolver;
+    @Inject FileHashStore fileHashStore;
 
     private NotificationManagerCompat notificationManager;
-    private NotificationCompat.Builder curNotification;
-    private int toUpload;
+    private Bitmap notificationIcon;
+    private final AtomicInteger toUpload = new AtomicInteger();
 
     /**
      * The filePath names of unfinished uploads, used to prevent overwriting
@@ -71,6 +77,12 @@ public class UploadService extends HandlerService<Contribution> {
     public static final int NOTIFICATION_UPLOAD_COMPLETE = 2;
     public static final int NOTIFICATION_UPLOAD_FAILED = 3;
 
+    /**
+     * Finalization errors after which the stashed file can't be used again
+     */
+    private static final Set<String> STASH_GONE_ERRORS = new HashSet<>(Arrays.asList(
+            "stashfilenotfound", "stashnosuchfilekey", "stashedfilenotfound", "stashfailed"));
+
     public UploadService() {
         super("UploadService");
     }
@@ -78,36 +90,44 @@ public class UploadService extends HandlerService<Contribution> {
     private class NotificationUpdateProgressListener implements MediaWikiApi.ProgressListener {
 
         String notificationTag;
+        NotificationCompat.Builder notification;
         boolean notificationTitleChanged;
         Contribution contribution;
 
         String notificationProgressTitle;
         String notificationFinishingTitle;
+        UploadProgressAggregator.Tracker progressTracker;
 
-        NotificationUpdateProgressListener(String notificationTag, String notificationProgressTitle, String notificationFinishingTitle, Contribution contribution) {
+        NotificationUpdateProgressListener(String notificationTag, NotificationCompat.Builder notification, String notificationProgressTitle, String notificationFinishingTitle, Contribution contribution, UploadProgressAggregator.Tracker progressTracker) {
             this.notificationTag = notificationTag;
+            this.notification = notification;
             this.notificationProgressTitle = notificationProgressTitle;
             this.notificationFinishingTitle = notificationFinishingTitle;
             this.contribution = contribution;
+            this.progressTracker = progressTracker;
         }
 
         @Override
         public void onProgress(long transferred, long total) {
+            // Skipped callbacks are only published in memory
+            if (!progressTracker.onProgress(transferred, total)) {
+                return;
+            }
             Timber.d("Uploaded %d of %d", transferred, total);
             if (!notificationTitleChanged) {
-                curNotification.setContentTitle(notificationProgressTitle);
+                notification.setContentTitle(notificationProgressTitle);
                 notificationTitleChanged = true;
                 contribution.setState(Contribution.STATE_IN_PROGRESS);
             }
             if (transferred == total) {
                 // Completed!
-                curNotification.setContentTitle(notificationFinishingTitle)
+                notification.setContentTitle(notificationFinishingTitle)
                         .setTicker(notificationFinishingTitle)
                         .setProgress(0, 100, true);
             } else {
-                curNotification.setProgress(100, (int) (((double) transferred / (double) total) * 100), false);
+                notification.setProgress(100, (int) (((double) transferred / (double) total) * 100), false);
             }
-            notificationManager.notify(notificationTag, NOTIFICATION_UPLOAD_IN_PROGRESS, curNotification.build());
+            notificationManager.notify(notificationTag, NOTIFICATION_UPLOAD_IN_PROGRESS, notification.build());
 
             contribution.setTransferred(transferred);
             contributionDao.save(contribution);
@@ -126,7 +146,7 @@ public class UploadService extends HandlerService<Contribution> {
         super.onCreate();
         CommonsApplication.createNotificationChannel(getApplicationContext());
         notificationManager = NotificationManagerCompat.from(this);
-        curNotification = getNotificationBuilder(CommonsApplication.NOTIFICATION_CHANNEL_ID_ALL);
+        notificationIcon = BitmapFactory.decodeResource(getResources(), R.drawable.ic_launcher);
     }
 
     @Override
@@ -147,13 +167,17 @@ public class UploadService extends HandlerService<Contribution> {
             case ACTION_UPLOAD_FILE:
 
                 contribution.setState(Contribution.STATE_QUEUED);
-                contribution.setTransferred(0);
+                // A resumed upload starts from its last acknowledged chunk
+                contribution.setTransferred(contribution.getChunkOffset());
                 contributionDao.save(contribution);
-                toUpload++;
-                if (curNotification != null && toUpload != 1) {
-                    curNotification.setContentText(getResources().getQuantityString(R.plurals.uploads_pending_notification_indicator, toUpload, toUpload));
-                    Timber.d("%d uploads left", toUpload);
-                    notificationManager.notify(contribution.getLocalUri().toString(), NOTIFICATION_UPLOAD_IN_PROGRESS, curNotification.build());
+                uploadFilenameResolver.addPendingFileName(contribution.getFilename());
+                int pendingUploads = toUpload.incrementAndGet();
+                if (notificationManager != null && pendingUploads != 1) {
+                    NotificationCompat.Builder notification = getNotificationBuilder(CommonsApplication.NOTIFICATION_CHANNEL_ID_ALL)
+                            .setContentTitle(getString(R.string.upload_progress_notification_title_start, contribution.getDisplayTitle()))
+                            .setContentText(getResources().getQuantityString(R.plurals.uploads_pending_notification_indicator, pendingUploads, pendingUploads));
+                    Timber.d("%d uploads left", pendingUploads);
+                    notificationManager.notify(contribution.getLocalUri().toString(), NOTIFICATION_UPLOAD_IN_PROGRESS, notification.build());
                 }
 
                 super.queue(what, contribution);
@@ -168,17 +192,41 @@ public class UploadService extends HandlerService<Contribution> {
     @Override
     public int onStartCommand(Intent intent, int flags, int startId) {
         if (ACTION_START_SERVICE.equals(intent.getAction()) && freshStart) {
+            String unfinished = "(" + ContributionDao.Table.COLUMN_STATE + " = ? OR " + ContributionDao.Table.COLUMN_STATE + " = ?)";
+            String[] unfinishedArgs = new String[]{ String.valueOf(Contribution.STATE_QUEUED), String.valueOf(Contribution.STATE_IN_PROGRESS) };
+
+            // Uploads with stashed chunks resume from the last acknowledged one
+            List<Contribution> resumable = new ArrayList<>();
+            Cursor cursor = getContentResolver().query(ContributionsContentProvider.BASE_URI,
+                    ContributionDao.Table.ALL_FIELDS,
+                    unfinished + " AND " + ContributionDao.Table.COLUMN_FILEKEY + " IS NOT NULL",
+                    unfinishedArgs,
+                    null);
+            if (cursor != null) {
+                try {
+                    while (cursor.moveToNext()) {
+                        resumable.add(contributionDao.fromCursor(cursor));
+                    }
+                } finally {
+                    cursor.close();
+                }
+            }
+
+            // The others have nothing on the server yet, and are left for the user to retry
             ContentValues failedValues = new ContentValues();
             failedValues.put(ContributionDao.Table.COLUMN_STATE, Contribution.STATE_FAILED);
-
             int updated = getContentResolver().update(ContributionsContentProvider.BASE_URI,
                     failedValues,
-                    ContributionDao.Table.COLUMN_STATE + " = ? OR " + ContributionDao.Table.COLUMN_STATE + " = ?",
-                    new String[]{ String.valueOf(Contribution.STATE_QUEUED), String.valueOf(Contribution.STATE_IN_PROGRESS) }
+                    unfinished + " AND " + ContributionDao.Table.COLUMN_FILEKEY + " IS NULL",
+                    unfinishedArgs
             );
-            Timber.d("Set %d uploads to failed", updated);
+            Timber.d("Set %d uploads to failed, resuming %d", updated, resumable.size());
             Timber.d("Flags is %d id is %d", flags, startId);
             freshStart = false;
+
+            for (Contribution contribution : resumable) {
+                queue(ACTION_UPLOAD_FILE, contribution);
+            }
         }
         return START_REDELIVER_INTENT;
     }
@@ -187,7 +235,7 @@ public class UploadService extends HandlerService<Contribution> {
     private NotificationCompat.Builder getNotificationBuilder(String channelId) {
         return new NotificationCompat.Builder(this, channelId).setAutoCancel(true)
                 .setSmallIcon(R.drawable.ic_launcher)
-                .setLargeIcon(BitmapFactory.decodeResource(getResources(), R.drawable.ic_launcher))
+                .setLargeIcon(notificationIcon)
                 .setAutoCancel(true)
                 .setOnlyAlertOnce(true)
                 .setProgress(100, 0, true)
@@ -197,7 +245,6 @@ public class UploadService extends HandlerService<Contribution> {
 
     @SuppressLint("CheckResult")
     private void uploadContribution(Contribution contribution) {
-        InputStream fileInputStream;
         Uri localUri = contribution.getLocalUri();
         if (localUri == null || localUri.getPath() == null) {
             Timber.d("localUri/path is null");
@@ -205,10 +252,8 @@ public class UploadService extends HandlerService<Contribution> {
         }
         String notificationTag = localUri.toString();
 
-        try {
-            File file1 = new File(localUri.getPath());
-            fileInputStream = new FileInputStream(file1);
-        } catch (FileNotFoundException e) {
+        File file = new File(localUri.getPath());
+        if (!file.isFile()) {
             Timber.d("File not found");
             Toast fileNotFound = Toast.makeText(this, R.string.upload_failed, Toast.LENGTH_LONG);
             fileNotFound.show();
@@ -216,19 +261,35 @@ public class UploadService extends HandlerService<Contribution> {
         }
 
         Timber.d("Before execution!");
-        curNotification.setContentTitle(getString(R.string.upload_progress_notification_title_start, contribution.getDisplayTitle()))
-                .setContentText(getResources().getQuantityString(R.plurals.uploads_pending_notification_indicator, toUpload, toUpload))
+        // Each upload has a builder of its own, as parallel uploads update their notifications from different threads
+        NotificationCompat.Builder notification = getNotificationBuilder(CommonsApplication.NOTIFICATION_CHANNEL_ID_ALL);
+        notification.setContentTitle(getString(R.string.upload_progress_notification_title_start, contribution.getDisplayTitle()))
+                .setContentText(getResources().getQuantityString(R.plurals.uploads_pending_notification_indicator, toUpload.get(), toUpload.get()))
                 .setTicker(getString(R.string.upload_progress_notification_title_in_progress, contribution.getDisplayTitle()));
-        notificationManager.notify(notificationTag, NOTIFICATION_UPLOAD_IN_PROGRESS, curNotification.build());
+        notificationManager.notify(notificationTag, NOTIFICATION_UPLOAD_IN_PROGRESS, notification.build());
 
         String filename = contribution.getFilename();
 
-        NotificationUpdateProgressListener notificationUpdater = new NotificationUpdateProgressListener(notificationTag,
+        UploadProgressAggregator.Tracker progressTracker = uploadProgressAggregator.track(contribution.getContentUri());
+        NotificationUpdateProgressListener notificationUpdater = new NotificationUpdateProgressListener(notificationTag, notification,
                 getString(R.string.upload_progress_notification_title_in_progress, contribution.getDisplayTitle()),
                 getString(R.string.upload_progress_notification_title_finishing, contribution.getDisplayTitle()),
-                contribution
+                contribution,
+                progressTracker
         );
 
+        // Name given to the file at finalization
+        AtomicReference<String> uniqueFilename = new AtomicReference<>();
+        // SHA1 recorded when the file was copied for the upload
+        AtomicReference<String> fileSha1 = new AtomicReference<>();
+
+        // Acknowledged chunks are saved so that an interrupted upload resumes from there
+        MediaWikiApi.ChunkListener chunkUpdater = (chunkOffset, filekey) -> {
+            contribution.setChunkOffset(chunkOffset);
+            contribution.setFilekey(filekey);
+            contributionDao.save(contribution);
+        };
+
         Single.fromCallable(() -> {
             if (!mwApi.validateLogin()) {
                 // Need to revalidate!
@@ -241,40 +302,52 @@ public class UploadService extends HandlerService<Contribution> {
                     throw new RuntimeException(getString(R.string.authentication_failed));
                 }
             }
-            return "Temp_" + contribution.hashCode() + filename;
-        }).flatMap(stashFilename -> mwApi.uploadFile(
-                stashFilename, fileInputStream, contribution.getDataLength(),
-                localUri, contribution.getContentProviderUri(), notificationUpdater))
+            fileSha1.set(fileHashStore.getSha1(file));
+            // Derived from the local file so that a resumed upload reuses the stash name of the last process
+            return "Temp_" + localUri.toString().hashCode() + filename;
+        }).flatMap(stashFilename -> uploadScheduler.scheduleStash(mwApi.uploadFileInChunks(
+                stashFilename, file, contribution.getChunkOffset(), contribution.getFilekey(),
+                chunkUpdater, notificationUpdater).subscribeOn(Schedulers.io()), file.length()))
                 .subscribeOn(Schedulers.io())
-                .observeOn(Schedulers.io())
+                // Finalization and filename checks run one at a time, to keep unique names unique
+                .observeOn(uploadScheduler.getFinalizeScheduler())
                 .doFinally(() -> {
-                    if (filename != null) {
-                        unfinishedUploads.remove(filename);
+                    progressTracker.finish();
+                    // Runs once the upload is finalized, or failed before that
+                    uploadFilenameResolver.removePendingFileName(filename);
+                    synchronized (unfinishedUploads) {
+                        unfinishedUploads.remove(uniqueFilename.get());
                     }
-                    toUpload--;
-                    if (toUpload == 0) {
+                    if (toUpload.decrementAndGet() == 0) {
+                        uploadFilenameResolver.clearCheckedNames();
                         // Sync modifications right after all uploads are processed
                         ContentResolver.requestSync(sessionManager.getCurrentAccount(), BuildConfig.MODIFICATION_AUTHORITY, new Bundle());
                         stopForeground(true);
                     }
                 })
                 .flatMap(uploadStash -> {
-                    notificationManager.cancel(NOTIFICATION_UPLOAD_IN_PROGRESS);
+                    notificationManager.cancel(notificationTag, NOTIFICATION_UPLOAD_IN_PROGRESS);
 
                     Timber.d("Stash upload response 1 is %s", uploadStash.toString());
 
                     String resultStatus = uploadStash.getResultStatus();
                     if (!resultStatus.equals("Success")) {
                         Timber.d("Contribution upload failed. Wikidata entity won't be edited");
-                        showFailedNotification(contribution);
+                        // The stashed chunks were rejected, the next attempt starts over
+                        clearChunks(contribution);
+                        showFailedNotification(contribution, notification);
                         return Single.never();
                     } else {
+                        // The whole file is stashed, a failed finalization is retried from the stash
+                        contribution.setChunkOffset(file.length());
+                        contribution.setFilekey(uploadStash.getFilekey());
+                        contributionDao.save(contribution);
                         synchronized (unfinishedUploads) {
                             Timber.d("making sure of uniqueness of name: %s", filename);
-                            String uniqueFilename = findUniqueFilename(filename);
-                            unfinishedUploads.add(uniqueFilename);
+                            uniqueFilename.set(uploadFilenameResolver.findUniqueFilename(filename, unfinishedUploads));
+                            unfinishedUploads.add(uniqueFilename.get());
                             return mwApi.uploadFileFinalize(
-                                    uniqueFilename,
+                                    uniqueFilename.get(),
                                     uploadStash.getFilekey(),
                                     contribution.getPageContents(getApplicationContext()),
                                     contribution.getEditSummary());
@@ -289,7 +362,11 @@ public class UploadService extends HandlerService<Contribution> {
                     String resultStatus = uploadResult.getResultStatus();
                     if (!resultStatus.equals("Success")) {
                         Timber.d("Contribution upload failed. Wikidata entity won't be edited");
-                        showFailedNotification(contribution);
+                        // The stash is kept so that a retry only repeats the finalization
+                        if (STASH_GONE_ERRORS.contains(uploadResult.getErrorCode())) {
+                            clearChunks(contribution);
+                        }
+                        showFailedNotification(contribution, notification);
                     } else {
                         String canonicalFilename = uploadResult.getCanonicalFilename();
                         Timber.d("Contribution upload success. Initiating Wikidata edit for entity id %s",
@@ -299,49 +376,32 @@ public class UploadService extends HandlerService<Contribution> {
                         contribution.setImageUrl(uploadResult.getImageUrl());
                         contribution.setState(Contribution.STATE_COMPLETED);
                         contribution.setDateUploaded(uploadResult.getDateUploaded());
+                        clearChunks(contribution);
                         contributionDao.save(contribution);
+                        uploadedHashIndex.add(fileSha1.get() != null ? fileSha1.get() : uploadResult.getSha1());
                     }
                 }, throwable -> {
                     Timber.w(throwable, "Exception during upload");
-                    notificationManager.cancel(NOTIFICATION_UPLOAD_IN_PROGRESS);
-                    showFailedNotification(contribution);
+                    notificationManager.cancel(notificationTag, NOTIFICATION_UPLOAD_IN_PROGRESS);
+                    showFailedNotification(contribution, notification);
                 });
     }
 
+    private void clearChunks(Contribution contribution) {
+        contribution.setChunkOffset(0);
+        contribution.setFilekey(null);
+    }
+
     @SuppressLint("StringFormatInvalid")
     @SuppressWarnings("deprecation")
-    private void showFailedNotification(Contribution contribution) {
-        curNotification.setTicker(getString(R.string.upload_failed_notification_title, contribution.getDisplayTitle()))
+    private void showFailedNotification(Contribution contribution, NotificationCompat.Builder notification) {
+        notification.setTicker(getString(R.string.upload_failed_notification_title, contribution.getDisplayTitle()))
                 .setContentTitle(getString(R.string.upload_failed_notification_title, contribution.getDisplayTitle()))
                 .setContentText(getString(R.string.upload_failed_notification_subtitle))
                 .setProgress(0, 0, false);
-        notificationManager.notify(contribution.getLocalUri().toString(), NOTIFICATION_UPLOAD_FAILED, curNotification.build());
+        notificationManager.notify(contribution.getLocalUri().toString(), NOTIFICATION_UPLOAD_FAILED, notification.build());
 
         contribution.setState(Contribution.STATE_FAILED);
         contributionDao.save(contribution);
     }
-
-    private String findUniqueFilename(String fileName) throws IOException {
-        String sequenceFileName;
-        for (int sequenceNumber = 1; true; sequenceNumber++) {
-            if (sequenceNumber == 1) {
-                sequenceFileName = fileName;
-            } else {
-                if (fileName.indexOf('.') == -1) {
-                    // We really should have appended a filePath type suffix already.
-                    // But... we might not.
-                    sequenceFileName = fileName + " " + sequenceNumber;
-                } else {
-                    Pattern regex = Pattern.compile("^(.*)(\\..+?)$");
-                    Matcher regexMatcher = regex.matcher(fileName);
-                    sequenceFileName = regexMatcher.replaceAll("$1 " + sequenceNumber + "$2");
-                }
-            }
-            if (!mwApi.fileExistsWithName(sequenceFileName)
-                    && !unfinishedUploads.contains(sequenceFileName)) {
-                break;
-            }
-        }
-        return sequenceFileName;
-    }
 }
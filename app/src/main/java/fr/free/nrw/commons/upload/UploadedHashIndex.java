@@ -0,0 +1,252 @@
+package fr.free.nrw.commons.upload;
+
+import android.content.Context;
+
+import androidx.annotation.Nullable;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+import timber.log.Timber;
+
+/**
+ * SHA1 of the files uploaded by the user, so that re-uploading one of them is found without asking
+ * the server. Hashes are stored as 20 byte records appended to a file, and kept in memory sorted,
+ * with their first 8 bytes in a separate array for binary search. The index belongs to one
+ * account, and is cleared when another account is synced or the user logs out. As syncs only add
+ * new uploads, it is also rebuilt every week to forget files which have been deleted since.
+ */
+@Singleton
+public class UploadedHashIndex {
+    private static final String INDEX_FILE_NAME = "uploadedHashes.bin";
+    private static final String USER_FILE_NAME = "uploadedHashes.user";
+    private static final int HASH_LENGTH = 20;
+    private static final long REBUILD_INTERVAL_MS = TimeUnit.DAYS.toMillis(7);
+    private static final Comparator<byte[]> HASH_ORDER = (first, second) -> {
+        for (int i = 0; i < HASH_LENGTH; i++) {
+            int byteOrder = (first[i] & 0xff) - (second[i] & 0xff);
+            if (byteOrder != 0) {
+                return byteOrder;
+            }
+        }
+        return 0;
+    };
+
+    private final File indexFile;
+    private final File userFile;
+    private byte[][] hashes;
+    private long[] prefixes;
+
+    @Inject
+    UploadedHashIndex(Context context) {
+        // Kept with the app files, as syncs only fetch the hashes of new uploads
+        this.indexFile = new File(context.getFilesDir(), INDEX_FILE_NAME);
+        this.userFile = new File(context.getFilesDir(), USER_FILE_NAME);
+    }
+
+    /**
+     * Ties the index to the account whose uploads it holds, clearing it if it held the uploads of
+     * another account or is due to be rebuilt
+     * @param user name of the account being synced
+     * @return true if the index was cleared, so that every upload of the account must be fetched
+     */
+    public synchronized boolean setUser(String user) {
+        // The user file is written when the index is cleared, so its age is the age of the index
+        if (user.equals(readUser())
+                && System.currentTimeMillis() - userFile.lastModified() < REBUILD_INTERVAL_MS) {
+            return false;
+        }
+        clear();
+        try (OutputStream out = new FileOutputStream(userFile)) {
+            out.write(user.getBytes(StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            Timber.e(e, "Could not save the user of uploaded file hashes");
+        }
+        return true;
+    }
+
+    /**
+     * Forgets every hash, ie. when the user logs out
+     */
+    public synchronized void clear() {
+        indexFile.delete();
+        userFile.delete();
+        hashes = null;
+        prefixes = null;
+    }
+
+    /**
+     * Checks whether the user uploaded a file with this SHA1
+     * @param sha1 SHA1 as 40 hex characters
+     * @return true if the file was uploaded, false if it is not known locally
+     */
+    public synchronized boolean contains(String sha1) {
+        byte[] hash = parseHash(sha1);
+        if (hash == null) {
+            return false;
+        }
+        load();
+        return indexOf(hash) >= 0;
+    }
+
+    /**
+     * Adds the SHA1 of an uploaded file
+     * @param sha1 SHA1 as 40 hex characters
+     */
+    public void add(String sha1) {
+        addAll(Collections.singletonList(sha1));
+    }
+
+    /**
+     * Adds the SHA1 of several uploaded files, skipping those already known
+     * @param sha1s SHA1 as 40 hex characters
+     */
+    public synchronized void addAll(Collection<String> sha1s) {
+        load();
+        List<byte[]> added = new ArrayList<>();
+        Set<String> addedSha1s = new HashSet<>();
+        for (String sha1 : sha1s) {
+            byte[] hash = parseHash(sha1);
+            if (hash != null && indexOf(hash) < 0 && addedSha1s.add(sha1.toLowerCase(Locale.ROOT))) {
+                added.add(hash);
+            }
+        }
+        if (added.isEmpty()) {
+            return;
+        }
+
+        try (OutputStream out = new BufferedOutputStream(new FileOutputStream(indexFile, true))) {
+            for (byte[] hash : added) {
+                out.write(hash);
+            }
+        } catch (IOException e) {
+            Timber.e(e, "Could not save uploaded file hashes");
+        }
+        byte[][] merged = Arrays.copyOf(hashes, hashes.length + added.size());
+        for (int i = 0; i < added.size(); i++) {
+            merged[hashes.length + i] = added.get(i);
+        }
+        setHashes(merged);
+        Timber.d("Added %d uploaded file hashes", added.size());
+    }
+
+    private int indexOf(byte[] hash) {
+        int index = Arrays.binarySearch(prefixes, getPrefix(hash));
+        if (index < 0) {
+            return -1;
+        }
+        // Hashes sharing the prefix are next to each other
+        while (index > 0 && prefixes[index - 1] == prefixes[index]) {
+            index--;
+        }
+        for (; index < prefixes.length && prefixes[index] == getPrefix(hash); index++) {
+            if (Arrays.equals(hashes[index], hash)) {
+                return index;
+            }
+        }
+        return -1;
+    }
+
+    @Nullable
+    private String readUser() {
+        if (!userFile.exists()) {
+            return null;
+        }
+        try (InputStream in = new FileInputStream(userFile)) {
+            byte[] content = new byte[(int) userFile.length()];
+            int length = 0;
+            int read;
+            while (length < content.length
+                    && (read = in.read(content, length, content.length - length)) > 0) {
+                length += read;
+            }
+            return new String(content, 0, length, StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            Timber.e(e, "Could not read the user of uploaded file hashes");
+            return null;
+        }
+    }
+
+    private void load() {
+        if (hashes != null) {
+            return;
+        }
+        List<byte[]> loaded = new ArrayList<>();
+        if (indexFile.exists()) {
+            try (InputStream in = new FileInputStream(indexFile)) {
+                byte[] content = new byte[(int) indexFile.length()];
+                int length = 0;
+                int read;
+                while (length < content.length
+                        && (read = in.read(content, length, content.length - length)) > 0) {
+                    length += read;
+                }
+                // A record cut short by an interrupted write is ignored
+                for (int offset = 0; offset + HASH_LENGTH <= length; offset += HASH_LENGTH) {
+                    loaded.add(Arrays.copyOfRange(content, offset, offset + HASH_LENGTH));
+                }
+            } catch (IOException e) {
+                Timber.e(e, "Could not read uploaded file hashes");
+            }
+        }
+        setHashes(loaded.toArray(new byte[0][]));
+    }
+
+    private void setHashes(byte[][] hashes) {
+        Arrays.sort(hashes, HASH_ORDER);
+        long[] prefixes = new long[hashes.length];
+        for (int i = 0; i < hashes.length; i++) {
+            prefixes[i] = getPrefix(hashes[i]);
+        }
+        this.hashes = hashes;
+        this.prefixes = prefixes;
+    }
+
+    /**
+     * Returns the first 8 bytes of a hash, with the sign bit flipped so that signed order of
+     * prefixes is the unsigned order of hashes
+     */
+    private static long getPrefix(byte[] hash) {
+        long prefix = 0;
+        for (int i = 0; i < 8; i++) {
+            prefix = (prefix << 8) | (hash[i] & 0xff);
+        }
+        return prefix ^ Long.MIN_VALUE;
+    }
+
+    @Nullable
+    private static byte[] parseHash(@Nullable String sha1) {
+        if (sha1 == null || sha1.length() != 2 * HASH_LENGTH) {
+            return null;
+        }
+        byte[] hash = new byte[HASH_LENGTH];
+        for (int i = 0; i < HASH_LENGTH; i++) {
+            int high = Character.digit(sha1.charAt(2 * i), 16);
+            int low = Character.digit(sha1.charAt(2 * i + 1), 16);
+            if (high < 0 || low < 0) {
+                return null;
+            }
+            hash[i] = (byte) ((high << 4) | low);
+        }
+        return hash;
+    }
+}
@@ -189,6 +189,8 @@ public class UploadMediaPresenter implements UserActionListener, SimilarImageInt
      */
     @Override
     public void showSimilarImageFragment(String originalFilePath, String possibleFilePath) {
-        view.showSimilarImageFragment(originalFilePath, possibleFilePath);
+        // Images are processed on worker threads, the dialog is shown from the main thread
+        mainThreadScheduler.scheduleDirect(
+                () -> view.showSimilarImageFragment(originalFilePath, possibleFilePath));
     }
 }
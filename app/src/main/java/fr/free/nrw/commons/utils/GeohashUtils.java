@@ -0,0 +1,192 @@
+package fr.free.nrw.commons.utils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import fr.free.nrw.commons.location.LatLng;
+
+/**
+ * Encodes coordinates into geohash tiles and computes which tiles cover a search circle.
+ * See https://en.wikipedia.org/wiki/Geohash
+ */
+public class GeohashUtils {
+    private static final String BASE32 = "0123456789bcdefghjkmnpqrstuvwxyz";
+    private static final double KM_PER_DEGREE = 111.195;
+
+    /**
+     * Encodes a point into a geohash of the given precision
+     *
+     * @param latLng    point to encode
+     * @param precision number of characters of the geohash
+     * @return geohash string
+     */
+    public static String encode(@NonNull LatLng latLng, int precision) {
+        return encode(latLng.getLatitude(), latLng.getLongitude(), precision);
+    }
+
+    /**
+     * Encodes a point into a geohash of the given precision
+     *
+     * @param latitude  latitude in degrees
+     * @param longitude longitude in degrees
+     * @param precision number of characters of the geohash
+     * @return geohash string
+     */
+    public static String encode(double latitude, double longitude, int precision) {
+        return encodeCell(latitudeIndex(latitude, precision), longitudeIndex(longitude, precision), precision);
+    }
+
+    /**
+     * Decodes the bounds of a geohash tile
+     *
+     * @param geohash tile to decode
+     * @return {south, north, west, east} in degrees
+     */
+    public static double[] bounds(@NonNull String geohash) {
+        int precision = geohash.length();
+        long latIndex = 0;
+        long lonIndex = 0;
+        boolean isLongitudeBit = true;
+        for (int i = 0; i < precision; i++) {
+            int value = BASE32.indexOf(geohash.charAt(i));
+            if (value < 0) {
+                throw new IllegalArgumentException("Invalid geohash " + geohash);
+            }
+            for (int bit = 4; bit >= 0; bit--) {
+                int bitValue = (value >> bit) & 1;
+                if (isLongitudeBit) {
+                    lonIndex = (lonIndex << 1) | bitValue;
+                } else {
+                    latIndex = (latIndex << 1) | bitValue;
+                }
+                isLongitudeBit = !isLongitudeBit;
+            }
+        }
+        double latSpan = latitudeSpan(precision);
+        double lonSpan = longitudeSpan(precision);
+        double south = -90.0 + latIndex * latSpan;
+        double west = -180.0 + lonIndex * lonSpan;
+        return new double[]{south, south + latSpan, west, west + lonSpan};
+    }
+
+    /**
+     * Returns the center point of a geohash tile
+     */
+    public static LatLng center(@NonNull String geohash) {
+        double[] bounds = bounds(geohash);
+        return new LatLng((bounds[0] + bounds[1]) / 2, (bounds[2] + bounds[3]) / 2, 0);
+    }
+
+    /**
+     * Returns the radius in kilometers of the smallest circle around the tile center that
+     * contains the whole tile
+     */
+    public static double circumscribedRadius(@NonNull String geohash) {
+        double[] bounds = bounds(geohash);
+        LatLng center = center(geohash);
+        // The corner closest to the equator is the farthest one from the center
+        double cornerLatitude = Math.abs(bounds[0]) < Math.abs(bounds[1]) ? bounds[0] : bounds[1];
+        LatLng corner = new LatLng(cornerLatitude, bounds[2], 0);
+        return LengthUtils.computeDistanceBetween(center, corner) / 1000.0;
+    }
+
+    /**
+     * Lists the tiles that cover a search circle, using the finest precision in
+     * [minPrecision, maxPrecision] that needs no more than maxTiles tiles.
+     *
+     * @param center       center of the search circle
+     * @param radius       radius of the search circle in kilometers
+     * @param minPrecision coarsest precision allowed
+     * @param maxPrecision finest precision allowed
+     * @param maxTiles     maximum number of tiles allowed
+     * @return covering tiles, or null if even the coarsest precision needs too many tiles
+     */
+    @Nullable
+    public static List<String> coveringTiles(@NonNull LatLng center, double radius,
+                                             int minPrecision, int maxPrecision, int maxTiles) {
+        double latRadius = radius / KM_PER_DEGREE;
+        double cosLatitude = Math.cos(Math.toRadians(center.getLatitude()));
+        // Near the poles a circle spans all longitudes
+        double lonRadius = cosLatitude < 1e-6 ? 180.0 : Math.min(180.0, latRadius / cosLatitude);
+        double south = Math.max(-90.0, center.getLatitude() - latRadius);
+        double north = Math.min(90.0, center.getLatitude() + latRadius);
+
+        for (int precision = maxPrecision; precision >= minPrecision; precision--) {
+            long lonCells = 1L << longitudeBits(precision);
+            long firstLat = latitudeIndex(south, precision);
+            long lastLat = latitudeIndex(north, precision);
+            long firstLon = (long) Math.floor((center.getLongitude() - lonRadius + 180.0) / longitudeSpan(precision));
+            long lastLon = (long) Math.floor((center.getLongitude() + lonRadius + 180.0) / longitudeSpan(precision));
+            long lonCount = Math.min(lonCells, lastLon - firstLon + 1);
+            long count = (lastLat - firstLat + 1) * lonCount;
+            if (count > maxTiles) {
+                continue;
+            }
+
+            List<String> tiles = new ArrayList<>((int) count);
+            for (long lat = firstLat; lat <= lastLat; lat++) {
+                for (long i = 0; i < lonCount; i++) {
+                    long lon = ((firstLon + i) % lonCells + lonCells) % lonCells;
+                    tiles.add(encodeCell(lat, lon, precision));
+                }
+            }
+            return tiles;
+        }
+        return null;
+    }
+
+    private static String encodeCell(long latIndex, long lonIndex, int precision) {
+        int latBits = latitudeBits(precision);
+        int lonBits = longitudeBits(precision);
+        StringBuilder geohash = new StringBuilder(precision);
+        boolean isLongitudeBit = true;
+        int value = 0;
+        int bitsInChar = 0;
+        while (geohash.length() < precision) {
+            int bitValue;
+            if (isLongitudeBit) {
+                bitValue = (int) ((lonIndex >> --lonBits) & 1);
+            } else {
+                bitValue = (int) ((latIndex >> --latBits) & 1);
+            }
+            isLongitudeBit = !isLongitudeBit;
+            value = (value << 1) | bitValue;
+            if (++bitsInChar == 5) {
+                geohash.append(BASE32.charAt(value));
+                value = 0;
+                bitsInChar = 0;
+            }
+        }
+        return geohash.toString();
+    }
+
+    private static long latitudeIndex(double latitude, int precision) {
+        long cells = 1L << latitudeBits(precision);
+        long index = (long) Math.floor((latitude + 90.0) / latitudeSpan(precision));
+        return Math.max(0, Math.min(cells - 1, index));
+    }
+
+    private static long longitudeIndex(double longitude, int precision) {
+        long cells = 1L << longitudeBits(precision);
+        long index = (long) Math.floor((longitude + 180.0) / longitudeSpan(precision));
+        return Math.max(0, Math.min(cells - 1, index));
+    }
+
+    private static int latitudeBits(int precision) {
+        return precision * 5 / 2;
+    }
+
+    private static int longitudeBits(int precision) {
+        return precision * 5 - latitudeBits(precision);
+    }
+
+    private static double latitudeSpan(int precision) {
+        return 180.0 / (1L << latitudeBits(precision));
+    }
+
+    private static double longitudeSpan(int precision) {
+        return 360.0 / (1L << longitudeBits(precision));
+    }
+}
@@ -0,0 +1,209 @@
+package fr.free.nrw.commons.utils;
+
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+
+import androidx.annotation.Nullable;
+
+import timber.log.Timber;
+
+import static fr.free.nrw.commons.utils.ImageUtils.IMAGE_BLURRY;
+import static fr.free.nrw.commons.utils.ImageUtils.IMAGE_DARK;
+import static fr.free.nrw.commons.utils.ImageUtils.IMAGE_OK;
+
+/**
+ * Darkness and blur analysis of the images about to be uploaded. Images are decoded at a bounded
+ * size and read by bands of rows, the lightness histogram and the variance of the Laplacian being
+ * computed in the same pass.
+ */
+public class ImageQualityAnalyzer {
+    // Images are decoded with their longest side no larger than this
+    static final int MAX_ANALYSIS_SIZE = 1024;
+    private static final int ROWS_PER_READ = 16;
+
+    // Lightness is counted as max + min of the RGB components, from 0 to 510
+    private static final int BRIGHT_LIGHTNESS = 204; // 40% lightness
+    private static final int MEDIUM_LIGHTNESS = 133; // more than 26% lightness
+    private static final double BRIGHT_PIXELS_RATIO = 0.025;
+    private static final double MEDIUM_PIXELS_RATIO = 0.3;
+    // Variance of the Laplacian of the luma below which an image has too few edges to be sharp
+    private static final double BLUR_THRESHOLD = 50;
+
+    private ImageQualityAnalyzer() {
+    }
+
+    /**
+     * Checks whether an image is too dark or blurry
+     * @param imagePath path of the image
+     * @param thumbnail JPEG thumbnail embedded in the image, checked for darkness only if the
+     *                  image itself cannot be decoded
+     * @return IMAGE_DARK, or else IMAGE_BLURRY, or IMAGE_OK
+     */
+    public static @ImageUtils.Result int analyze(String imagePath, @Nullable byte[] thumbnail) {
+        long millis = System.currentTimeMillis();
+        try {
+            Bitmap bitmap = decodeSampled(imagePath);
+            boolean checkBlur = bitmap != null;
+            if (bitmap == null && thumbnail != null) {
+                bitmap = BitmapFactory.decodeByteArray(thumbnail, 0, thumbnail.length);
+            }
+            if (bitmap == null) {
+                Timber.e("Could not decode %s for analysis", imagePath);
+                return IMAGE_OK;
+            }
+            Analysis analysis = analyze(bitmap);
+            bitmap.recycle();
+            return analysis.getResult(checkBlur);
+        } catch (Exception | OutOfMemoryError e) {
+            Timber.d(e, "Error while checking image quality.");
+            return IMAGE_OK;
+        } finally {
+            Timber.d("Checking image quality took %d ms.", System.currentTimeMillis() - millis);
+        }
+    }
+
+    /**
+     * Decodes an image with a sample size keeping it within the analysis size
+     */
+    @Nullable
+    private static Bitmap decodeSampled(String imagePath) {
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inJustDecodeBounds = true;
+        BitmapFactory.decodeFile(imagePath, options);
+        if (options.outWidth <= 0 || options.outHeight <= 0) {
+            return null;
+        }
+        options.inJustDecodeBounds = false;
+        options.inSampleSize = calculateSampleSize(options.outWidth, options.outHeight);
+        return BitmapFactory.decodeFile(imagePath, options);
+    }
+
+    /**
+     * Returns the smallest power of two by which an image must be sampled to fit the analysis size
+     */
+    static int calculateSampleSize(int width, int height) {
+        int sampleSize = 1;
+        int longestSide = Math.max(width, height);
+        while (longestSide / sampleSize > MAX_ANALYSIS_SIZE) {
+            sampleSize *= 2;
+        }
+        return sampleSize;
+    }
+
+    private static Analysis analyze(Bitmap bitmap) {
+        int width = bitmap.getWidth();
+        int height = bitmap.getHeight();
+        Analysis analysis = new Analysis(width);
+        int[] pixels = new int[width * Math.min(ROWS_PER_READ, height)];
+        for (int y = 0; y < height; y += ROWS_PER_READ) {
+            int rows = Math.min(ROWS_PER_READ, height - y);
+            bitmap.getPixels(pixels, 0, width, 0, y, width, rows);
+            for (int row = 0; row < rows; row++) {
+                analysis.addRow(pixels, row * width);
+            }
+        }
+        return analysis;
+    }
+
+    /**
+     * Statistics of an image fed row by row: histogram of the lightness, and variance of the
+     * Laplacian of the luma, computed on the previous row once the next one is known
+     */
+    static class Analysis {
+        private final int width;
+        private final int[] histogram = new int[511];
+        private int[] previousLuma;
+        private int[] currentLuma;
+        private int[] nextLuma;
+        private int rowCount;
+        private long laplacianCount;
+        private long laplacianSum;
+        private long laplacianSquareSum;
+
+        Analysis(int width) {
+            this.width = width;
+            previousLuma = new int[width];
+            currentLuma = new int[width];
+            nextLuma = new int[width];
+        }
+
+        /**
+         * Adds a row of ARGB pixels
+         * @param pixels buffer holding the row
+         * @param offset index of the first pixel of the row in the buffer
+         */
+        void addRow(int[] pixels, int offset) {
+            int[] luma = nextLuma;
+            for (int x = 0; x < width; x++) {
+                int pixel = pixels[offset + x];
+                int r = (pixel >> 16) & 0xff;
+                int g = (pixel >> 8) & 0xff;
+                int b = pixel & 0xff;
+                int max = Math.max(r, Math.max(g, b));
+                int min = Math.min(r, Math.min(g, b));
+                histogram[max + min]++;
+                luma[x] = (77 * r + 150 * g + 29 * b) >> 8;
+            }
+
+            if (rowCount >= 2) {
+                for (int x = 1; x < width - 1; x++) {
+                    int laplacian = previousLuma[x] + luma[x] + currentLuma[x - 1]
+                            + currentLuma[x + 1] - 4 * currentLuma[x];
+                    laplacianSum += laplacian;
+                    laplacianSquareSum += laplacian * laplacian;
+                }
+                laplacianCount += Math.max(0, width - 2);
+            }
+
+            // Rows rotate, the oldest buffer receives the next row
+            nextLuma = previousLuma;
+            previousLuma = currentLuma;
+            currentLuma = luma;
+            rowCount++;
+        }
+
+        /**
+         * Returns whether too few pixels are bright or of medium brightness
+         */
+        boolean isDark() {
+            long pixelCount = (long) width * rowCount;
+            long brightPixels = 0;
+            long mediumPixels = 0;
+            for (int lightness = MEDIUM_LIGHTNESS; lightness < histogram.length; lightness++) {
+                if (lightness >= BRIGHT_LIGHTNESS) {
+                    brightPixels += histogram[lightness];
+                } else {
+                    mediumPixels += histogram[lightness];
+                }
+            }
+            return brightPixels < BRIGHT_PIXELS_RATIO * pixelCount
+                    && mediumPixels < MEDIUM_PIXELS_RATIO * pixelCount;
+        }
+
+        /**
+         * Returns the variance of the Laplacian, low for images without sharp edges
+         */
+        double getBlurScore() {
+            if (laplacianCount == 0) {
+                return Double.NaN;
+            }
+            double mean = (double) laplacianSum / laplacianCount;
+            return (double) laplacianSquareSum / laplacianCount - mean * mean;
+        }
+
+        /**
+         * Returns the problems found. Dark images have few edges anyway, so they are not reported
+         * as blurry too.
+         * @param checkBlur whether the image was decoded at a size fit for blur detection
+         */
+        @ImageUtils.Result
+        int getResult(boolean checkBlur) {
+            if (isDark()) {
+                return IMAGE_DARK;
+            }
+            double blurScore = getBlurScore();
+            Timber.d("Blur score of image is %f", blurScore);
+            return checkBlur && blurScore < BLUR_THRESHOLD ? IMAGE_BLURRY : IMAGE_OK;
+        }
+    }
+}
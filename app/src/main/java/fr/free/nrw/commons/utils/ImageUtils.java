@@ -3,8 +3,6 @@ package fr.free.nrw.commons.utils;
 import android.app.WallpaperManager;
 import android.content.Context;
 import android.graphics.Bitmap;
-import android.graphics.BitmapFactory;
-import android.graphics.Color;
 import android.net.Uri;
 
 import androidx.annotation.IntDef;
@@ -24,7 +22,6 @@ import java.io.IOException;
 import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
 
-import androidx.exifinterface.media.ExifInterface;
 import fr.free.nrw.commons.R;
 import fr.free.nrw.commons.location.LatLng;
 import timber.log.Timber;
@@ -87,30 +84,6 @@ public class ImageUtils {
     public @interface Result {
     }
 
-    /**
-     * @return IMAGE_OK if image is not too dark
-     * IMAGE_DARK if image is too dark
-     */
-    static @Result int checkIfImageIsTooDark(String imagePath) {
-        long millis = System.currentTimeMillis();
-        try {
-            Bitmap bmp = new ExifInterface(imagePath).getThumbnailBitmap();
-            if (bmp == null) {
-                bmp = BitmapFactory.decodeFile(imagePath);
-            }
-
-            if (checkIfImageIsDark(bmp)) {
-                return IMAGE_DARK;
-            }
-
-        } catch (Exception e) {
-            Timber.d(e, "Error while checking image darkness.");
-        } finally {
-            Timber.d("Checking image darkness took " + (System.currentTimeMillis() - millis) + " ms.");
-        }
-        return IMAGE_OK;
-    }
-
     /**
      * @param geolocationOfFileString Geolocation of image. If geotag doesn't exists, then this will be an empty string
      * @param latLng Location of wikidata item will be edited after upload
@@ -131,55 +104,6 @@ public class ImageUtils {
         return distance >= 1000;
     }
 
-    private static boolean checkIfImageIsDark(Bitmap bitmap) {
-        if (bitmap == null) {
-            Timber.e("Expected bitmap was null");
-            return true;
-        }
-
-        int bitmapWidth = bitmap.getWidth();
-        int bitmapHeight = bitmap.getHeight();
-
-        int allPixelsCount = bitmapWidth * bitmapHeight;
-        int numberOfBrightPixels = 0;
-        int numberOfMediumBrightnessPixels = 0;
-        double brightPixelThreshold = 0.025 * allPixelsCount;
-        double mediumBrightPixelThreshold = 0.3 * allPixelsCount;
-
-        for (int x = 0; x < bitmapWidth; x++) {
-            for (int y = 0; y < bitmapHeight; y++) {
-                int pixel = bitmap.getPixel(x, y);
-                int r = Color.red(pixel);
-                int g = Color.green(pixel);
-                int b = Color.blue(pixel);
-
-                int secondMax = r > g ? r : g;
-                double max = (secondMax > b ? secondMax : b) / 255.0;
-
-                int secondMin = r < g ? r : g;
-                double min = (secondMin < b ? secondMin : b) / 255.0;
-
-                double luminance = ((max + min) / 2.0) * 100;
-
-                int highBrightnessLuminance = 40;
-                int mediumBrightnessLuminance = 26;
-
-                if (luminance < highBrightnessLuminance) {
-                    if (luminance > mediumBrightnessLuminance) {
-                        numberOfMediumBrightnessPixels++;
-                    }
-                } else {
-                    numberOfBrightPixels++;
-                }
-
-                if (numberOfBrightPixels >= brightPixelThreshold || numberOfMediumBrightnessPixels >= mediumBrightPixelThreshold) {
-                    return false;
-                }
-            }
-        }
-        return true;
-    }
-
     /**
      * Downloads the image from the URL and sets it as the phone's wallpaper
      * Fails silently if download or setting wallpaper fails.
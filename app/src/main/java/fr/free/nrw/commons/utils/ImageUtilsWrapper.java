@@ -6,17 +6,21 @@ import javax.inject.Singleton;
 import io.reactivex.Single;
 import io.reactivex.schedulers.Schedulers;
 import fr.free.nrw.commons.location.LatLng;
+import fr.free.nrw.commons.upload.ImageFactsReader;
 
 @Singleton
 public class ImageUtilsWrapper {
 
-    @Inject
-    public ImageUtilsWrapper() {
+    private final ImageFactsReader imageFactsReader;
 
+    @Inject
+    public ImageUtilsWrapper(ImageFactsReader imageFactsReader) {
+        this.imageFactsReader = imageFactsReader;
     }
 
-    public Single<Integer> checkIfImageIsTooDark(String bitmapPath) {
-        return Single.just(ImageUtils.checkIfImageIsTooDark(bitmapPath))
+    public Single<Integer> checkIfImageIsDarkOrBlurry(String bitmapPath) {
+        return Single.fromCallable(() -> ImageQualityAnalyzer.analyze(bitmapPath,
+                imageFactsReader.getFacts(bitmapPath).getThumbnail()))
                 .subscribeOn(Schedulers.computation())
                 .observeOn(Schedulers.computation());
     }
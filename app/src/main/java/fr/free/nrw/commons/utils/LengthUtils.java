@@ -61,6 +61,109 @@ public class LengthUtils {
         return computeAngleBetween(point1, point2) * 6371009.0D; // Earth's radius in meter
     }
 
+    /**
+     * Computes the distance between two points given as coordinates in degrees, for callers which
+     * keep coordinates in primitive arrays.
+     *
+     * @param latitude1 latitude of point1
+     * @param longitude1 longitude of point1
+     * @param latitude2 latitude of point2
+     * @param longitude2 longitude of point2
+     * @return distance between the points in meters
+     */
+    public static double computeDistanceBetween(double latitude1, double longitude1,
+                                                double latitude2, double longitude2) {
+        return distanceRadians(
+                Math.toRadians(latitude1),
+                Math.toRadians(longitude1),
+                Math.toRadians(latitude2),
+                Math.toRadians(longitude2)
+        ) * 6371009.0D;
+    }
+
+    /**
+     * Computes the distances from an origin to many points kept in primitive arrays. The sine and
+     * cosine of the origin are computed once, leaving three trigonometric calls per point.
+     *
+     * @param originLatitude latitude of the origin in degrees
+     * @param originLongitude longitude of the origin in degrees
+     * @param latitudes latitudes of the points in degrees
+     * @param longitudes longitudes of the points in degrees
+     * @param distances filled with the distances in meters, may be shorter than the points
+     * @param count number of points to compute
+     */
+    public static void computeDistances(double originLatitude, double originLongitude,
+                                        double[] latitudes, double[] longitudes,
+                                        double[] distances, int count) {
+        double lat1 = Math.toRadians(originLatitude);
+        double lng1 = Math.toRadians(originLongitude);
+        double cosLat1 = Math.cos(lat1);
+        for (int i = 0; i < count; i++) {
+            double lat2 = Math.toRadians(latitudes[i]);
+            double sinHalfLat = Math.sin((lat1 - lat2) * 0.5D);
+            double sinHalfLng = Math.sin((lng1 - Math.toRadians(longitudes[i])) * 0.5D);
+            double havDistance = sinHalfLat * sinHalfLat
+                    + sinHalfLng * sinHalfLng * cosLat1 * Math.cos(lat2);
+            distances[i] = arcHav(Math.min(1.0D, havDistance)) * 6371009.0D;
+        }
+    }
+
+    /**
+     * Approximates the distances from an origin to many points with an equirectangular
+     * projection, without any trigonometric call per point. Below 70 degrees of latitude, the error
+     * stays under a centimeter up to 10km away from the origin and under 10 meters up to 100km, so
+     * it fits sorting and filtering places close to the user.
+     *
+     * @param originLatitude latitude of the origin in degrees
+     * @param originLongitude longitude of the origin in degrees
+     * @param latitudes latitudes of the points in degrees
+     * @param longitudes longitudes of the points in degrees
+     * @param distances filled with the distances in meters, may be shorter than the points
+     * @param count number of points to compute
+     */
+    public static void computeApproximateDistances(double originLatitude, double originLongitude,
+                                                   double[] latitudes, double[] longitudes,
+                                                   double[] distances, int count) {
+        double lat1 = Math.toRadians(originLatitude);
+        double lng1 = Math.toRadians(originLongitude);
+        double cosLat1 = Math.cos(lat1);
+        double sinLat1 = Math.sin(lat1);
+        for (int i = 0; i < count; i++) {
+            double deltaLat = Math.toRadians(latitudes[i]) - lat1;
+            double deltaLng = Math.toRadians(longitudes[i]) - lng1;
+            if (deltaLng > Math.PI) {
+                deltaLng -= 2 * Math.PI;
+            } else if (deltaLng < -Math.PI) {
+                deltaLng += 2 * Math.PI;
+            }
+            // Cosine of the mid latitude, developed around the origin
+            double x = deltaLng * (cosLat1 - sinLat1 * deltaLat * 0.5D);
+            distances[i] = Math.sqrt(x * x + deltaLat * deltaLat) * 6371009.0D;
+        }
+    }
+
+    /**
+     * Computes the location reached by moving from a point along a heading.
+     *
+     * @param from starting point
+     * @param distance distance to move in meters
+     * @param heading heading in degrees clockwise from north
+     * @return the location reached
+     */
+    public static LatLng computeOffset(@NonNull LatLng from, double distance, double heading) {
+        double angularDistance = distance / 6371009.0D; // Earth's radius in meter
+        double headingRadians = Math.toRadians(heading);
+        double fromLatitude = Math.toRadians(from.getLatitude());
+        double fromLongitude = Math.toRadians(from.getLongitude());
+        double sinLatitude = Math.sin(fromLatitude) * Math.cos(angularDistance)
+                + Math.cos(fromLatitude) * Math.sin(angularDistance) * Math.cos(headingRadians);
+        double latitude = Math.asin(sinLatitude);
+        double longitude = fromLongitude + Math.atan2(
+                Math.sin(headingRadians) * Math.sin(angularDistance) * Math.cos(fromLatitude),
+                Math.cos(angularDistance) - Math.sin(fromLatitude) * sinLatitude);
+        return new LatLng(Math.toDegrees(latitude), Math.toDegrees(longitude), 0);
+    }
+
     /**
      * Computes angle between two points
      *
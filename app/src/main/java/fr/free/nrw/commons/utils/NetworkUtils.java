@@ -30,10 +30,26 @@ public class NetworkUtils {
         return activeNetwork != null && activeNetwork.isConnectedOrConnecting();
     }
 
+    /**
+     * Checks if the active network may cost the user money, ie. mobile data
+     *
+     * @param context context passed to this method could be null.
+     * @return true if the network is metered, or if it could not be checked
+     */
+    @SuppressLint("MissingPermission")
+    public static boolean isConnectionMetered(@Nullable Context context) {
+        if (context == null) {
+            return true;
+        }
+        ConnectivityManager connectivityManager =
+                (ConnectivityManager) context.getApplicationContext().getSystemService(Context.CONNECTIVITY_SERVICE);
+        return connectivityManager == null || connectivityManager.isActiveNetworkMetered();
+    }
+
     /**
      * Detect network connection type
      */
-    static NetworkConnectionType getNetworkType(Context context) {
+    public static NetworkConnectionType getNetworkType(Context context) {
         TelephonyManager telephonyManager = (TelephonyManager) context.getApplicationContext().getSystemService(Context.TELEPHONY_SERVICE);
         if (telephonyManager == null) {
             return NetworkConnectionType.UNKNOWN;
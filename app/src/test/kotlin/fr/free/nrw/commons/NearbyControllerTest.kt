@@ -1,7 +1,11 @@
 package fr.free.nrw.commons
 
 import fr.free.nrw.commons.location.LatLng
+import fr.free.nrw.commons.nearby.Label
+import fr.free.nrw.commons.nearby.NearbyBaseMarker
+import fr.free.nrw.commons.nearby.NearbyController.addDistinctMarkers
 import fr.free.nrw.commons.nearby.NearbyController.loadAttractionsFromLocationToBaseMarkerOptions
+import fr.free.nrw.commons.nearby.Place
 import androidx.test.core.app.ApplicationProvider
 import org.junit.Assert.assertEquals
 import org.junit.Test
@@ -32,4 +36,22 @@ class NearbyControllerTest {
 
         assertEquals(0, options.size.toLong())
     }
+
+    @Test
+    fun addsBookmarksOfPreviewBatchesOnce() {
+        val location = LatLng(0.0, 0.0, 0f)
+        val bookmark = Place("bookmark", Label.UNKNOWN, "", LatLng(0.1, 0.1, 0f), "", null)
+        val batches = (0 until 3).map {
+            listOf(Place("place$it", Label.UNKNOWN, "", LatLng(0.0, it * 0.01, 0f), "", null))
+        }
+
+        val markers = mutableListOf<NearbyBaseMarker>()
+        val markerIds = mutableSetOf<String>()
+        for (batch in batches) {
+            addDistinctMarkers(markers, markerIds, loadAttractionsFromLocationToBaseMarkerOptions(
+                    location, batch + bookmark, ApplicationProvider.getApplicationContext(), listOf(bookmark)))
+        }
+
+        assertEquals(listOf("bookmark", "place0", "place1", "place2"), markers.map { it.place.name }.sorted())
+    }
 }
@@ -0,0 +1,43 @@
+package fr.free.nrw.commons.caching
+
+import android.content.Context
+import com.google.gson.Gson
+import com.nhaarman.mockito_kotlin.mock
+import com.nhaarman.mockito_kotlin.whenever
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertTrue
+import org.junit.Before
+import org.junit.Test
+import java.io.File
+import java.nio.file.Files
+
+class CacheControllerTest {
+
+    private lateinit var context: Context
+
+    @Before
+    fun setUp() {
+        val cacheDir: File = Files.createTempDirectory("cache").toFile()
+        context = mock()
+        whenever(context.cacheDir).thenReturn(cacheDir)
+    }
+
+    @Test
+    fun mergesAndRanksCategoriesOfNearbyPoints() {
+        val cacheController = CacheController(context, Gson())
+        cacheController.cacheCategory(48.8500, 2.3500, listOf("Paris", "Seine"))
+        cacheController.cacheCategory(48.8504, 2.3500, listOf("Paris", "Bridges"))
+        cacheController.cacheCategory(48.9000, 2.3500, listOf("Saint-Denis"))
+
+        assertEquals(listOf("Paris", "Seine", "Bridges"), cacheController.findCategory(48.8501, 2.3500))
+        assertTrue(cacheController.findCategory(0.0, 0.0).isEmpty())
+    }
+
+    @Test
+    fun replacesPointAtSamePlaceAndKeepsItAcrossInstances() {
+        CacheController(context, Gson()).cacheCategory(48.85, 2.35, listOf("Old"))
+        CacheController(context, Gson()).cacheCategory(48.85, 2.35, listOf("New"))
+
+        assertEquals(listOf("New"), CacheController(context, Gson()).findCategory(48.85, 2.35))
+    }
+}
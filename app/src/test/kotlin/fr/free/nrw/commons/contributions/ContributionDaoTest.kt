@@ -135,6 +135,16 @@ class ContributionDaoTest {
         }
     }
 
+    @Test
+    fun migrateTableVersionFrom_v10_to_v11() {
+        Table.onUpdate(database, 10, 11)
+        // Table changed in version 11
+        inOrder(database) {
+            verify<SQLiteDatabase>(database).execSQL(Table.ADD_CHUNK_OFFSET_FIELD)
+            verify<SQLiteDatabase>(database).execSQL(Table.ADD_FILEKEY_FIELD)
+        }
+    }
+
     @Test
     fun saveNewContribution_nonNullFields() {
         whenever(client.insert(isA(), isA())).thenReturn(contentUri)
@@ -149,6 +159,7 @@ class ContributionDaoTest {
             assertEquals(222L, it.getAsLong(Table.COLUMN_LENGTH))
             assertEquals(321L, it.getAsLong(Table.COLUMN_TIMESTAMP))
             assertEquals(333L, it.getAsLong(Table.COLUMN_TRANSFERRED))
+            assertEquals(1024L, it.getAsLong(Table.COLUMN_CHUNK_OFFSET))
 
             // Integer fields
             assertEquals(STATE_COMPLETED, it.getAsInteger(Table.COLUMN_STATE))
@@ -160,6 +171,7 @@ class ContributionDaoTest {
             assertEquals("desc", it.getAsString(Table.COLUMN_DESCRIPTION))
             assertEquals("create", it.getAsString(Table.COLUMN_CREATOR))
             assertEquals("007", it.getAsString(Table.COLUMN_LICENSE))
+            assertEquals("abc.jpg", it.getAsString(Table.COLUMN_FILEKEY))
         }
     }
 
@@ -289,6 +301,8 @@ class ContributionDaoTest {
                 assertEquals(640, it.width)
                 assertEquals(480, it.height)
                 assertEquals("007", it.license)
+                assertEquals(1024L, it.chunkOffset)
+                assertEquals("abc.jpg", it.filekey)
             }
         }
     }
@@ -327,7 +341,7 @@ class ContributionDaoTest {
             MatrixCursor(Table.ALL_FIELDS, 1).apply {
                 addRow(listOf("111", "filePath", localUri, "image",
                         created, STATE_QUEUED, 222L, uploaded, 88L, SOURCE_GALLERY, "desc",
-                        "create", if (multiple) 1 else 0, 640, 480, "007", "Q1"))
+                        "create", if (multiple) 1 else 0, 640, 480, "007", "Q1", 1024L, "abc.jpg"))
                 moveToFirst()
             }
 
@@ -341,6 +355,8 @@ class ContributionDaoTest {
             multiple = isMultiple
             width = 640
             height = 480  // VGA should be enough for anyone, right?
+            chunkOffset = 1024L
+            filekey = "abc.jpg"
         }
         contribution.wikiDataEntityId = "Q1"
         return contribution
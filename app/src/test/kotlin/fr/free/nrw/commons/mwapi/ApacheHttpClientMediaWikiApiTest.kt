@@ -19,6 +19,7 @@ import org.mockito.Mockito.mock
 import org.robolectric.RobolectricTestRunner
 import org.robolectric.annotation.Config
 import org.wikipedia.util.DateUtil
+import java.io.File
 import java.net.URLDecoder
 import java.util.*
 
@@ -38,7 +39,7 @@ class ApacheHttpClientMediaWikiApiTest {
         wikidataServer = MockWebServer()
         okHttpClient = OkHttpClient()
         sharedPreferences = mock(JsonKvStore::class.java)
-        testObject = ApacheHttpClientMediaWikiApi(ApplicationProvider.getApplicationContext(), "http://" + server.hostName + ":" + server.port + "/", "http://" + wikidataServer.hostName + ":" + wikidataServer.port + "/", sharedPreferences, Gson())
+        testObject = ApacheHttpClientMediaWikiApi(ApplicationProvider.getApplicationContext(), "http://" + server.hostName + ":" + server.port + "/", "http://" + wikidataServer.hostName + ":" + wikidataServer.port + "/", sharedPreferences, Gson(), okHttpClient)
     }
 
     @After
@@ -239,6 +240,44 @@ class ApacheHttpClientMediaWikiApiTest {
         assertFalse(result)
     }
 
+    @Test
+    fun getExistingFileNames() {
+        server.enqueue(MockResponse().setBody("<?xml version=\"1.0\"?><api batchcomplete=\"\"><query><normalized><n from=\"File:foo.jpg\" to=\"File:Foo.jpg\" /></normalized><pages><page _idx=\"-1\" ns=\"6\" title=\"File:Bar.jpg\" missing=\"\" imagerepository=\"\" /><page _idx=\"12\" pageid=\"12\" ns=\"6\" title=\"File:Foo.jpg\" imagerepository=\"local\"><imageinfo><ii timestamp=\"2019-01-01T00:00:00Z\" user=\"Someone\" /></imageinfo></page></pages></query></api>"))
+
+        val result = testObject.getExistingFileNames(listOf("foo.jpg", "Bar.jpg"))
+
+        assertBasicRequestParameters(server, "GET").let { request ->
+            parseQueryParams(request).let { params ->
+                assertEquals("query", params["action"])
+                assertEquals("imageinfo", params["prop"])
+                assertEquals(setOf("File:foo.jpg", "File:Bar.jpg"), params["titles"]!!.split("|").toSet())
+            }
+        }
+
+        assertEquals(setOf("foo.jpg"), result)
+    }
+
+    @Test
+    fun getUploadedFileHashesFetchesEveryPage() {
+        server.enqueue(MockResponse().setBody("<?xml version=\"1.0\"?><api><query-continue><allimages aicontinue=\"20190101000000|Foo.jpg\" /></query-continue><query><allimages><img name=\"Bar.jpg\" sha1=\"aaa\" /></allimages></query></api>"))
+        server.enqueue(MockResponse().setBody("<?xml version=\"1.0\"?><api><query><allimages><img name=\"Foo.jpg\" sha1=\"bbb\" /></allimages></query></api>"))
+
+        val result = testObject.getUploadedFileHashes("Someone", "")
+
+        assertBasicRequestParameters(server, "GET").let { request ->
+            parseQueryParams(request).let { params ->
+                assertEquals("allimages", params["list"])
+                assertEquals("1", params["rawcontinue"])
+                assertEquals("Someone", params["aiuser"])
+                assertNull(params["aicontinue"])
+            }
+        }
+        assertBasicRequestParameters(server, "GET").let { request ->
+            assertEquals("20190101000000|Foo.jpg", parseQueryParams(request)["aicontinue"])
+        }
+        assertEquals(listOf("aaa", "bbb"), result)
+    }
+
     @Test
     fun isUserBlockedFromCommonsForInfinitelyBlockedUser() {
         server.enqueue(MockResponse().setBody("<?xml version=\"1.0\"?><api><query><userinfo id=\"1000\" name=\"testusername\" blockid=\"3000\" blockedby=\"blockerusername\" blockedbyid=\"1001\" blockreason=\"testing\" blockedtimestamp=\"2018-05-24T15:32:09Z\" blockexpiry=\"infinite\"></userinfo></query></api>"))
@@ -315,6 +354,89 @@ class ApacheHttpClientMediaWikiApiTest {
         assertFalse(result)
     }
 
+    @Test
+    fun uploadFileInChunks() {
+        val file = createFile(ApacheHttpClientMediaWikiApi.CHUNK_SIZE + 10)
+        server.enqueue(MockResponse().setBody("<?xml version=\"1.0\"?><api><query><tokens csrftoken=\"baz\" /></query></api>"))
+        server.enqueue(MockResponse().setBody("<?xml version=\"1.0\"?><api><upload result=\"Continue\" offset=\"${ApacheHttpClientMediaWikiApi.CHUNK_SIZE}\" filekey=\"abc.jpg\" /></api>"))
+        server.enqueue(MockResponse().setBody("<?xml version=\"1.0\"?><api><upload result=\"Success\" filekey=\"abc.jpg\" /></api>"))
+        testObject.authCookie = "session=abc"
+        val acknowledged = ArrayList<Pair<Long, String>>()
+        var transferred = 0L
+
+        val result = testObject.uploadFileInChunks("foo.jpg", file, 0, null,
+                { offset, filekey -> acknowledged.add(Pair(offset, filekey)) },
+                { bytes, _ -> transferred = bytes }).blockingGet()
+
+        server.takeRequest()
+        val firstChunk = server.takeRequest()
+        // Chunks go through the OkHttp client with the session of the Apache one
+        assertEquals("session=abc", firstChunk.getHeader("Cookie"))
+        parseMultipartBody(firstChunk).let { body ->
+            assertEquals("upload", body["action"])
+            assertEquals("1", body["stash"])
+            assertEquals("baz", body["token"])
+            assertEquals((ApacheHttpClientMediaWikiApi.CHUNK_SIZE + 10).toString(), body["filesize"])
+            assertEquals("0", body["offset"])
+            assertNull(body["filekey"])
+        }
+        parseMultipartBody(server.takeRequest()).let { body ->
+            assertEquals(ApacheHttpClientMediaWikiApi.CHUNK_SIZE.toString(), body["offset"])
+            assertEquals("abc.jpg", body["filekey"])
+        }
+        assertEquals(listOf(Pair(ApacheHttpClientMediaWikiApi.CHUNK_SIZE.toLong(), "abc.jpg")), acknowledged)
+        assertEquals((ApacheHttpClientMediaWikiApi.CHUNK_SIZE + 10).toLong(), transferred)
+        assertEquals("Success", result.resultStatus)
+        assertEquals("abc.jpg", result.filekey)
+    }
+
+    @Test
+    fun uploadFileInChunksResumesFromAcknowledgedOffset() {
+        val file = createFile(ApacheHttpClientMediaWikiApi.CHUNK_SIZE + 10)
+        server.enqueue(MockResponse().setBody("<?xml version=\"1.0\"?><api><query><tokens csrftoken=\"baz\" /></query></api>"))
+        server.enqueue(MockResponse().setBody("<?xml version=\"1.0\"?><api><upload result=\"Success\" filekey=\"abc.jpg\" /></api>"))
+
+        val result = testObject.uploadFileInChunks("foo.jpg", file, ApacheHttpClientMediaWikiApi.CHUNK_SIZE.toLong(), "abc.jpg",
+                { _, _ -> fail() }, { _, _ -> }).blockingGet()
+
+        server.takeRequest()
+        server.takeRequest().let { request ->
+            // Only the last 10 bytes are sent again
+            assertTrue(request.bodySize < ApacheHttpClientMediaWikiApi.CHUNK_SIZE)
+            parseMultipartBody(request).let { body ->
+                assertEquals(ApacheHttpClientMediaWikiApi.CHUNK_SIZE.toString(), body["offset"])
+                assertEquals("abc.jpg", body["filekey"])
+            }
+        }
+        assertEquals(2, server.requestCount)
+        assertEquals("abc.jpg", result.filekey)
+    }
+
+    @Test
+    fun uploadFileInChunksSkipsStashedFile() {
+        val file = createFile(10)
+
+        val result = testObject.uploadFileInChunks("foo.jpg", file, 10, "abc.jpg",
+                { _, _ -> fail() }, { _, _ -> }).blockingGet()
+
+        assertEquals(0, server.requestCount)
+        assertEquals("Success", result.resultStatus)
+        assertEquals("abc.jpg", result.filekey)
+    }
+
+    @Test
+    fun uploadFileInChunksFailure() {
+        val file = createFile(10)
+        server.enqueue(MockResponse().setBody("<?xml version=\"1.0\"?><api><query><tokens csrftoken=\"baz\" /></query></api>"))
+        server.enqueue(MockResponse().setBody("<?xml version=\"1.0\"?><api><error code=\"stashfailed\" info=\"Chunked upload is already completed.\" /></api>"))
+
+        val result = testObject.uploadFileInChunks("foo.jpg", file, 0, null,
+                { _, _ -> fail() }, { _, _ -> }).blockingGet()
+
+        assertEquals("stashfailed", result.errorCode)
+        assertEquals("", result.filekey)
+    }
+
     private fun assertBasicRequestParameters(server: MockWebServer, method: String): RecordedRequest = server.takeRequest().let {
         assertEquals("/", it.requestUrl.encodedPath())
         assertEquals(method, it.method)
@@ -332,6 +454,17 @@ class ApacheHttpClientMediaWikiApiTest {
         }
     }
 
+    private fun createFile(size: Int): File = File.createTempFile("upload", ".jpg").apply {
+        writeBytes(ByteArray(size) { 'a'.toByte() })
+        deleteOnExit()
+    }
+
+    private fun parseMultipartBody(request: RecordedRequest): Map<String, String> = HashMap<String, String>().apply {
+        Regex("name=\"([^\"]+)\".*?\r\n\r\n([^\r]*)\r\n", RegexOption.DOT_MATCHES_ALL)
+                .findAll(request.body.readUtf8())
+                .forEach { put(it.groupValues[1], it.groupValues[2]) }
+    }
+
     private fun parseBody(body: String): Map<String, String> = HashMap<String, String>().apply {
         body.split("&".toRegex()).dropLastWhile { it.isEmpty() }.toTypedArray().forEach { prop ->
             val pair = prop.split("=".toRegex()).dropLastWhile { it.isEmpty() }.toTypedArray()
@@ -5,8 +5,10 @@ import fr.free.nrw.commons.BuildConfig
 import fr.free.nrw.commons.Media
 import fr.free.nrw.commons.TestCommonsApplication
 import fr.free.nrw.commons.kvstore.JsonKvStore
+import fr.free.nrw.commons.location.LatLng
 import fr.free.nrw.commons.mwapi.OkHttpJsonApiClient.mapType
 import fr.free.nrw.commons.utils.CommonsDateUtil
+import io.reactivex.schedulers.Schedulers
 import junit.framework.Assert.assertEquals
 import okhttp3.HttpUrl
 import okhttp3.OkHttpClient
@@ -23,6 +25,7 @@ import org.mockito.Mockito.`when`
 import org.robolectric.RobolectricTestRunner
 import org.robolectric.annotation.Config
 import java.util.*
+import java.util.concurrent.TimeUnit
 import kotlin.random.Random
 
 /**
@@ -237,6 +240,29 @@ class OkHttpJsonApiClientTest {
         assert(media is Media)
     }
 
+    /**
+     * Test that nearby places are emitted before the whole response has arrived
+     */
+    @Test
+    fun getNearbyPlacesEmitsPlacesAsTheyAreRead() {
+        val firstBinding = """{"head": {}, "results": {"bindings": [{"item": {"type": "uri", "value": "http://www.wikidata.org/entity/Q1"}, "location": {"type": "literal", "value": "Point(2.35 48.85)"}, "label": {"type": "literal", "value": "First"}},"""
+        val rest = """{"item": {"type": "uri", "value": "http://www.wikidata.org/entity/Q2"}, "location": {"type": "literal", "value": "Point(2.36 48.86)"}, "label": {"type": "literal", "value": "Second"}}]}}"""
+        // The second binding arrives a while after the first one
+        sparqlServer.enqueue(MockResponse().setBody(firstBinding + rest)
+                .throttleBody(firstBinding.length.toLong(), 1, TimeUnit.SECONDS))
+
+        val observer = testObject.getNearbyPlaces(LatLng(48.85, 2.35, 0f), "en", 1.0)
+                .map { it.name }
+                .subscribeOn(Schedulers.io())
+                .test()
+
+        observer.awaitCount(1)
+        observer.assertValues("First")
+        observer.assertNotComplete()
+        observer.awaitTerminalEvent()
+        observer.assertValues("First", "Second")
+    }
+
     private fun testFirstPageSearchQuery() {
         val categoryImages = testObject.getMediaList("search", "Watercraft moored off shore")!!.blockingGet()
 
@@ -0,0 +1,56 @@
+package fr.free.nrw.commons.nearby
+
+import fr.free.nrw.commons.location.LatLng
+import fr.free.nrw.commons.utils.LengthUtils.computeDistanceBetween
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertNull
+import org.junit.Test
+import java.util.Random
+
+class NearbyPlaceIndexTest {
+
+    private fun place(name: String, latitude: Double, longitude: Double) =
+            Place(name, Label.UNKNOWN, "", LatLng(latitude, longitude, 0f), "", null)
+
+    @Test
+    fun answersLikeALinearScan() {
+        val random = Random(42)
+        val center = LatLng(48.85, 2.35, 0f)
+        val places = (0 until 2000).map {
+            place("place$it", 48.85 + random.nextGaussian() * 0.2, 2.35 + random.nextGaussian() * 0.2)
+        }
+        val index = NearbyPlaceIndex()
+        index.addPlaces(center, "en", 50.0, places)
+
+        for (radius in listOf(0.5, 2.0, 10.0, 40.0)) {
+            val expected = places.filter { computeDistanceBetween(center, it.location) <= radius * 1000 }
+            assertEquals(expected.toSet(), index.getPlaces(center, "en", radius).toSet())
+
+            val boundaries = index.getBoundaryCoordinates(center, "en", radius)!!
+            assertEquals(expected.minBy { it.location.latitude }!!.location, boundaries[0])
+            assertEquals(expected.maxBy { it.location.latitude }!!.location, boundaries[1])
+            assertEquals(expected.minBy { it.location.longitude }!!.location, boundaries[2])
+            assertEquals(expected.maxBy { it.location.longitude }!!.location, boundaries[3])
+        }
+
+        for (i in 0 until 50) {
+            val location = LatLng(48.85 + random.nextGaussian() * 0.1, 2.35 + random.nextGaussian() * 0.1, 0f)
+            val expected = places.filter { computeDistanceBetween(location, it.location) <= 5000 }
+                    .minBy { computeDistanceBetween(location, it.location) }
+            assertEquals(expected, index.getClosestPlace(location, "en", 5.0))
+        }
+    }
+
+    @Test
+    fun coversOnlyQueriedAreas() {
+        val index = NearbyPlaceIndex()
+        index.addPlaces(LatLng(0.0, 0.0, 0f), "en", 10.0, listOf(place("place", 0.0, 0.0)))
+
+        assertEquals(10.0, index.getCoveredRadius(LatLng(0.0, 0.0, 0f), "en"), 1e-9)
+        assertEquals(0.0, index.getCoveredRadius(LatLng(1.0, 1.0, 0f), "en"), 1e-9)
+        assertEquals(0.0, index.getCoveredRadius(LatLng(0.0, 0.0, 0f), "fr"), 1e-9)
+
+        index.clear()
+        assertNull(index.getBoundaryCoordinates(LatLng(0.0, 0.0, 0f), "en", 10.0))
+    }
+}
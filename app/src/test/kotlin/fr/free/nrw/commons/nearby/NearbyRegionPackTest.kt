@@ -0,0 +1,52 @@
+package fr.free.nrw.commons.nearby
+
+import fr.free.nrw.commons.TestCommonsApplication
+import fr.free.nrw.commons.location.LatLng
+import fr.free.nrw.commons.utils.LengthUtils.computeDistanceBetween
+import org.junit.Assert.assertEquals
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.robolectric.RobolectricTestRunner
+import org.robolectric.annotation.Config
+import java.io.File
+import java.util.Random
+
+@RunWith(RobolectricTestRunner::class)
+@Config(sdk = [21], application = TestCommonsApplication::class)
+class NearbyRegionPackTest {
+
+    private fun place(id: Int, latitude: Double, longitude: Double) =
+            Place("place$id", Label.UNKNOWN, "description $id", LatLng(latitude, longitude, 0f), "category$id",
+                    Sitelinks.Builder()
+                            .setWikipediaLink("https://en.wikipedia.org/wiki/Place_$id")
+                            .setCommonsLink("")
+                            .setWikidataLink("http://www.wikidata.org/entity/Q$id")
+                            .build())
+
+    @Test
+    fun readsBackPlacesInsideCircle() {
+        val random = Random(7)
+        val center = LatLng(52.52, 13.40, 0f)
+        val places = (0 until 500).map {
+            place(it, 52.52 + random.nextGaussian() * 0.1, 13.40 + random.nextGaussian() * 0.1)
+        }
+        val file = File.createTempFile("nearby", ".pack")
+        NearbyRegionPack.write(file, center, 20.0, places)
+
+        val pack = NearbyRegionPack.open(file)
+
+        assertEquals(500, pack.size())
+        assertEquals(20.0, pack.getCoveredRadius(center), 1e-9)
+        val expected = places.filter { computeDistanceBetween(center, it.location) <= 5000 }
+        val actual = pack.getPlaces(center, 5.0)
+        assertEquals(expected.map { it.wikiDataEntityId }.toSet(), actual.map { it.wikiDataEntityId }.toSet())
+
+        val first = actual.first { it.wikiDataEntityId == expected[0].wikiDataEntityId }
+        assertEquals(expected[0].name, first.name)
+        assertEquals(expected[0].longDescription, first.longDescription)
+        assertEquals(expected[0].category, first.category)
+        assertEquals(expected[0].location, first.location)
+        assertEquals(expected[0].siteLinks.wikipediaLink, first.siteLinks.wikipediaLink)
+        file.delete()
+    }
+}
@@ -0,0 +1,62 @@
+package fr.free.nrw.commons.nearby
+
+import fr.free.nrw.commons.location.LatLng
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertNull
+import org.junit.Test
+
+class NearbyResultSetTest {
+
+    private fun place(name: String, latitude: Double, longitude: Double) =
+            Place(name, Label.UNKNOWN, "", LatLng(latitude, longitude, 0f), "", null)
+
+    @Test
+    fun sortsByDistanceBelowOneMeter() {
+        val origin = LatLng(0.0, 0.0, 0f)
+        // 0.1m, 0.5m and 0.9m away, which all compared as equal when distances were cast to int
+        val far = place("far", 0.0, 0.0000081)
+        val near = place("near", 0.0, 0.0000009)
+        val middle = place("middle", 0.0, 0.0000045)
+
+        val resultSet = NearbyResultSet(listOf(far, near, middle), origin)
+
+        assertEquals(listOf(near, middle, far), resultSet.getClosestPlaces(10))
+    }
+
+    @Test
+    fun selectsClosestPlaces() {
+        val origin = LatLng(0.0, 0.0, 0f)
+        val places = (100 downTo 1).map { place("place$it", 0.0, it / 1000.0) }
+
+        val closest = NearbyResultSet(places, origin).getClosestPlaces(5)
+
+        assertEquals(listOf("place1", "place2", "place3", "place4", "place5"), closest.map { it.name })
+    }
+
+    @Test
+    fun computesBoundaryCoordinates() {
+        val south = place("south", -1.0, 0.0)
+        val north = place("north", 1.0, 0.0)
+        val west = place("west", 0.0, -1.0)
+        val east = place("east", 0.0, 1.0)
+
+        val boundaries = NearbyResultSet(listOf(north, east, south, west), null).boundaryCoordinates!!
+
+        assertEquals(south.location, boundaries[0])
+        assertEquals(north.location, boundaries[1])
+        assertEquals(west.location, boundaries[2])
+        assertEquals(east.location, boundaries[3])
+    }
+
+    @Test
+    fun formatsDistanceLazily() {
+        val place = place("place", 0.0, 0.0)
+        place.setDistanceInMeters(1234.0)
+        assertEquals("1.2km", place.getDistance())
+    }
+
+    @Test
+    fun emptyResultSet() {
+        assertNull(NearbyResultSet(emptyList(), null).boundaryCoordinates)
+    }
+}
@@ -0,0 +1,49 @@
+package fr.free.nrw.commons.nearby
+
+import fr.free.nrw.commons.location.LatLng
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertNull
+import org.junit.Assert.assertSame
+import org.junit.Test
+
+class NearbyStateStoreTest {
+
+    private val place = Place("place", Label.UNKNOWN, "", LatLng(1.0, 1.0, 0f), "", null)
+
+    @Test
+    fun keepsSnapshotIdWhenOnlyLocationChanges() {
+        val store = NearbyStateStore()
+        val snapshot = store.setPlaces(LatLng(0.0, 0.0, 0f), listOf(place), null)
+        val moved = LatLng(0.5, 0.5, 0f)
+
+        val updated = store.setCurLatLng(moved)
+
+        assertEquals(snapshot.id, updated.id)
+        assertEquals(moved, store.getSnapshot(snapshot.id)!!.curLatLng)
+        assertSame(place, updated.placeList[0])
+    }
+
+    @Test
+    fun forgetsReplacedAndClearedSnapshots() {
+        val store = NearbyStateStore()
+        val first = store.setPlaces(LatLng(0.0, 0.0, 0f), listOf(place), null)
+        val second = store.setPlaces(LatLng(0.0, 0.0, 0f), emptyList(), null)
+
+        assertNull(store.getSnapshot(first.id))
+        assertSame(second, store.getSnapshot(second.id))
+
+        store.clear()
+        assertNull(store.getSnapshot(second.id))
+    }
+
+    @Test
+    fun idsOfAnotherProcessDoNotMatch() {
+        val previousProcess = NearbyStateStore()
+        val restoredId = previousProcess.setPlaces(LatLng(0.0, 0.0, 0f), listOf(place), null).id
+
+        val store = NearbyStateStore()
+        store.setPlaces(LatLng(0.0, 0.0, 0f), listOf(place), null)
+
+        assertNull(store.getSnapshot(restoredId))
+    }
+}
@@ -0,0 +1,60 @@
+package fr.free.nrw.commons.nearby.model
+
+import fr.free.nrw.commons.nearby.Label
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertNull
+import org.junit.Test
+import java.io.StringReader
+
+class NearbyResultReaderTest {
+
+    @Test
+    fun readsBindingsOneByOne() {
+        val json = """
+            {
+              "head": {"vars": ["location", "item", "label"]},
+              "results": {
+                "bindings": [
+                  {
+                    "location": {"datatype": "http://www.opengis.net/ont/geosparql#wktLiteral", "type": "literal", "value": "Point(2.35 48.85)"},
+                    "item": {"type": "uri", "value": "http://www.wikidata.org/entity/Q1"},
+                    "label": {"xml:lang": "en", "type": "literal", "value": "First"},
+                    "class": {"type": "uri", "value": "http://www.wikidata.org/entity/Q41176"},
+                    "classLabel": {"type": "literal", "value": "building"},
+                    "commonsCategory": {"type": "literal", "value": "First category"}
+                  },
+                  {
+                    "location": {"type": "literal", "value": "Point(2.36 48.86)"},
+                    "item": {"type": "uri", "value": "http://www.wikidata.org/entity/Q2"},
+                    "label": {"type": "literal", "value": "Second"}
+                  }
+                ]
+              }
+            }
+        """.trimIndent()
+
+        val reader = NearbyResultReader(StringReader(json))
+
+        val first = reader.nextPlace()!!
+        assertEquals("First", first.name)
+        assertEquals(Label.BUILDING, first.label)
+        assertEquals("building", first.longDescription)
+        assertEquals("First category", first.category)
+        assertEquals(48.85, first.location.latitude, 1e-9)
+        assertEquals(2.35, first.location.longitude, 1e-9)
+
+        val second = reader.nextPlace()!!
+        assertEquals("Second", second.name)
+        assertEquals("", second.category)
+
+        assertNull(reader.nextPlace())
+        assertNull(reader.nextPlace())
+        reader.close()
+    }
+
+    @Test
+    fun emptyResponse() {
+        val reader = NearbyResultReader(StringReader("""{"head": {}, "results": {"bindings": []}}"""))
+        assertNull(reader.nextPlace())
+    }
+}
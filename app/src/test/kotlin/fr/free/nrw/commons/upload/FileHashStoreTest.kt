@@ -0,0 +1,48 @@
+package fr.free.nrw.commons.upload
+
+import android.content.Context
+import com.google.gson.Gson
+import com.nhaarman.mockito_kotlin.mock
+import com.nhaarman.mockito_kotlin.whenever
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertNull
+import org.junit.Before
+import org.junit.Test
+import java.io.File
+import java.nio.file.Files
+
+class FileHashStoreTest {
+
+    private lateinit var context: Context
+    private lateinit var file: File
+
+    @Before
+    fun setUp() {
+        val cacheDir: File = Files.createTempDirectory("cache").toFile()
+        context = mock()
+        whenever(context.cacheDir).thenReturn(cacheDir)
+        file = File(cacheDir, "image.jpg")
+        file.writeText("hello")
+    }
+
+    @Test
+    fun hashesFilesOnce() {
+        assertEquals("aaf4c61ddcc5e8a2dabede0f3b482cd9aea9434d", FileHashStore(context, Gson()).getSha1(file))
+
+        // A recorded hash is used as is, even by a new instance once it was written
+        val fileHashStore = FileHashStore(context, Gson())
+        fileHashStore.putSha1(file, "recorded")
+        fileHashStore.flush()
+        assertEquals("recorded", FileHashStore(context, Gson()).getSha1(file))
+    }
+
+    @Test
+    fun hashesChangedFilesAgain() {
+        val fileHashStore = FileHashStore(context, Gson())
+        fileHashStore.putSha1(file, "recorded")
+        file.writeText("hello world")
+
+        assertEquals("2aae6c35c94fcfb415dbe95f408b9ce91ee846ed", fileHashStore.getSha1(file))
+        assertNull(fileHashStore.getSha1(File(file.parentFile, "missing.jpg")))
+    }
+}
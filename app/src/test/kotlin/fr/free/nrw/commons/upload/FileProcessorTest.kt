@@ -2,8 +2,14 @@ package fr.free.nrw.commons.upload
 
 import android.content.SharedPreferences
 import androidx.exifinterface.media.ExifInterface
+import com.nhaarman.mockito_kotlin.mock
+import com.nhaarman.mockito_kotlin.never
+import com.nhaarman.mockito_kotlin.verify
+import com.nhaarman.mockito_kotlin.whenever
 import fr.free.nrw.commons.caching.CacheController
 import fr.free.nrw.commons.mwapi.CategoryApi
+import org.junit.Assert.assertFalse
+import org.junit.Assert.assertTrue
 import org.junit.Before
 import org.junit.Test
 import org.mockito.InjectMocks
@@ -86,4 +92,19 @@ class FileProcessorTest {
         }
         */
     }
-}
\ No newline at end of file
+
+    @Test
+    fun redactExifTagsLeavesFilesWithoutTheTags() {
+        val exifInterface = mock<ExifInterface>()
+        whenever(exifInterface.getAttribute(ExifInterface.TAG_COPYRIGHT)).thenReturn(null)
+
+        assertFalse(FileProcessor.redactExifTags(exifInterface, setOf("Copyright")))
+        verify(exifInterface, never()).saveAttributes()
+
+        whenever(exifInterface.getAttribute(ExifInterface.TAG_COPYRIGHT)).thenReturn("Someone")
+
+        assertTrue(FileProcessor.redactExifTags(exifInterface, setOf("Copyright")))
+        verify(exifInterface).setAttribute(ExifInterface.TAG_COPYRIGHT, null)
+        verify(exifInterface).saveAttributes()
+    }
+}
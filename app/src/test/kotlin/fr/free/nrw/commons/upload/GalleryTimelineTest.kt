@@ -0,0 +1,63 @@
+package fr.free.nrw.commons.upload
+
+import android.content.Context
+import com.nhaarman.mockito_kotlin.any
+import com.nhaarman.mockito_kotlin.mock
+import com.nhaarman.mockito_kotlin.whenever
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertNull
+import org.junit.Before
+import org.junit.Test
+import java.io.File
+import java.nio.file.Files
+
+class GalleryTimelineTest {
+
+    private lateinit var folder: File
+    private lateinit var imageFactsReader: ImageFactsReader
+    private lateinit var galleryTimeline: GalleryTimeline
+
+    private val noLocation = ImageFacts(true, false, null, 0.0, 0.0, null, null)
+    private val location = ImageFacts(true, false, "48.85|2.35", 48.85, 2.35, null, null)
+
+    @Before
+    fun setUp() {
+        folder = Files.createTempDirectory("gallery").toFile()
+        imageFactsReader = mock()
+        whenever(imageFactsReader.getFacts(any())).thenReturn(noLocation)
+        // Files out of the media store are looked up in their folder
+        galleryTimeline = GalleryTimeline(mock<Context>(), imageFactsReader)
+    }
+
+    private fun image(name: String, modified: Long, geotagged: Boolean = false): File {
+        val file = File(folder, name)
+        file.writeText(name)
+        file.setLastModified(modified)
+        if (geotagged) {
+            whenever(imageFactsReader.getFacts(file.absolutePath)).thenReturn(location)
+        }
+        return file
+    }
+
+    @Test
+    fun findsClosestGeotaggedImageInTime() {
+        val time = 1_500_000_000_000L
+        val image = image("image.jpg", time)
+        image("far.jpg", time - 200_000, geotagged = true)
+        image("before.jpg", time - 60_000, geotagged = true)
+        image("after.jpg", time + 30_000, geotagged = true)
+        image("close.jpg", time + 1_000)
+
+        assertEquals(File(folder, "after.jpg").absolutePath, galleryTimeline.findGeotaggedNeighbour(image.path))
+    }
+
+    @Test
+    fun ignoresImagesOutOfTheTimeWindow() {
+        val time = 1_500_000_000_000L
+        val image = image("image.jpg", time)
+        image("before.jpg", time - 121_000, geotagged = true)
+        image("after.jpg", time + 121_000, geotagged = true)
+
+        assertNull(galleryTimeline.findGeotaggedNeighbour(image.path))
+    }
+}
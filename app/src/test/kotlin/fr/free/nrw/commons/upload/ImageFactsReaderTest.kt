@@ -0,0 +1,62 @@
+package fr.free.nrw.commons.upload
+
+import fr.free.nrw.commons.TestCommonsApplication
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertFalse
+import org.junit.Assert.assertNotNull
+import org.junit.Assert.assertNotSame
+import org.junit.Assert.assertNull
+import org.junit.Assert.assertSame
+import org.junit.Assert.assertTrue
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.robolectric.RobolectricTestRunner
+import org.robolectric.annotation.Config
+import java.io.File
+
+@RunWith(RobolectricTestRunner::class)
+@Config(sdk = [21], application = TestCommonsApplication::class)
+class ImageFactsReaderTest {
+
+    private fun copySample(): File {
+        val file = File.createTempFile("sample", ".jpg")
+        File("src/test/data/exif_redact_sample.jpg").copyTo(file, overwrite = true)
+        return file
+    }
+
+    @Test
+    fun readsSegmentsBeforeImageData() {
+        val header = ImageFactsReader.readJpegHeader(copySample())!!
+
+        // Segments up to the start of scan marker only
+        assertEquals(1246, header.size)
+        assertEquals(0xDA.toByte(), header.last())
+    }
+
+    @Test
+    fun readsFactsOnceUntilFileChanges() {
+        val file = copySample()
+        val reader = ImageFactsReader()
+
+        val facts = reader.getFacts(file.path)
+        assertTrue(facts.hasExif())
+        assertFalse(facts.isFbmd)
+        assertNotNull(facts.captureDate)
+        assertNull(facts.coords)
+        assertSame(facts, reader.getFacts(file.path))
+
+        file.setLastModified(file.lastModified() - 60000)
+        assertNotSame(facts, reader.getFacts(file.path))
+    }
+
+    @Test
+    fun readsNothingFromOtherFiles() {
+        val file = File.createTempFile("sample", ".txt")
+        file.writeText("Not an image")
+
+        assertNull(ImageFactsReader.readJpegHeader(file))
+        val facts = ImageFactsReader().getFacts(file.path)
+        assertFalse(facts.hasExif())
+        assertNull(facts.thumbnail)
+    }
+}
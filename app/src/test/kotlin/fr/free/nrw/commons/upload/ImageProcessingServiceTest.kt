@@ -15,7 +15,6 @@ import org.mockito.InjectMocks
 import org.mockito.Mock
 import org.mockito.Mockito.*
 import org.mockito.MockitoAnnotations
-import java.io.FileInputStream
 
 class u {
     @Mock
@@ -28,6 +27,8 @@ class u {
     internal var readFBMD: ReadFBMD?=null
     @Mock
     internal var readEXIF: EXIFReader?=null
+    @Mock
+    internal var uploadedHashIndex: UploadedHashIndex? = null
 
     @InjectMocks
     var imageProcessingService: ImageProcessingService? = null
@@ -56,29 +57,23 @@ class u {
 
         `when`(uploadItem.place).thenReturn(mockPlace)
 
-        `when`(fileUtilsWrapper!!.getFileInputStream(ArgumentMatchers.anyString()))
-                .thenReturn(mock(FileInputStream::class.java))
-        `when`(fileUtilsWrapper!!.getSHA1(any(FileInputStream::class.java)))
+        `when`(fileUtilsWrapper!!.getFileSHA1(ArgumentMatchers.anyString()))
                 .thenReturn("fileSha")
 
         `when`(fileUtilsWrapper!!.getGeolocationOfFile(ArgumentMatchers.anyString()))
                 .thenReturn("latLng")
 
-        `when`(imageUtilsWrapper?.checkIfImageIsTooDark(ArgumentMatchers.anyString()))
+        `when`(imageUtilsWrapper?.checkIfImageIsDarkOrBlurry(ArgumentMatchers.anyString()))
                 .thenReturn(Single.just(ImageUtils.IMAGE_OK))
 
         `when`(imageUtilsWrapper!!.checkImageGeolocationIsDifferent(ArgumentMatchers.anyString(), any(LatLng::class.java)))
                 .thenReturn(Single.just(ImageUtils.IMAGE_OK))
 
-        `when`(fileUtilsWrapper!!.getFileInputStream(ArgumentMatchers.anyString()))
-                .thenReturn(mock(FileInputStream::class.java))
-        `when`(fileUtilsWrapper!!.getSHA1(any(FileInputStream::class.java)))
-                .thenReturn("fileSha")
         `when`(mwApi!!.existingFile(ArgumentMatchers.anyString()))
                 .thenReturn(false)
         `when`(mwApi!!.fileExistsWithName(ArgumentMatchers.anyString()))
                 .thenReturn(false)
-        `when`(readFBMD?.processMetadata(ArgumentMatchers.any(),ArgumentMatchers.any()))
+        `when`(readFBMD?.processMetadata(ArgumentMatchers.anyString()))
                 .thenReturn(Single.just(ImageUtils.IMAGE_OK))
         `when`(readEXIF?.processMetadata(ArgumentMatchers.anyString()))
                 .thenReturn(Single.just(ImageUtils.IMAGE_OK))
@@ -99,6 +94,15 @@ class u {
         assertEquals(ImageUtils.IMAGE_DUPLICATE, validateImage.blockingGet())
     }
 
+    @Test
+    fun validateImageForOwnUpload() {
+        `when`(uploadedHashIndex!!.contains("fileSha"))
+                .thenReturn(true)
+        val validateImage = imageProcessingService!!.validateImage(uploadItem, false)
+        assertEquals(ImageUtils.IMAGE_DUPLICATE, validateImage.blockingGet())
+        verify(mwApi, never()).existingFile(ArgumentMatchers.anyString())
+    }
+
     @Test
     fun validateImageForOkImage() {
         val validateImage = imageProcessingService!!.validateImage(uploadItem, false)
@@ -107,7 +111,7 @@ class u {
 
     @Test
     fun validateImageForDarkImage() {
-        `when`(imageUtilsWrapper?.checkIfImageIsTooDark(ArgumentMatchers.anyString()))
+        `when`(imageUtilsWrapper?.checkIfImageIsDarkOrBlurry(ArgumentMatchers.anyString()))
                 .thenReturn(Single.just(ImageUtils.IMAGE_DARK))
         val validateImage = imageProcessingService!!.validateImage(uploadItem, false)
         assertEquals(ImageUtils.IMAGE_DARK, validateImage.blockingGet())
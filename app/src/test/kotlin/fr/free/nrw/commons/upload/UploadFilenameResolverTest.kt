@@ -0,0 +1,80 @@
+package fr.free.nrw.commons.upload
+
+import com.nhaarman.mockito_kotlin.any
+import com.nhaarman.mockito_kotlin.argumentCaptor
+import com.nhaarman.mockito_kotlin.mock
+import com.nhaarman.mockito_kotlin.times
+import com.nhaarman.mockito_kotlin.verify
+import com.nhaarman.mockito_kotlin.whenever
+import fr.free.nrw.commons.mwapi.MediaWikiApi
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertTrue
+import org.junit.Before
+import org.junit.Test
+
+class UploadFilenameResolverTest {
+
+    private lateinit var mwApi: MediaWikiApi
+    private lateinit var resolver: UploadFilenameResolver
+
+    @Before
+    fun setUp() {
+        mwApi = mock()
+        whenever(mwApi.getExistingFileNames(any())).thenAnswer { invocation ->
+            (invocation.arguments[0] as Collection<*>)
+                    // The wiki capitalizes the first letter of titles
+                    .filter { (it as String).capitalize() in setOf("Bridge.jpg", "Tower.jpg") }
+                    .map { it as String }
+                    .toSet()
+        }
+        resolver = UploadFilenameResolver(mwApi)
+    }
+
+    @Test
+    fun namesSeriesWithOneQuery() {
+        val names = (0 until 3).map { resolver.findUniqueFilename("Bridge.jpg", emptySet()) }
+
+        assertEquals(listOf("Bridge 2.jpg", "Bridge 3.jpg", "Bridge 4.jpg"), names)
+        verify(mwApi, times(1)).getExistingFileNames(any())
+    }
+
+    @Test
+    fun checksOtherFilesOfTheBatchTogether() {
+        resolver.addPendingFileName("Bridge.jpg")
+        resolver.addPendingFileName("Tower.jpg")
+
+        assertEquals("Bridge 2.jpg", resolver.findUniqueFilename("Bridge.jpg", emptySet()))
+        // Names are compared the way the wiki does, whatever their first letter
+        assertEquals("tower 2.jpg", resolver.findUniqueFilename("tower.jpg", emptySet()))
+        assertEquals("Tower 3.jpg", resolver.findUniqueFilename("Tower.jpg", emptySet()))
+
+        val captor = argumentCaptor<Collection<String>>()
+        verify(mwApi, times(1)).getExistingFileNames(captor.capture())
+        assertTrue(captor.firstValue.containsAll(listOf("Bridge.jpg", "Tower.jpg", "Tower 3.jpg")))
+    }
+
+    @Test
+    fun skipsUnfinishedUploads() {
+        assertEquals("Bridge 3.jpg", resolver.findUniqueFilename("Bridge.jpg", setOf("Bridge 2.jpg")))
+        assertEquals("Photo", UploadFilenameResolver.getSequenceFileName("Photo", 1))
+        assertEquals("Photo 2", UploadFilenameResolver.getSequenceFileName("Photo", 2))
+    }
+
+    @Test
+    fun rechecksNamesCheckedEarlierInTheBatch() {
+        assertEquals("Bridge 2.jpg", resolver.findUniqueFilename("Bridge.jpg", emptySet()))
+        whenever(mwApi.fileExistsWithName("Bridge 3.jpg")).thenReturn(true)
+
+        assertEquals("Bridge 4.jpg", resolver.findUniqueFilename("Bridge.jpg", emptySet()))
+        verify(mwApi, times(1)).getExistingFileNames(any())
+    }
+
+    @Test
+    fun checksNamesAgainAfterTheBatch() {
+        assertEquals("Bridge 2.jpg", resolver.findUniqueFilename("Bridge.jpg", emptySet()))
+        resolver.clearCheckedNames()
+
+        assertEquals("Bridge 2.jpg", resolver.findUniqueFilename("Bridge.jpg", emptySet()))
+        verify(mwApi, times(2)).getExistingFileNames(any())
+    }
+}
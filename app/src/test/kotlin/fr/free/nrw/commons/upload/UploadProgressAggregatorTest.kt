@@ -0,0 +1,38 @@
+package fr.free.nrw.commons.upload
+
+import android.net.Uri
+import com.nhaarman.mockito_kotlin.mock
+import org.junit.Assert.assertFalse
+import org.junit.Assert.assertTrue
+import org.junit.Test
+
+class UploadProgressAggregatorTest {
+
+    private val aggregator = UploadProgressAggregator()
+    private val contentUri = mock<Uri>()
+
+    @Test
+    fun coalescesProgressButReportsTheEnd() {
+        val tracker = aggregator.track(contentUri)
+
+        assertTrue(tracker.onProgress(0, 1000))
+        assertFalse(tracker.onProgress(500, 1000))
+        assertTrue(tracker.onProgress(1000, 1000))
+    }
+
+    @Test
+    fun publishesEveryCallbackInMemory() {
+        val tracker = aggregator.track(contentUri)
+        tracker.onProgress(100, 1000)
+        val observer = aggregator.getProgress(contentUri).map { it.transferred }.test()
+
+        tracker.onProgress(200, 1000)
+        tracker.onProgress(300, 1000)
+        aggregator.track(mock()).onProgress(400, 1000)
+
+        observer.assertValues(100, 200, 300)
+
+        tracker.finish()
+        aggregator.getProgress(contentUri).test().assertNoValues()
+    }
+}
@@ -0,0 +1,68 @@
+package fr.free.nrw.commons.upload
+
+import android.content.Context
+import com.nhaarman.mockito_kotlin.mock
+import com.nhaarman.mockito_kotlin.whenever
+import io.reactivex.subjects.SingleSubject
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertFalse
+import org.junit.Assert.assertTrue
+import org.junit.Before
+import org.junit.Test
+
+class UploadSchedulerTest {
+
+    private lateinit var uploadScheduler: UploadScheduler
+
+    @Before
+    fun setUp() {
+        val context = mock<Context>()
+        // Without connectivity information, two uploads are allowed in parallel
+        whenever(context.applicationContext).thenReturn(context)
+        uploadScheduler = UploadScheduler(context)
+    }
+
+    @Test
+    fun startsQueuedUploadsAsOthersFinish() {
+        val uploads = (0 until 3).map { SingleSubject.create<String>() }
+        val observers = uploads.map { uploadScheduler.scheduleStash(it, 100).test() }
+
+        assertTrue(uploads[0].hasObservers())
+        assertTrue(uploads[1].hasObservers())
+        assertFalse(uploads[2].hasObservers())
+
+        uploads[0].onSuccess("first")
+        assertTrue(uploads[2].hasObservers())
+        observers[0].assertValue("first")
+
+        uploads[1].onError(RuntimeException())
+        uploads[2].onSuccess("third")
+        observers[1].assertError(RuntimeException::class.java)
+        observers[2].assertValue("third")
+        assertEquals(2, uploadScheduler.concurrency)
+    }
+
+    @Test
+    fun skipsDisposedUploads() {
+        val uploads = (0 until 4).map { SingleSubject.create<String>() }
+        val observers = uploads.map { uploadScheduler.scheduleStash(it, 100).test() }
+        observers[2].dispose()
+
+        uploads[0].onSuccess("first")
+
+        assertFalse(uploads[2].hasObservers())
+        assertTrue(uploads[3].hasObservers())
+    }
+
+    @Test
+    fun releasesSlotOfDisposedRunningUploads() {
+        val uploads = (0 until 3).map { SingleSubject.create<String>() }
+        val observers = uploads.map { uploadScheduler.scheduleStash(it, 100).test() }
+        assertFalse(uploads[2].hasObservers())
+
+        observers[0].dispose()
+
+        assertFalse(uploads[0].hasObservers())
+        assertTrue(uploads[2].hasObservers())
+    }
+}
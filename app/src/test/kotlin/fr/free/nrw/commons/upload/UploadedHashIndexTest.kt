@@ -0,0 +1,83 @@
+package fr.free.nrw.commons.upload
+
+import android.content.Context
+import com.nhaarman.mockito_kotlin.mock
+import com.nhaarman.mockito_kotlin.whenever
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertFalse
+import org.junit.Assert.assertTrue
+import org.junit.Before
+import org.junit.Test
+import java.io.File
+import java.nio.file.Files
+import java.util.Random
+
+class UploadedHashIndexTest {
+
+    private lateinit var context: Context
+    private lateinit var filesDir: File
+
+    @Before
+    fun setUp() {
+        filesDir = Files.createTempDirectory("files").toFile()
+        context = mock()
+        whenever(context.filesDir).thenReturn(filesDir)
+    }
+
+    private fun randomSha1(random: Random) = (0 until 40).map { "0123456789abcdef"[random.nextInt(16)] }.joinToString("")
+
+    @Test
+    fun findsAddedHashesAcrossInstances() {
+        val random = Random(42)
+        val uploaded = (0 until 1000).map { randomSha1(random) }
+        UploadedHashIndex(context).addAll(uploaded.subList(0, 600))
+        val index = UploadedHashIndex(context)
+        index.addAll(uploaded.subList(400, 1000))
+        index.add(uploaded[0].toUpperCase())
+
+        val reloaded = UploadedHashIndex(context)
+        uploaded.forEach { assertTrue(reloaded.contains(it)) }
+        (0 until 1000).forEach { assertFalse(reloaded.contains(randomSha1(random))) }
+        assertEquals(1000 * 20L, File(filesDir, "uploadedHashes.bin").length())
+    }
+
+    @Test
+    fun comparesWholeHashes() {
+        val index = UploadedHashIndex(context)
+        index.addAll(listOf("ffffffffffffffff000000000000000000000001",
+                "ffffffffffffffff000000000000000000000003",
+                "0000000000000000000000000000000000000002"))
+
+        assertTrue(index.contains("ffffffffffffffff000000000000000000000003"))
+        assertFalse(index.contains("ffffffffffffffff000000000000000000000002"))
+        assertFalse(index.contains("not a sha1"))
+    }
+
+    @Test
+    fun clearsHashesOfAnotherAccount() {
+        val sha1 = "ffffffffffffffff000000000000000000000001"
+        val index = UploadedHashIndex(context)
+        assertTrue(index.setUser("First"))
+        index.add(sha1)
+
+        assertFalse(UploadedHashIndex(context).setUser("First"))
+        assertTrue(index.contains(sha1))
+
+        assertTrue(index.setUser("Second"))
+        assertFalse(index.contains(sha1))
+        assertFalse(UploadedHashIndex(context).contains(sha1))
+    }
+
+    @Test
+    fun rebuildsOldIndexes() {
+        val sha1 = "ffffffffffffffff000000000000000000000001"
+        val index = UploadedHashIndex(context)
+        index.setUser("First")
+        index.add(sha1)
+        File(filesDir, "uploadedHashes.user").setLastModified(System.currentTimeMillis() - 8 * 24 * 3600 * 1000L)
+
+        assertTrue(index.setUser("First"))
+        assertFalse(index.contains(sha1))
+        assertFalse(index.setUser("First"))
+    }
+}
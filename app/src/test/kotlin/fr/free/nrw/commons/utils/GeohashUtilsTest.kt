@@ -0,0 +1,45 @@
+package fr.free.nrw.commons.utils
+
+import fr.free.nrw.commons.location.LatLng
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertNull
+import org.junit.Assert.assertTrue
+import org.junit.Test
+
+class GeohashUtilsTest {
+
+    @Test
+    fun testEncode() {
+        assertEquals("u4pruydqqvj", GeohashUtils.encode(57.64911, 10.40744, 11))
+        assertEquals("u4pru", GeohashUtils.encode(LatLng(57.64911, 10.40744, 0f), 5))
+    }
+
+    @Test
+    fun testBounds() {
+        val bounds = GeohashUtils.bounds("u4pru")
+        assertEquals(57.6123046875, bounds[0], 1e-9)
+        assertEquals(57.65625, bounds[1], 1e-9)
+        assertEquals(10.37109375, bounds[2], 1e-9)
+        assertEquals(10.4150390625, bounds[3], 1e-9)
+    }
+
+    @Test
+    fun testCoveringTilesContainCenter() {
+        val center = LatLng(48.85, 2.35, 0f)
+        val tiles = GeohashUtils.coveringTiles(center, 2.6, 4, 6, 9)!!
+        assertTrue(tiles.size <= 9)
+        assertTrue(tiles.contains(GeohashUtils.encode(center, tiles[0].length)))
+    }
+
+    @Test
+    fun testCoveringTilesAcrossAntimeridian() {
+        val tiles = GeohashUtils.coveringTiles(LatLng(0.0, 179.99, 0f), 1.0, 4, 6, 9)!!
+        assertTrue(tiles.any { it.startsWith("r") })
+        assertTrue(tiles.any { it.startsWith("x") })
+    }
+
+    @Test
+    fun testCoveringTilesTooLarge() {
+        assertNull(GeohashUtils.coveringTiles(LatLng(48.85, 2.35, 0f), 300.0, 4, 6, 9))
+    }
+}
@@ -0,0 +1,53 @@
+package fr.free.nrw.commons.utils
+
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertFalse
+import org.junit.Assert.assertTrue
+import org.junit.Test
+
+class ImageQualityAnalyzerTest {
+
+    private fun analyze(width: Int, height: Int, pixel: (Int, Int) -> Int): ImageQualityAnalyzer.Analysis {
+        val analysis = ImageQualityAnalyzer.Analysis(width)
+        val row = IntArray(width)
+        for (y in 0 until height) {
+            for (x in 0 until width) {
+                row[x] = pixel(x, y)
+            }
+            analysis.addRow(row, 0)
+        }
+        return analysis
+    }
+
+    private fun gray(value: Int) = (0xff shl 24) or (value shl 16) or (value shl 8) or value
+
+    @Test
+    fun detectsDarkImages() {
+        val dark = analyze(64, 64) { _, _ -> gray(20) }
+        assertTrue(dark.isDark)
+        assertEquals(ImageUtils.IMAGE_DARK, dark.getResult(true))
+
+        // A few bright pixels are enough for an image not to be dark
+        val lit = analyze(64, 64) { x, y -> if (x < 4 && y < 32) gray(200) else gray(20) }
+        assertFalse(lit.isDark)
+    }
+
+    @Test
+    fun detectsBlurryImages() {
+        val sharp = analyze(64, 64) { x, y -> if ((x / 4 + y / 4) % 2 == 0) gray(250) else gray(120) }
+        assertEquals(ImageUtils.IMAGE_OK, sharp.getResult(true))
+
+        val smooth = analyze(64, 64) { x, _ -> gray(120 + x) }
+        assertEquals(0.0, smooth.blurScore, 1e-9)
+        assertEquals(ImageUtils.IMAGE_BLURRY, smooth.getResult(true))
+        assertEquals(ImageUtils.IMAGE_OK, smooth.getResult(false))
+    }
+
+    @Test
+    fun samplesImagesToTheAnalysisSize() {
+        assertEquals(1, ImageQualityAnalyzer.calculateSampleSize(1024, 768))
+        assertEquals(2, ImageQualityAnalyzer.calculateSampleSize(1025, 768))
+        assertEquals(4, ImageQualityAnalyzer.calculateSampleSize(4000, 3000))
+        assertEquals(8, ImageQualityAnalyzer.calculateSampleSize(3000, 8000))
+    }
+}
@@ -0,0 +1,79 @@
+package fr.free.nrw.commons.utils
+
+import fr.free.nrw.commons.location.LatLng
+import org.openjdk.jmh.annotations.Benchmark
+import org.openjdk.jmh.annotations.BenchmarkMode
+import org.openjdk.jmh.annotations.Fork
+import org.openjdk.jmh.annotations.Measurement
+import org.openjdk.jmh.annotations.Mode
+import org.openjdk.jmh.annotations.OutputTimeUnit
+import org.openjdk.jmh.annotations.Param
+import org.openjdk.jmh.annotations.Scope
+import org.openjdk.jmh.annotations.Setup
+import org.openjdk.jmh.annotations.State
+import org.openjdk.jmh.annotations.Warmup
+import org.openjdk.jmh.infra.Blackhole
+import org.openjdk.jmh.runner.Runner
+import org.openjdk.jmh.runner.options.OptionsBuilder
+import java.util.Random
+import java.util.concurrent.TimeUnit
+
+/**
+ * Compares the distance of each place computed one pair at a time with the batch computations of
+ * LengthUtils. Run the main function from the IDE, it is not part of the unit tests.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+open class LengthUtilsBenchmark {
+
+    @Param("1000", "10000", "100000")
+    @JvmField
+    var size = 0
+
+    private val origin = LatLng(48.85, 2.35, 0f)
+    private lateinit var points: Array<LatLng>
+    private lateinit var latitudes: DoubleArray
+    private lateinit var longitudes: DoubleArray
+    private lateinit var distances: DoubleArray
+
+    @Setup
+    fun setUp() {
+        val random = Random(42)
+        points = Array(size) {
+            LatLng(origin.latitude + random.nextGaussian() * 0.1,
+                    origin.longitude + random.nextGaussian() * 0.1, 0f)
+        }
+        latitudes = DoubleArray(size) { points[it].latitude }
+        longitudes = DoubleArray(size) { points[it].longitude }
+        distances = DoubleArray(size)
+    }
+
+    @Benchmark
+    fun pairwise(blackhole: Blackhole) {
+        for (point in points) {
+            blackhole.consume(LengthUtils.computeDistanceBetween(origin, point))
+        }
+    }
+
+    @Benchmark
+    fun batch(): DoubleArray {
+        LengthUtils.computeDistances(origin.latitude, origin.longitude,
+                latitudes, longitudes, distances, size)
+        return distances
+    }
+
+    @Benchmark
+    fun approximate(): DoubleArray {
+        LengthUtils.computeApproximateDistances(origin.latitude, origin.longitude,
+                latitudes, longitudes, distances, size)
+        return distances
+    }
+}
+
+fun main() {
+    Runner(OptionsBuilder().include(LengthUtilsBenchmark::class.java.simpleName).build()).run()
+}
@@ -4,6 +4,7 @@ import fr.free.nrw.commons.location.LatLng
 import org.junit.Assert.assertEquals
 import org.junit.Assert.assertNull
 import org.junit.Test
+import java.util.Random
 
 class LengthUtilsTest {
     // Test LengthUtils.formatDistanceBetween()
@@ -106,6 +107,50 @@ class LengthUtilsTest {
         assertDistanceBetween(20015115.07, pointA, pointB)
     }
 
+    // Test LengthUtils.computeOffset()
+
+    @Test
+    fun testOffsetKeepsDistance() {
+        val from = LatLng(48.85, 2.35, 0f)
+        for (heading in listOf(0.0, 45.0, 90.0, 200.0, 315.0)) {
+            assertDistanceBetween(2500.0, from, LengthUtils.computeOffset(from, 2500.0, heading))
+        }
+    }
+
+    @Test
+    fun testOffsetNorthOnEquator() {
+        val to = LengthUtils.computeOffset(LatLng(0.0, 0.0, 0f), 111194.93, 0.0)
+        assertEquals(1.0, to.latitude, 1e-6)
+        assertEquals(0.0, to.longitude, 1e-6)
+    }
+
+    @Test
+    fun testBatchDistancesMatchPairwiseDistances() {
+        val random = Random(42)
+        val latitudes = DoubleArray(1000) { random.nextDouble() * 180 - 90 }
+        val longitudes = DoubleArray(1000) { random.nextDouble() * 360 - 180 }
+        val distances = DoubleArray(1000)
+        LengthUtils.computeDistances(48.85, 2.35, latitudes, longitudes, distances, 1000)
+        for (i in 0 until 1000) {
+            assertEquals(LengthUtils.computeDistanceBetween(48.85, 2.35, latitudes[i], longitudes[i]),
+                    distances[i], 1e-6)
+        }
+    }
+
+    @Test
+    fun testApproximateDistancesAtShortRange() {
+        val from = LatLng(60.0, 179.99, 0f)
+        val points = (0 until 360 step 15).map { LengthUtils.computeOffset(from, 10000.0, it.toDouble()) }
+        val latitudes = points.map { it.latitude }.toDoubleArray()
+        val longitudes = points.map { it.longitude }.toDoubleArray()
+        val distances = DoubleArray(points.size)
+        LengthUtils.computeApproximateDistances(from.latitude, from.longitude,
+                latitudes, longitudes, distances, points.size)
+        for (distance in distances) {
+            assertEquals(10000.0, distance, 0.01)
+        }
+    }
+
     // Test assertion helper functions
 
     private fun assertFormattedDistanceBetween(expected: String, pointA: LatLng, pointB: LatLng) =